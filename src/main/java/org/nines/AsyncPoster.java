@@ -33,7 +33,7 @@ public class AsyncPoster {
         }
     }
 
-    public void asyncPost( final SolrClient client, final String archive, final String payload ) {
+    public void asyncPost( final SolrClient client, final String archive, final SolrJsonWriter.Payload payload ) {
         removeDone( );
         pending.add( this.service.submit( new SolrPoster( client, payload, archive ) ) );
     }
@@ -72,10 +72,10 @@ public class AsyncPoster {
     private class SolrPoster implements Runnable {
 
         private final SolrClient client;
-        private final String payload;
+        private final SolrJsonWriter.Payload payload;
         private final String archive;
 
-        public SolrPoster( final SolrClient client, final String payload, final String archive ) {
+        public SolrPoster( final SolrClient client, final SolrJsonWriter.Payload payload, final String archive ) {
             this.client = client;
             this.archive = archive;
             this.payload = payload;
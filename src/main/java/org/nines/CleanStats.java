@@ -0,0 +1,64 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running totals of a text cleanup. Cleaners that work in parallel share
+ * one instance, so the totals cover all of them.
+ */
+final class CleanStats {
+
+    private final AtomicLong origChars = new AtomicLong();
+    private final AtomicLong cleanedChars = new AtomicLong();
+    private final AtomicLong filesChanged = new AtomicLong();
+    private final AtomicLong filesSkipped = new AtomicLong();
+
+    /**
+     * Count a cleaned file by its length before and after cleaning
+     */
+    public void cleaned(final long startChars, final long endChars) {
+        this.origChars.addAndGet(startChars);
+        this.cleanedChars.addAndGet(endChars);
+        if (endChars != startChars) {
+            this.filesChanged.incrementAndGet();
+        }
+    }
+
+    /**
+     * Count a file that did not need cleaning
+     */
+    public void skipped() {
+        this.filesSkipped.incrementAndGet();
+    }
+
+    public long getOriginalLength() {
+        return this.origChars.get();
+    }
+
+    public long getCleanedLength() {
+        return this.cleanedChars.get();
+    }
+
+    public long getTotalFilesChanged() {
+        return this.filesChanged.get();
+    }
+
+    public long getTotalFilesSkipped() {
+        return this.filesSkipped.get();
+    }
+}
@@ -15,63 +15,439 @@
  **/ 
 package org.nines;
 
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.HashSet;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
 import org.apache.log4j.Logger;
 
+/**
+ * Append only error report. Adding an error only puts it on a lock free
+ * queue, so any number of threads can report without taking a lock; a
+ * background thread, started with the first error, writes whatever has
+ * queued up, flushes whenever it runs dry and parks until woken for more.
+ * The queue is bounded by a separate count: when the writer falls that far
+ * behind, reporting threads wait for it. The report is either the classic tab separated text or
+ * one JSON object per line. Distinct files and objects are estimated in fixed
+ * memory unless exact counts are asked for.
+ *
+ * Every error is counted against its category. Optionally only the first
+ * few errors of each category are written in full; the rest are counted and
+ * a per category summary is appended to the report when it is closed.
+ */
 public class ErrorReport {
   public static Logger log = Logger.getLogger(ErrorReport.class.getName());
-  private FileWriter report;
 
-  private int errorCount;
-  private Set<String> fileCount;
-  private Set<String> objectCount;
-  
+  public enum Format { TEXT, JSON }
+
+  // categories of the warnings and errors reported by the RDF parser
+  public static final String PARSE_WARNING = "Parse warning";
+  public static final String PARSE_ERROR = "Parse error";
+
+  // errors queued for the writer before reporting threads have to wait
+  private static final int MAX_PENDING = 4096;
+
+  // how long the writer parks when idle, and how long it and waiting threads park
+  // when they expect more soon; unpark normally wakes them first
+  private static final long PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final Writer report;
+  private final Format format;
+
+  // errors to write, and markers that ask the writer to flush or stop. queued
+  // counts the items being queued as well as those in the queue
+  private final ConcurrentLinkedQueue<Object> pending = new ConcurrentLinkedQueue<Object>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private volatile Thread writer = null;
+  private volatile boolean writerParked = false;
+
+  private volatile boolean closed = false;
+  private final AtomicInteger dropped = new AtomicInteger();
+
+  private final AtomicInteger errorCount = new AtomicInteger();
+  private final IDistinctCounter fileCount;
+  private final IDistinctCounter objectCount;
+
+  // errors of each category; only the first maxExamples of each are written (0 is no limit)
+  private final ConcurrentHashMap<String, AtomicInteger> categories = new ConcurrentHashMap<String, AtomicInteger>();
+  private final int maxExamples;
+
   public ErrorReport( File reportFile ) throws IOException {
-    //create the empty report.txt
-    report = new FileWriter(reportFile, true);
-    report.write("");
-    fileCount = new HashSet<String>();
-    objectCount = new HashSet<String>();
+    this(reportFile, Format.TEXT, false, 0);
   }
-  
+
+  public ErrorReport( File reportFile, Format format, boolean exactCounts, int maxExamples ) throws IOException {
+    this.maxExamples = maxExamples;
+    this.report = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(reportFile, true), Charset.forName("UTF-8")));
+    this.format = format;
+    if ( exactCounts ) {
+      this.fileCount = new ExactCounter();
+      this.objectCount = new ExactCounter();
+    } else {
+      this.fileCount = new HyperLogLog();
+      this.objectCount = new HyperLogLog();
+    }
+  }
+
   public void addError( IndexerError e ) {
-    try {
-		report.write(e.toString() + "\r\n");
-	} 
-    catch (IOException e1) {
-		log.error("Unable to write error message to report file.");
-	}
-    fileCount.add(e.getFilename());
-    objectCount.add(e.getUri());
-    errorCount++;
-  }
-  
+    int n = countError(e.getCategory(), e.getFilename(), e.getUri());
+    if (maxExamples == 0 || n <= maxExamples) {
+      enqueue(e);
+    }
+  }
+
+  /**
+   * Report an error of a category that can occur many times. Once the
+   * category has had its examples written in full, the error is only counted.
+   * A message that is costly to build should be built only after
+   * {@link #countIfFull(String, String, String)} returned false.
+   */
+  public void report( String filename, String uri, String message, String category ) {
+    if (countIfFull(category, filename, uri) == false) {
+      addError(new IndexerError(filename, uri, message, category));
+    }
+  }
+
+  /**
+   * Count an error of <code>category</code> without writing it if the category is full
+   * @return true if it was counted, so no message need be built for it
+   */
+  public boolean countIfFull( String category, String filename, String uri ) {
+    if (isFull(category) == false) {
+      return false;
+    }
+    countError(category, filename, uri);
+    return true;
+  }
+
+  /**
+   * Check if errors of <code>category</code> are no longer written in full
+   */
+  public boolean isFull( String category ) {
+    if (maxExamples == 0) {
+      return false;
+    }
+    AtomicInteger cnt = categories.get(category);
+    return (cnt != null && cnt.get() >= maxExamples);
+  }
+
+  /**
+   * Count an error without writing it
+   * @return The number of errors of <code>category</code> so far
+   */
+  public int countError( String category, String filename, String uri ) {
+    fileCount.add(filename);
+    objectCount.add(uri);
+    errorCount.incrementAndGet();
+    AtomicInteger cnt = categories.get(category);
+    if (cnt == null) {
+      AtomicInteger added = new AtomicInteger();
+      cnt = categories.putIfAbsent(category, added);
+      if (cnt == null) {
+        cnt = added;
+      }
+    }
+    return cnt.incrementAndGet();
+  }
+
+  /**
+   * Wait until every error queued so far is written and the report file is flushed
+   */
   public void flush() {
-   try {
-		report.flush();
-	} catch (IOException e) {
-		log.error("Error flushing report data to disk.");
-	}
+    Marker marker = new Marker(false);
+    if (enqueue(marker)) {
+      marker.await();
+    }
   }
-  
+
+  /**
+   * Write out all queued errors, stop the writer and close the report file.
+   * Errors added after this are counted but not written.
+   */
   public void close() {
-     try {
-		report.flush();
-	    report.close();	  
-	} catch (IOException e) {
-		log.error("Unable to properly close report file.");
-	}
+    Thread running;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      running = this.writer;
+    }
+    if (running != null) {
+      Marker marker = new Marker(true);
+      queued.incrementAndGet();
+      pending.offer(marker);
+      LockSupport.unpark(running);
+      marker.await();
+      boolean interrupted = false;
+      while (running.isAlive()) {
+        try {
+          running.join();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (dropped.get() > 0) {
+      log.warn(dropped.get() + " errors were counted but could not be written to the report");
+    }
+    try {
+      writeCategorySummary();
+      report.close();
+    } catch (IOException e) {
+      log.error("Unable to properly close report file.");
+    }
   }
 
   public ErrorSummary getSummary() {
-    return new ErrorSummary(fileCount.size(), objectCount.size(), errorCount);
+    return new ErrorSummary((int) fileCount.count(), (int) objectCount.count(), errorCount.get(),
+        getCategoryCounts());
   }
 
-	public int getErrorCount() {
-		return errorCount;
-	}
-}
\ No newline at end of file
+  private Map<String, Integer> getCategoryCounts() {
+    TreeMap<String, Integer> counts = new TreeMap<String, Integer>();
+    for (Map.Entry<String, AtomicInteger> entry : categories.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().get());
+    }
+    return counts;
+  }
+
+  /**
+   * When errors were left out of the report, list the count of each category
+   */
+  private void writeCategorySummary() throws IOException {
+    if (maxExamples == 0) {
+      return;
+    }
+    Map<String, Integer> counts = getCategoryCounts();
+    boolean limited = false;
+    for (Integer cnt : counts.values()) {
+      limited |= (cnt > maxExamples);
+    }
+    if (limited == false) {
+      return;
+    }
+    if (format == Format.TEXT) {
+      report.write("--- " + errorCount.get() + " errors; only the first " + maxExamples
+          + " of each category are listed above ---\r\n");
+    }
+    for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+      if (format == Format.JSON) {
+        StringBuilder line = new StringBuilder(96);
+        line.append("{\"category\":\"");
+        SolrJsonWriter.appendEscaped(line, entry.getKey());
+        line.append("\",\"count\":").append(entry.getValue());
+        line.append(",\"written\":").append(Math.min(entry.getValue(), maxExamples)).append("}\n");
+        report.write(line.toString());
+      } else {
+        report.write(entry.getValue() + "\t" + entry.getKey() + "\r\n");
+      }
+    }
+  }
+
+  public int getErrorCount() {
+    return errorCount.get();
+  }
+
+  /**
+   * Queue an error or marker for the writer, starting it if need be. Only
+   * waits when the writer has fallen MAX_PENDING items behind.
+   * @return false if it was dropped because the report is closed
+   */
+  private boolean enqueue( Object item ) {
+    // counted before closed is checked, so a closing writer waits for it
+    int n = queued.incrementAndGet();
+    if (closed || (this.writer == null && (item instanceof Marker || startWriter() == false))) {
+      // a marker with no writer has nothing to wait for
+      queued.decrementAndGet();
+      if (item instanceof IndexerError) {
+        dropped.incrementAndGet();
+      }
+      return false;
+    }
+    if (n > MAX_PENDING) {
+      waitForWriter();
+    }
+    pending.offer(item);
+    if (writerParked) {
+      LockSupport.unpark(this.writer);
+    }
+    return true;
+  }
+
+  /**
+   * Wait while the writer is too far behind. An interrupted thread stops
+   * waiting and queues its error anyway.
+   */
+  private void waitForWriter() {
+    while (queued.get() > MAX_PENDING && closed == false && Thread.currentThread().isInterrupted() == false) {
+      LockSupport.unpark(this.writer);
+      LockSupport.parkNanos(this, WAIT_NANOS);
+    }
+  }
+
+  /**
+   * Start the writer unless the report is already closed
+   * @return false if it is closed
+   */
+  private synchronized boolean startWriter() {
+    if (closed) {
+      return false;
+    }
+    if (this.writer == null) {
+      Thread thread = new Thread(new Runnable() {
+        public void run() {
+          writeLoop();
+        }
+      }, "error-report");
+      thread.setDaemon(true);
+      this.writer = thread;
+      thread.start();
+    }
+    return true;
+  }
+
+  /**
+   * Write queued errors, flushing the file whenever the queue runs dry, and
+   * park while there is nothing to write. Once the closing marker is taken,
+   * carry on until every error counted in <code>queued</code> is written.
+   */
+  private void writeLoop() {
+    Marker closing = null;
+    boolean dirty = false;
+    boolean failed = false;
+    while (true) {
+      Object item = pending.poll();
+      if (item == null) {
+        if (dirty) {
+          failed = flushReport(failed);
+          dirty = false;
+        }
+        if (closing != null && queued.get() == 0) {
+          break;
+        }
+        writerParked = true;
+        if (pending.isEmpty()) {
+          LockSupport.parkNanos(this, closing == null ? PARK_NANOS : WAIT_NANOS);
+        }
+        writerParked = false;
+        continue;
+      }
+      queued.decrementAndGet();
+      if (item instanceof Marker) {
+        Marker marker = (Marker) item;
+        if (marker.close) {
+          closing = marker;
+        } else {
+          failed = flushReport(failed);
+          dirty = false;
+          marker.done.countDown();
+        }
+        continue;
+      }
+      try {
+        write((IndexerError) item);
+        dirty = true;
+      } catch (IOException ex) {
+        if (failed == false) {
+          log.error("Unable to write error message to report file.");
+        }
+        failed = true;
+      }
+    }
+    closing.done.countDown();
+  }
+
+  /**
+   * Flush the report file, logging the first failure only
+   * @return true if writing the report has failed
+   */
+  private boolean flushReport( boolean failed ) {
+    try {
+      report.flush();
+      return failed;
+    } catch (IOException ex) {
+      if (failed == false) {
+        log.error("Unable to write error message to report file.");
+      }
+      return true;
+    }
+  }
+
+  private void write( IndexerError e ) throws IOException {
+    if (format == Format.JSON) {
+      StringBuilder line = new StringBuilder(128);
+      line.append("{\"file\":\"");
+      SolrJsonWriter.appendEscaped(line, String.valueOf(e.getFilename()));
+      line.append("\",\"uri\":\"");
+      SolrJsonWriter.appendEscaped(line, String.valueOf(e.getUri()));
+      line.append("\",\"message\":\"");
+      SolrJsonWriter.appendEscaped(line, String.valueOf(e.getMessage()));
+      line.append("\"}\n");
+      report.write(line.toString());
+    } else {
+      report.write(e.toString() + "\r\n");
+    }
+  }
+
+  /**
+   * Queued behind the errors to have the writer flush, or stop, and say when it has
+   */
+  private static final class Marker {
+    private final boolean close;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private Marker( boolean close ) {
+      this.close = close;
+    }
+
+    private void await() {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          done.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Exact distinct count; memory grows with the number of distinct values
+   */
+  private static final class ExactCounter implements IDistinctCounter {
+    private final Set<String> values = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    public void add(String value) {
+      values.add(String.valueOf(value));
+    }
+
+    public long count() {
+      return values.size();
+    }
+  }
+}
@@ -5,15 +5,24 @@
 
 package org.nines;
 
+import java.util.Collections;
+import java.util.Map;
+
 class ErrorSummary {
   private int fileCount = 0,
       objectCount = 0,
       errorCount = 0;
+  private Map<String, Integer> categoryCounts;
 
   public ErrorSummary(int fileCount, int objectCount, int errorCount) {
+    this(fileCount, objectCount, errorCount, Collections.<String, Integer>emptyMap());
+  }
+
+  public ErrorSummary(int fileCount, int objectCount, int errorCount, Map<String, Integer> categoryCounts) {
     this.fileCount = fileCount;
     this.objectCount = objectCount;
     this.errorCount = errorCount;
+    this.categoryCounts = Collections.unmodifiableMap(categoryCounts);
   }
 
   public int getFileCount() {
@@ -27,4 +36,11 @@ class ErrorSummary {
   public int getErrorCount() {
     return errorCount;
   }
+
+  /**
+   * Number of errors in each category
+   */
+  public Map<String, Integer> getCategoryCounts() {
+    return categoryCounts;
+  }
 }
@@ -0,0 +1,258 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedList;
+
+/**
+ * Reader decorator that passes RDF content through untouched while watching
+ * for escape sequences that would still read as <code>&amp;#</code> once the
+ * XML entities have been resolved. Each one is flagged in the error report
+ * with its character position and a snippet of the surrounding text. This
+ * replaces the old approach of reading the whole file into memory, unescaping
+ * a second copy and then searching it.
+ */
+final class EscapeCheckingReader extends FilterReader {
+
+    private static final String CATEGORY = "Potentially Invalid Escape sequence";
+
+    // chars of context on either side of a flagged sequence
+    private static final int SNIPPET_RADIUS = 25;
+
+    // longest entity (&...;) that will be considered for unescaping
+    private static final int MAX_ENTITY = 12;
+
+    // history of the most recent chars; must hold a full snippet plus
+    // the lookahead consumed by a pending entity
+    private static final int HISTORY_SIZE = 128;
+
+    private final ErrorReport errorReport;
+    private final String fileName;
+
+    private final char[] history = new char[HISTORY_SIZE];
+    private long position = 0;
+
+    private final StringBuilder entity = new StringBuilder();
+    private long entityStart = -1;
+    private boolean lastWasAmp = false;
+    private long lastAmpPos = -1;
+    private final LinkedList<Long> pending = new LinkedList<Long>();
+    private boolean finished = false;
+
+    public EscapeCheckingReader(Reader in, String fileName, ErrorReport errorReport) {
+        super(in);
+        this.fileName = fileName;
+        this.errorReport = errorReport;
+    }
+
+    public int read() throws IOException {
+        char[] one = new char[1];
+        int cnt = read(one, 0, 1);
+        return (cnt == -1 ? -1 : one[0]);
+    }
+
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int cnt = this.in.read(cbuf, off, len);
+        if (cnt == -1) {
+            finish();
+            return -1;
+        }
+        for (int i = off; i < off + cnt; i++) {
+            scan(cbuf[i]);
+        }
+        return cnt;
+    }
+
+    public long skip(long n) throws IOException {
+        // every char must be seen by the scanner, so skip by reading
+        char[] buf = new char[(int) Math.min(n, 4096)];
+        long total = 0;
+        while (total < n) {
+            int cnt = read(buf, 0, (int) Math.min(buf.length, n - total));
+            if (cnt == -1) {
+                break;
+            }
+            total += cnt;
+        }
+        return total;
+    }
+
+    public boolean markSupported() {
+        return false;
+    }
+
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+
+    /**
+     * Feed one raw char into the scanner
+     */
+    private void scan(char c) {
+        this.history[(int) (this.position % HISTORY_SIZE)] = c;
+        long pos = this.position++;
+
+        if (this.entityStart > -1) {
+            if (c == ';') {
+                this.entity.append(c);
+                resolveEntity();
+            } else if (c == '&' || this.entity.length() >= MAX_ENTITY) {
+                // not an entity after all; its chars are literal
+                flushEntityAsLiteral();
+                scanUnescaped(c, pos);
+            } else {
+                this.entity.append(c);
+            }
+        } else {
+            scanUnescaped(c, pos);
+        }
+
+        reportReady(false);
+    }
+
+    /**
+     * Handle a char from the raw stream that is not part of a pending entity
+     */
+    private void scanUnescaped(char c, long pos) {
+        if (c == '&') {
+            this.entityStart = pos;
+            this.entity.setLength(0);
+            this.entity.append(c);
+        } else {
+            unescaped(c, pos);
+        }
+    }
+
+    /**
+     * An entity has been terminated by a ';'. Resolve it to the char, or the
+     * surrogate pair, that it represents or, if it is not valid, to its literal chars
+     */
+    private void resolveEntity() {
+        String content = this.entity.substring(1, this.entity.length() - 1);
+        long start = this.entityStart;
+        int value = -1;
+        if (content.length() > 1 && content.charAt(0) == '#') {
+            try {
+                char x = content.charAt(1);
+                if (x == 'x' || x == 'X') {
+                    value = Integer.parseInt(content.substring(2), 16);
+                } else {
+                    value = Integer.parseInt(content.substring(1), 10);
+                }
+                if (Character.isValidCodePoint(value) == false) {
+                    value = -1;
+                }
+            } catch (NumberFormatException e) {
+                value = -1;
+            }
+        } else if ("amp".equals(content)) {
+            value = '&';
+        } else if ("lt".equals(content)) {
+            value = '<';
+        } else if ("gt".equals(content)) {
+            value = '>';
+        } else if ("quot".equals(content)) {
+            value = '"';
+        } else if ("apos".equals(content)) {
+            value = '\'';
+        }
+
+        if (value == -1) {
+            flushEntityAsLiteral();
+        } else {
+            this.entityStart = -1;
+            this.entity.setLength(0);
+            for (char c : Character.toChars(value)) {
+                unescaped(c, start);
+            }
+        }
+    }
+
+    private void flushEntityAsLiteral() {
+        long start = this.entityStart;
+        String literal = this.entity.toString();
+        this.entityStart = -1;
+        this.entity.setLength(0);
+        for (int i = 0; i < literal.length(); i++) {
+            unescaped(literal.charAt(i), start + i);
+        }
+    }
+
+    /**
+     * Track a char of the logically unescaped text; an '&amp;' followed
+     * by a '#' is a potentially invalid escape sequence
+     */
+    private void unescaped(char c, long pos) {
+        if (this.lastWasAmp && c == '#') {
+            this.pending.add(this.lastAmpPos);
+        }
+        this.lastWasAmp = (c == '&');
+        this.lastAmpPos = pos;
+    }
+
+    /**
+     * Report all pending sequences that have their trailing
+     * snippet context available
+     */
+    private void reportReady(boolean eof) {
+        while (this.pending.isEmpty() == false) {
+            long pos = this.pending.getFirst();
+            if (eof == false && this.position < pos + SNIPPET_RADIUS) {
+                break;
+            }
+            this.pending.removeFirst();
+            if (this.errorReport.countIfFull(CATEGORY, this.fileName, "")) {
+                continue;
+            }
+            this.errorReport.report(this.fileName, "",
+                "Potentially Invalid Escape sequence.\n   Position: [" + pos + "]\n   Snippet: [" + snippet(pos) + "]",
+                CATEGORY);
+        }
+    }
+
+    private String snippet(long pos) {
+        long start = Math.max(Math.max(0, pos - SNIPPET_RADIUS), this.position - HISTORY_SIZE);
+        long end = Math.min(this.position, pos + SNIPPET_RADIUS);
+        StringBuilder snip = new StringBuilder((int) (end - start));
+        for (long i = start; i < end; i++) {
+            snip.append(this.history[(int) (i % HISTORY_SIZE)]);
+        }
+        return snip.toString();
+    }
+
+    private void finish() {
+        if (this.finished) {
+            return;
+        }
+        this.finished = true;
+        if (this.entityStart > -1) {
+            flushEntityAsLiteral();
+        }
+        reportReady(true);
+    }
+
+    public void close() throws IOException {
+        finish();
+        super.close();
+    }
+}
@@ -0,0 +1,431 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Runs text extraction, which a pathological document can make hang or
+ * exhaust the heap, in isolation. At most <code>extractThreads</code>
+ * extractions run at once, each limited to <code>extractTimeout</code>
+ * seconds. An extraction that the heap clearly cannot hold waits for the
+ * others running in this JVM to finish and, if it still does not fit, is
+ * run in a child JVM instead. When <code>extractChildJvm</code> is set each extraction runs in
+ * its own JVM with a fixed heap and is killed when it runs over time.
+ * <p>
+ * A thread cannot be killed, and PDFBox ignores interrupts, so an
+ * extraction that runs over time in this JVM keeps its slot until its
+ * thread really stops. While any such thread is still running, further
+ * extractions are run in child JVMs instead, which can be killed.
+ * <p>
+ * A document that times out, runs out of memory or crashes its JVM is
+ * quarantined: it is listed in the error report under the
+ * {@link #QUARANTINED} category and a {@link QuarantinedException} is thrown
+ * so that the caller moves on to the next document.
+ */
+final class ExtractionPool {
+
+    static final String QUARANTINED = "Quarantined";
+
+    private static final Logger log = Logger.getLogger(ExtractionPool.class.getName());
+
+    // heap needed per char of text being cleaned (the stripped text as it grows,
+    // then its final copy), and per byte of a PDF
+    private static final long CLEAN_BYTES_PER_CHAR = 8;
+    private static final long PDF_HEAP_PER_BYTE = 2;
+
+    // what an in process extraction is doing
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int ABANDONED = 3;
+
+    /**
+     * Thrown by {@link #run} when the heap of this JVM cannot hold an extraction
+     */
+    static final class HeapShortException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        HeapShortException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown when a document was quarantined rather than extracted
+     */
+    static final class QuarantinedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        QuarantinedException(String message) {
+            super(message);
+        }
+    }
+
+    private final RDFIndexerConfig config;
+    private final ErrorReport errorReport;
+    private final Semaphore slots;
+    private final Semaphore childSlots;
+    private final long timeoutMs;
+    private final ExecutorService threads;
+    private final AtomicInteger quarantined = new AtomicInteger();
+    private final AtomicInteger abandoned = new AtomicInteger();
+    private final AtomicInteger stuck = new AtomicInteger();
+    // extractions running in this JVM; notified as each one stops
+    private final AtomicInteger running = new AtomicInteger();
+    private final Object stopped = new Object();
+    private PdfTextExtractor pdfExtractor;
+
+    public ExtractionPool(final RDFIndexerConfig config, final ErrorReport errorReport) {
+        this(config, errorReport, config.extractThreads);
+    }
+
+    /**
+     * Pool that runs at most <code>maxThreads</code> extractions at once
+     */
+    public ExtractionPool(final RDFIndexerConfig config, final ErrorReport errorReport, final int maxThreads) {
+        this.config = config;
+        this.errorReport = errorReport;
+        this.slots = new Semaphore(maxThreads, true);
+        this.childSlots = new Semaphore(maxThreads, true);
+        this.timeoutMs = TimeUnit.SECONDS.toMillis(config.extractTimeout);
+
+        // a thread stuck in an extraction that ignores interrupts is abandoned and
+        // keeps its slot, so the pool creates threads as needed and the slots limit the work
+        this.threads = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "extract-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Strip the markup from raw <code>text</code> read from <code>file</code>
+     */
+    public String cleanText(final String text, final String file) throws IOException {
+        if (useChildJvm()) {
+            return cleanTextInChild(text, file);
+        }
+        try {
+            return run(new Callable<String>() {
+                public String call() {
+                    return RawTextCleaner.cleanText(text);
+                }
+            }, text.length() * CLEAN_BYTES_PER_CHAR, file, "");
+        } catch (HeapShortException e) {
+            log.info("Cleaning " + file + " in a child JVM: " + e.getMessage());
+            return cleanTextInChild(text, file);
+        }
+    }
+
+    private String cleanTextInChild(final String text, final String file) throws IOException {
+        File in = File.createTempFile("extract", ".txt");
+        File out = File.createTempFile("extract", ".txt");
+        try {
+            FileUtils.writeStringToFile(in, text, "UTF-8");
+            runChild(ExtractionWorker.CLEAN, in, out, file, "");
+            return FileUtils.readFileToString(out, "UTF-8");
+        } finally {
+            in.delete();
+            out.delete();
+        }
+    }
+
+    /**
+     * Extract the text of <code>pdf</code>, fetched from <code>uri</code>, into <code>text</code>
+     */
+    public void extractPdf(final File pdf, final File text, final String uri) throws IOException {
+        if (useChildJvm()) {
+            runChild(ExtractionWorker.PDF, pdf, text, "", uri);
+            return;
+        }
+        final PdfTextExtractor extractor = pdfExtractor();
+        try {
+            run(new Callable<Integer>() {
+                public Integer call() throws IOException {
+                    return extractor.extract(pdf, text);
+                }
+            }, pdf.length() * PDF_HEAP_PER_BYTE, "", uri);
+        } catch (HeapShortException e) {
+            log.info("Extracting " + uri + " in a child JVM: " + e.getMessage());
+            runChild(ExtractionWorker.PDF, pdf, text, "", uri);
+        }
+    }
+
+    public int getQuarantinedCount() {
+        return this.quarantined.get();
+    }
+
+    /**
+     * Number of extractions that timed out in this JVM and are still running
+     */
+    public int getStuckCount() {
+        return this.stuck.get();
+    }
+
+    private boolean useChildJvm() {
+        return this.config.extractChildJvm || this.stuck.get() > 0;
+    }
+
+    /**
+     * Stop the pool; abandoned extractions are left to die with the JVM
+     */
+    public void shutdown() {
+        this.threads.shutdownNow();
+        if (this.abandoned.get() > 0) {
+            log.warn(this.abandoned.get() + " extractions did not stop when they timed out; "
+                + this.stuck.get() + " are still running");
+        }
+    }
+
+    private synchronized PdfTextExtractor pdfExtractor() {
+        if (this.pdfExtractor == null) {
+            this.pdfExtractor = new PdfTextExtractor(this.config.pdfMaxPages, this.config.pdfPagesPerRange);
+        }
+        return this.pdfExtractor;
+    }
+
+    /**
+     * Run <code>task</code> in a pool thread, within the time limit. When the heap
+     * is short, wait for the other extractions in this JVM to stop first.
+     * @throws HeapShortException if it still cannot hold the task
+     */
+    <T> T run(final Callable<T> task, final long heapNeeded, final String file, final String uri)
+        throws IOException {
+        acquire(this.slots);
+        boolean submitted = false;
+        try {
+            long available = awaitHeap(heapNeeded);
+            if (heapNeeded > available) {
+                throw new HeapShortException("needs about " + (heapNeeded >> 20) + "MB of heap, "
+                    + (available >> 20) + "MB is available");
+            }
+
+            // the slot is released by the thread running the task, once it stops
+            final AtomicInteger state = new AtomicInteger(NEW);
+            Future<T> future = this.threads.submit(new Callable<T>() {
+                public T call() throws Exception {
+                    if (state.compareAndSet(NEW, RUNNING) == false) {
+                        return null;
+                    }
+                    running.incrementAndGet();
+                    try {
+                        return task.call();
+                    } finally {
+                        if (state.getAndSet(DONE) == ABANDONED) {
+                            stuck.decrementAndGet();
+                        }
+                        slots.release();
+                        synchronized (stopped) {
+                            running.decrementAndGet();
+                            stopped.notifyAll();
+                        }
+                    }
+                }
+            });
+            submitted = true;
+            try {
+                return future.get(this.timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                abandon(future, state);
+                throw quarantine(file, uri, "extraction took longer than " + this.config.extractTimeout + " seconds");
+            } catch (InterruptedException e) {
+                abandon(future, state);
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted during extraction");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof OutOfMemoryError) {
+                    throw quarantine(file, uri, "extraction ran out of memory");
+                }
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Extraction failed: " + cause, cause);
+            }
+        } finally {
+            if (submitted == false) {
+                this.slots.release();
+            }
+        }
+    }
+
+    /**
+     * Give up on an extraction. One that never started gives its slot back;
+     * a running one keeps it until its thread stops.
+     */
+    private void abandon(final Future<?> future, final AtomicInteger state) {
+        future.cancel(true);
+        if (state.compareAndSet(NEW, DONE)) {
+            this.slots.release();
+        } else if (state.compareAndSet(RUNNING, ABANDONED)) {
+            this.abandoned.incrementAndGet();
+            this.stuck.incrementAndGet();
+        }
+    }
+
+    /**
+     * Wait, up to the time limit, while the heap cannot hold <code>heapNeeded</code>
+     * and other extractions that may free some are running in this JVM
+     * @return The heap available
+     */
+    private long awaitHeap(final long heapNeeded) throws IOException {
+        long end = System.currentTimeMillis() + this.timeoutMs;
+        long available = availableHeap();
+        synchronized (this.stopped) {
+            while (heapNeeded > available && this.running.get() > this.stuck.get()) {
+                long left = end - System.currentTimeMillis();
+                if (left <= 0) {
+                    break;
+                }
+                try {
+                    this.stopped.wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting to extract");
+                }
+                available = availableHeap();
+            }
+        }
+        return available;
+    }
+
+    /**
+     * Heap free for an extraction: the maximum less what was still live
+     * after the last collection. Without that figure, what is in use now,
+     * some of which may only be garbage.
+     */
+    private static long availableHeap() {
+        long live = 0;
+        boolean collected = false;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                live += usage.getUsed();
+                collected = true;
+            }
+        }
+        Runtime rt = Runtime.getRuntime();
+        if (collected == false) {
+            live = rt.totalMemory() - rt.freeMemory();
+        }
+        return rt.maxMemory() - live;
+    }
+
+    /**
+     * Run the extraction in a child JVM that is killed if it runs over time
+     */
+    private void runChild(final String kind, final File in, final File out, final String file, final String uri)
+        throws IOException {
+        List<String> cmd = new ArrayList<String>();
+        cmd.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        cmd.add("-Xmx" + this.config.extractChildHeap);
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(ExtractionWorker.class.getName());
+        cmd.add(kind);
+        cmd.add(in.getPath());
+        cmd.add(out.getPath());
+        cmd.add(String.valueOf(this.config.pdfMaxPages));
+        cmd.add(String.valueOf(this.config.pdfPagesPerRange));
+
+        acquire(this.childSlots);
+        try {
+            ProcessBuilder builder = new ProcessBuilder(cmd);
+            builder.redirectErrorStream(true);
+            final Process process = builder.start();
+            final StringBuilder output = new StringBuilder();
+            Future<Integer> exit = this.threads.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    InputStream is = process.getInputStream();
+                    byte[] buffer = new byte[4096];
+                    int cnt;
+                    while ((cnt = is.read(buffer)) != -1) {
+                        if (output.length() < 4096) {
+                            output.append(new String(buffer, 0, cnt, "UTF-8"));
+                        }
+                    }
+                    return process.waitFor();
+                }
+            });
+            int status;
+            try {
+                status = exit.get(this.timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                process.destroy();
+                throw quarantine(file, uri, "extraction took longer than " + this.config.extractTimeout + " seconds");
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted during extraction");
+            } catch (ExecutionException e) {
+                process.destroy();
+                throw new IOException("Extraction failed: " + e.getCause(), e.getCause());
+            }
+            String message = output.toString().trim();
+            if (status == ExtractionWorker.EXIT_OUT_OF_MEMORY) {
+                throw quarantine(file, uri, "extraction ran out of memory");
+            } else if (status == ExtractionWorker.EXIT_FAILED) {
+                throw new IOException(message);
+            } else if (status != 0) {
+                throw quarantine(file, uri, "extraction JVM exited with status " + status + ": " + message);
+            }
+        } finally {
+            this.childSlots.release();
+        }
+    }
+
+    private static void acquire(final Semaphore slots) throws IOException {
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting to extract");
+        }
+    }
+
+    private QuarantinedException quarantine(final String file, final String uri, final String reason) {
+        this.quarantined.incrementAndGet();
+        String message = "Quarantined: " + reason;
+        this.errorReport.addError(new IndexerError(file, uri, message, QUARANTINED));
+        return new QuarantinedException(message);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Entry point of the child JVM that the ExtractionPool runs an extraction
+ * in. Arguments are the kind of extraction, the input and output files, and
+ * the PDF page limit and range size. The exit status tells the pool how the
+ * extraction ended; anything printed is passed back as the error message.
+ */
+final class ExtractionWorker {
+
+    static final String PDF = "pdf";
+    static final String CLEAN = "clean";
+
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_OUT_OF_MEMORY = 3;
+
+    private ExtractionWorker() {
+    }
+
+    public static void main(String[] args) {
+        try {
+            File in = new File(args[1]);
+            File out = new File(args[2]);
+            if (PDF.equals(args[0])) {
+                new PdfTextExtractor(Integer.parseInt(args[3]), Integer.parseInt(args[4])).extract(in, out);
+            } else if (CLEAN.equals(args[0])) {
+                Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(in), "UTF-8"));
+                Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(out), "UTF-8"));
+                try {
+                    HtmlStripper.strip(reader, writer);
+                } finally {
+                    IOUtils.closeQuietly(reader);
+                    writer.close();
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown extraction " + args[0]);
+            }
+        } catch (OutOfMemoryError e) {
+            System.exit(EXIT_OUT_OF_MEMORY);
+        } catch (Throwable e) {
+            System.out.println(e.toString());
+            System.exit(EXIT_FAILED);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Reference to UTF-8 text held in a file, such as the full or corrected text
+ * of a document. The text is not read when the document is parsed or
+ * written; the JSON batch streams it from the file when it is posted, so a
+ * text heavy document only costs the file name and size until then.
+ */
+final class FileText {
+
+    private final File file;
+    private final long length;
+
+    public FileText(final File file) {
+        this.file = file;
+        this.length = file.length();
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Size of the text file in bytes
+     */
+    public long length() {
+        return this.length;
+    }
+
+    /**
+     * Read the whole text into a String. This defeats the purpose of keeping
+     * the text in the file and is only meant for the odd consumer that needs
+     * the text itself rather than its JSON form.
+     */
+    public String load() throws IOException {
+        FileInputStream is = null;
+        try {
+            is = new FileInputStream(this.file);
+            return IOUtils.toString(is, "UTF-8");
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    public String toString() {
+        return this.file.toString();
+    }
+}
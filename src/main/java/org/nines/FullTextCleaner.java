@@ -32,7 +32,10 @@ import org.apache.log4j.Logger;
 /**
  * Cleaner for full text files. It will fix escape sequences, strip bad 
  * utf-8 characters and normalize whitespace. The result will overwrite 
- * the prior full text file. It should ony be run once 
+ * the prior full text file. It should ony be run once.
+ * <p>
+ * A cleaner is not thread safe. To clean in parallel, give each worker
+ * its own cleaner, sharing one CleanStats.
  * 
  * @author loufoster
  *
@@ -43,12 +46,20 @@ public class FullTextCleaner {
     private String archiveName;
     private Logger log;
     private String custom;
-    private long totalOrigChars = 0;
-    private long totalFilesChanged = 0;
-    private long totalCleanedChars = 0;
+    private final CleanStats stats;
+    private final TextNormalizer normalizer =
+        new TextNormalizer(TextNormalizer.UNESCAPE | TextNormalizer.STRIP_BAD_ESCAPES | TextNormalizer.WHITESPACE);
     
     public FullTextCleaner (String archiveName, ErrorReport errorReport, String custom) {
+        this(archiveName, errorReport, custom, new CleanStats());
+    }
+
+    /**
+     * Cleaner that adds to shared <code>stats</code>
+     */
+    FullTextCleaner (String archiveName, ErrorReport errorReport, String custom, CleanStats stats) {
         this.errorReport = errorReport;
+        this.stats = stats;
         this.archiveName = archiveName;
         this.log = Logger.getLogger(FullTextCleaner.class.getName());
         this.custom = custom;
@@ -79,12 +90,10 @@ public class FullTextCleaner {
         }  
         
         // stats!
-        long startChars = content.length();;
-        this.totalOrigChars += startChars;
+        long startChars = content.length();
         
         // clean it up
-        content = TextUtils.stripEscapeSequences(content, this.errorReport, txtFile);
-        content = TextUtils.normalizeWhitespace(content);
+        content = this.normalizer.normalize(content, TextUtils.errorListener(this.errorReport, txtFile, null));
         
         // Look for unknown character and warn
         int pos = content.indexOf("\ufffd");
@@ -109,10 +118,7 @@ public class FullTextCleaner {
         
         // final stats
         long endChars = content.length();
-        this.totalCleanedChars += endChars;
-        if ( endChars != startChars ) {
-            this.totalFilesChanged++;
-        }
+        this.stats.cleaned(startChars, endChars);
         this.log.info("  => Original length: "+startChars+", Cleaned length: "+endChars+", Delta:"+(startChars - endChars) );
         
         // write out the cleaned content over the existing content
@@ -129,14 +135,14 @@ public class FullTextCleaner {
     }
     
     public long getTotalFilesChanged() {
-        return this.totalFilesChanged;
+        return this.stats.getTotalFilesChanged();
     }
     
     public long getOriginalLength() {
-        return this.totalOrigChars;
+        return this.stats.getOriginalLength();
     }
     
     public long getCleanedLength() {
-        return this.totalCleanedChars;
+        return this.stats.getCleanedLength();
     }
 }
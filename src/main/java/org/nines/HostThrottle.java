@@ -0,0 +1,219 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how hard any one remote host is hit by a pool of workers: at most
+ * <code>maxPerHost</code> requests to a host at once, and consecutive
+ * requests to a host start at least <code>minIntervalMs</code> apart.
+ * Requests are handed over with {@link #submit(String, Runnable)} and wait
+ * in a queue for their host; one is passed to the pool only once its host
+ * has a free slot and its delay has passed, so a worker never sits idle
+ * waiting for a busy or slow host while others have requests to run.
+ */
+final class HostThrottle {
+
+    private final int maxPerHost;
+    private final long minIntervalMs;
+    private final Executor executor;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ConcurrentHashMap<String, Host> hosts = new ConcurrentHashMap<String, Host>();
+    private final Object idle = new Object();
+    private int outstanding = 0;
+
+    private static final class Host {
+        private final Queue<Runnable> waiting = new ArrayDeque<Runnable>();
+        private int running = 0;
+        private long nextStart = 0;
+        private boolean wakeScheduled = false;
+    }
+
+    public HostThrottle(final int maxPerHost, final long minIntervalMs, final Executor executor) {
+        this.maxPerHost = maxPerHost;
+        this.minIntervalMs = minIntervalMs;
+        this.executor = executor;
+        this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "host-throttle");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Queue <code>task</code>, a request to <code>host</code>, to run in the
+     * pool as soon as the host allows. This never waits.
+     */
+    public void submit(final String host, final Runnable task) {
+        synchronized (this.idle) {
+            this.outstanding++;
+        }
+        Host h = host(host);
+        synchronized (h) {
+            h.waiting.add(task);
+        }
+        dispatch(h);
+    }
+
+    /**
+     * Wait up to <code>timeout</code> for every submitted request to complete
+     * @return true if none are left
+     */
+    public boolean awaitIdle(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long end = System.currentTimeMillis() + unit.toMillis(timeout);
+        synchronized (this.idle) {
+            while (this.outstanding > 0) {
+                long left = end - System.currentTimeMillis();
+                if (left <= 0) {
+                    return false;
+                }
+                this.idle.wait(left);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of submitted requests that have not completed
+     */
+    public int getOutstandingCount() {
+        synchronized (this.idle) {
+            return this.outstanding;
+        }
+    }
+
+    /**
+     * Drop the requests still waiting for their host; those already in the pool are left to it
+     * @return The number dropped
+     */
+    public int cancel() {
+        int dropped = 0;
+        for (Host h : this.hosts.values()) {
+            synchronized (h) {
+                dropped += h.waiting.size();
+                h.waiting.clear();
+            }
+        }
+        done(dropped);
+        return dropped;
+    }
+
+    /**
+     * Stop the timer that releases delayed requests. Call once the throttle is idle or cancelled.
+     */
+    public void shutdown() {
+        this.timer.shutdownNow();
+    }
+
+    /**
+     * The host part of <code>url</code>, lower cased; the url itself if it cannot be parsed
+     */
+    public static String hostOf(final String url) {
+        try {
+            return new URL(url).getHost().toLowerCase();
+        } catch (MalformedURLException e) {
+            return url;
+        }
+    }
+
+    /**
+     * Pass as many of the requests waiting for <code>h</code> to the pool as it allows now,
+     * and set the timer to come back when its delay has passed
+     */
+    private void dispatch(final Host h) {
+        synchronized (h) {
+            while (h.running < this.maxPerHost && h.waiting.isEmpty() == false) {
+                long now = System.currentTimeMillis();
+                if (now < h.nextStart) {
+                    if (h.wakeScheduled == false) {
+                        try {
+                            this.timer.schedule(new Runnable() {
+                                public void run() {
+                                    synchronized (h) {
+                                        h.wakeScheduled = false;
+                                    }
+                                    dispatch(h);
+                                }
+                            }, h.nextStart - now, TimeUnit.MILLISECONDS);
+                            h.wakeScheduled = true;
+                        } catch (RejectedExecutionException e) {
+                            // shut down; what is still waiting is left for cancel
+                        }
+                    }
+                    return;
+                }
+                final Runnable task = h.waiting.poll();
+                h.running++;
+                h.nextStart = now + this.minIntervalMs;
+                try {
+                    this.executor.execute(new Runnable() {
+                        public void run() {
+                            try {
+                                task.run();
+                            } finally {
+                                synchronized (h) {
+                                    h.running--;
+                                }
+                                done(1);
+                                dispatch(h);
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // the pool is shutting down; the request is dropped
+                    h.running--;
+                    done(1);
+                }
+            }
+        }
+    }
+
+    private void done(final int count) {
+        if (count == 0) {
+            return;
+        }
+        synchronized (this.idle) {
+            this.outstanding -= count;
+            if (this.outstanding == 0) {
+                this.idle.notifyAll();
+            }
+        }
+    }
+
+    private Host host(final String host) {
+        Host h = this.hosts.get(host);
+        if (h == null) {
+            Host added = new Host();
+            h = this.hosts.putIfAbsent(host, added);
+            if (h == null) {
+                h = added;
+            }
+        }
+        return h;
+    }
+}
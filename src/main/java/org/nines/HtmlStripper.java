@@ -0,0 +1,283 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * Strips html-ish markup from raw text in a single pass from a Reader to a
+ * Writer. In order, as the characters stream through:
+ * <ul>
+ * <li>everything from <code>&lt;head</code> to <code>&lt;/head&gt;</code>,
+ * then from <code>&lt;script</code> to <code>&lt;/script&gt;</code>, is
+ * replaced by a newline</li>
+ * <li>every other tag is replaced by a newline, except the inline
+ * <code>i</code>, <code>b</code> and <code>em</code> tags, which are just
+ * dropped</li>
+ * <li>carriage returns are dropped and <code>&amp;nbsp;</code> and
+ * <code>&amp;#160;</code> become spaces</li>
+ * <li>a space directly before or after a newline is dropped</li>
+ * </ul>
+ * An element or tag that is never closed is left as it is, along with
+ * everything after it. Only an open element or tag is held in memory.
+ */
+final class HtmlStripper {
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private HtmlStripper() {
+    }
+
+    /**
+     * Strip the markup from <code>text</code>
+     */
+    public static String strip(final String text) {
+        StringWriter out = new StringWriter(text.length());
+        try {
+            strip(new StringReader(text), out);
+        } catch (IOException e) {
+            // strings cannot fail
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Strip the markup from the text read from <code>in</code>, writing the
+     * result to <code>out</code>. Neither is closed.
+     */
+    public static void strip(final Reader in, final Writer out) throws IOException {
+        Stage stages = new ElementRemover("head", new ElementRemover("script", new TagRemover(new TextFixer(out))));
+        char[] buffer = new char[CHUNK_SIZE];
+        int cnt;
+        while ((cnt = in.read(buffer)) != -1) {
+            for (int i = 0; i < cnt; i++) {
+                stages.put(buffer[i]);
+            }
+        }
+        stages.end();
+    }
+
+    /**
+     * One step of the stripping; passes its output on to the next
+     */
+    private abstract static class Stage {
+        abstract void put(char c) throws IOException;
+
+        abstract void end() throws IOException;
+    }
+
+    /**
+     * Replaces each &lt;name ... &lt;/name&gt; element by a newline. The
+     * patterns only hold '&lt;' as their first char, so a failed match can
+     * only restart at the char that broke it.
+     */
+    private static final class ElementRemover extends Stage {
+        private final char[] open;
+        private final char[] close;
+        private final Stage next;
+        private int matched = 0;
+        private boolean inElement = false;
+        private final StringBuilder held = new StringBuilder();
+
+        ElementRemover(final String name, final Stage next) {
+            this.open = ("<" + name).toCharArray();
+            this.close = ("</" + name + ">").toCharArray();
+            this.next = next;
+        }
+
+        void put(final char c) throws IOException {
+            if (this.inElement) {
+                this.held.append(c);
+                if (c == this.close[this.matched]) {
+                    this.matched++;
+                    if (this.matched == this.close.length) {
+                        this.next.put('\n');
+                        this.held.setLength(0);
+                        this.inElement = false;
+                        this.matched = 0;
+                    }
+                } else {
+                    this.matched = (c == '<' ? 1 : 0);
+                }
+                return;
+            }
+            if (c == this.open[this.matched]) {
+                this.matched++;
+                if (this.matched == this.open.length) {
+                    this.held.append(this.open);
+                    this.inElement = true;
+                    this.matched = 0;
+                }
+                return;
+            }
+            for (int i = 0; i < this.matched; i++) {
+                this.next.put(this.open[i]);
+            }
+            if (c == '<') {
+                this.matched = 1;
+            } else {
+                this.matched = 0;
+                this.next.put(c);
+            }
+        }
+
+        void end() throws IOException {
+            if (this.inElement) {
+                for (int i = 0; i < this.held.length(); i++) {
+                    this.next.put(this.held.charAt(i));
+                }
+            } else {
+                for (int i = 0; i < this.matched; i++) {
+                    this.next.put(this.open[i]);
+                }
+            }
+            this.next.end();
+        }
+    }
+
+    /**
+     * Replaces each &lt;...&gt; tag by a newline, or by nothing for the inline tags
+     */
+    private static final class TagRemover extends Stage {
+        private final Stage next;
+        private boolean inTag = false;
+        private final StringBuilder tag = new StringBuilder();
+
+        TagRemover(final Stage next) {
+            this.next = next;
+        }
+
+        void put(final char c) throws IOException {
+            if (this.inTag == false) {
+                if (c == '<') {
+                    this.inTag = true;
+                    this.tag.setLength(0);
+                } else {
+                    this.next.put(c);
+                }
+            } else if (c == '>') {
+                this.inTag = false;
+                if (isInline() == false) {
+                    this.next.put('\n');
+                }
+            } else {
+                this.tag.append(c);
+            }
+        }
+
+        private boolean isInline() {
+            int len = this.tag.length();
+            int start = (len > 0 && this.tag.charAt(0) == '/' ? 1 : 0);
+            if (len - start == 1) {
+                char c = this.tag.charAt(start);
+                return c == 'i' || c == 'b';
+            }
+            return len - start == 2 && this.tag.charAt(start) == 'e' && this.tag.charAt(start + 1) == 'm';
+        }
+
+        void end() throws IOException {
+            if (this.inTag) {
+                this.next.put('<');
+                for (int i = 0; i < this.tag.length(); i++) {
+                    this.next.put(this.tag.charAt(i));
+                }
+            }
+            this.next.end();
+        }
+    }
+
+    /**
+     * Drops carriage returns, turns non breaking space entities into spaces
+     * and drops a space next to a newline, writing the result out
+     */
+    private static final class TextFixer extends Stage {
+        private static final char[] NBSP = "&nbsp;".toCharArray();
+        private static final char[] NBSP_NUMERIC = "&#160;".toCharArray();
+
+        private final Writer out;
+
+        // chars of a possible entity; both start with '&' and differ at the second char
+        private char[] entity = null;
+        private int matched = 0;
+
+        // a space that is dropped if a newline follows
+        private boolean pendingSpace = false;
+        private char last = 0;
+
+        TextFixer(final Writer out) {
+            this.out = out;
+        }
+
+        void put(final char c) throws IOException {
+            if (c == '\r') {
+                return;
+            }
+            if (this.matched == 1) {
+                this.entity = (c == NBSP[1] ? NBSP : (c == NBSP_NUMERIC[1] ? NBSP_NUMERIC : null));
+            }
+            if (this.matched > 0 && this.entity != null && c == this.entity[this.matched]) {
+                this.matched++;
+                if (this.matched == this.entity.length) {
+                    this.matched = 0;
+                    emit(' ');
+                }
+                return;
+            }
+            flushEntity();
+            if (c == '&') {
+                this.matched = 1;
+            } else {
+                emit(c);
+            }
+        }
+
+        void end() throws IOException {
+            flushEntity();
+            if (this.pendingSpace) {
+                this.out.write(' ');
+            }
+        }
+
+        private void flushEntity() throws IOException {
+            for (int i = 0; i < this.matched; i++) {
+                emit(i == 0 ? '&' : this.entity[i]);
+            }
+            this.matched = 0;
+        }
+
+        private void emit(final char c) throws IOException {
+            if (this.pendingSpace) {
+                if (c != '\n') {
+                    this.out.write(' ');
+                }
+                this.pendingSpace = false;
+            }
+            if (c == ' ') {
+                if (this.last != '\n') {
+                    this.pendingSpace = true;
+                }
+            } else {
+                this.out.write(c);
+            }
+            this.last = c;
+        }
+    }
+}
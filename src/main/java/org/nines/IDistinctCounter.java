@@ -0,0 +1,10 @@
+package org.nines;
+
+/**
+ * Counts the distinct values it has been given. Implementations must be safe
+ * to call from several threads.
+ */
+public interface IDistinctCounter {
+    void add(String value);
+    long count();
+}
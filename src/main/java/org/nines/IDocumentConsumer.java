@@ -0,0 +1,9 @@
+package org.nines;
+
+/**
+ * Receives each document from the statement handler as soon as it is
+ * complete; once the next document starts or the file ends.
+ */
+public interface IDocumentConsumer {
+    void handleDocument(String uri, SolrDocument document);
+}
@@ -0,0 +1,14 @@
+package org.nines;
+
+/**
+ * Receives the problems found by the TextNormalizer while it cleans text
+ */
+public interface ITextErrorListener {
+    void badEscape(String sequence);
+    /**
+     * An unknown char at <code>position</code> was removed; the text around it is
+     * <code>text</code> from <code>start</code> to <code>end</code>, which is only
+     * valid during the call
+     */
+    void unknownCharacter(int position, CharSequence text, int start, int end);
+}
@@ -0,0 +1,8 @@
+package org.nines;
+
+/**
+ * Receives each message produced while a document is validated
+ */
+public interface IValidationSink {
+    void message(String message);
+}
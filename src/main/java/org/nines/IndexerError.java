@@ -6,14 +6,27 @@
 package org.nines;
 
 class IndexerError {
+  // longest category derived from a message
+  private static final int MAX_CATEGORY = 60;
+
   private String filename,
       uri,
-      errMsg;
+      errMsg,
+      category;
 
   public IndexerError(String filename, String uri, String errMsg) {
+    this(filename, uri, errMsg, null);
+  }
+
+  /**
+   * Create an error in a given category. Without a category, one is
+   * derived from the message when it is needed.
+   */
+  public IndexerError(String filename, String uri, String errMsg, String category) {
     this.filename = filename;
     this.uri = uri;
     this.errMsg = errMsg;
+    this.category = category;
   }
 
   public String getFilename() {
@@ -24,6 +37,52 @@ class IndexerError {
     return uri;
   }
 
+  public String getMessage() {
+    return errMsg;
+  }
+
+  public String getCategory() {
+    if (category == null) {
+      category = categoryOf(errMsg);
+    }
+    return category;
+  }
+
+  /**
+   * The fixed part of an error message: the text before any detail (a ': ',
+   * '[', new line, path or URL), with numbers replaced by '#'. A colon inside
+   * a word, as in a field name like dc:title, is kept.
+   */
+  static String categoryOf(String msg) {
+    if (msg == null) {
+      return "";
+    }
+    StringBuilder category = new StringBuilder();
+    boolean inNumber = false;
+    for (int i = 0; i < msg.length() && category.length() < MAX_CATEGORY; i++) {
+      char c = msg.charAt(i);
+      if (c == ':' && (i + 1 == msg.length() || Character.isWhitespace(msg.charAt(i + 1)))) {
+        break;
+      }
+      if (c == '[' || c == '\n' || c == '\r') {
+        break;
+      }
+      if (c == ' ' && (msg.startsWith(" /", i) || msg.startsWith(" http", i))) {
+        break;
+      }
+      if (Character.isDigit(c)) {
+        if (inNumber == false) {
+          category.append('#');
+        }
+        inNumber = true;
+      } else {
+        category.append(c);
+        inNumber = false;
+      }
+    }
+    return category.toString().trim();
+  }
+
   public String toString() {
     return filename + "\t" + uri + "\t" + errMsg;
   }
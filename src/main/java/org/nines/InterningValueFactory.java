@@ -0,0 +1,147 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.ValueFactoryImpl;
+
+/**
+ * Sesame value factory that hands out shared instances for the values that
+ * repeat across every document: the URIs of the schema namespaces (all of
+ * the predicates) and short plain literals that keep coming back. The
+ * genre, discipline and type vocabularies and the true/false flags are
+ * shared from the start. Any other short literal, such as an archive or
+ * federation name, is only shared once it has been seen several times, so
+ * the one-off titles and dates at the start of a run cannot fill the table.
+ * Everything else is created as usual. Values are immutable, so one
+ * factory is shared by all parser threads.
+ */
+final class InterningValueFactory extends ValueFactoryImpl {
+
+    // literals longer than this are not worth looking up
+    private static final int MAX_LITERAL_LENGTH = 64;
+
+    // upper bound on the number of distinct literals held; once reached,
+    // only literals already shared are shared
+    private static final int MAX_LITERALS = 8192;
+
+    // times a literal must be seen before it is shared
+    private static final int ADMIT_HITS = 4;
+
+    // distinct literals counted towards admission; the counts are dropped
+    // once there are this many, so one-off values never pile up
+    private static final int MAX_CANDIDATES = 16384;
+
+    private static final String[] NAMESPACES = new String[] {
+        RdfSchema.COLLEX, RdfSchema.DC, RdfSchema.DCTERMS, RdfSchema.RDF, RdfSchema.RDFS,
+        RdfSchema.RELATORS, RdfSchema.NINES
+    };
+
+    private static final InterningValueFactory INSTANCE = new InterningValueFactory();
+
+    private final ConcurrentHashMap<String, URI> uris = new ConcurrentHashMap<String, URI>();
+    private final ConcurrentHashMap<String, Literal> literals = new ConcurrentHashMap<String, Literal>();
+    private final ConcurrentHashMap<String, AtomicInteger> candidates = new ConcurrentHashMap<String, AtomicInteger>();
+
+    static InterningValueFactory getShared() {
+        return INSTANCE;
+    }
+
+    private InterningValueFactory() {
+        for (String value : ValidationUtility.GENRE_LIST) {
+            internLiteral(value);
+        }
+        for (String value : ValidationUtility.DISCIPLINE_LIST) {
+            internLiteral(value);
+        }
+        for (String value : ValidationUtility.TYPE_LIST) {
+            internLiteral(value);
+        }
+        internLiteral("true");
+        internLiteral("false");
+    }
+
+    public URI createURI(String uri) {
+        URI value = this.uris.get(uri);
+        if (value != null) {
+            return value;
+        }
+        value = super.createURI(uri);
+        if (inSchemaNamespace(uri)) {
+            URI prior = this.uris.putIfAbsent(uri, value);
+            if (prior != null) {
+                return prior;
+            }
+        }
+        return value;
+    }
+
+    public Literal createLiteral(String label) {
+        if (label.length() > MAX_LITERAL_LENGTH) {
+            return super.createLiteral(label);
+        }
+        Literal value = this.literals.get(label);
+        if (value != null) {
+            return value;
+        }
+        if (this.literals.size() >= MAX_LITERALS || admit(label) == false) {
+            return super.createLiteral(label);
+        }
+        return internLiteral(label);
+    }
+
+    /**
+     * Count a sighting of a literal that is not shared yet
+     * @return true once it has been seen often enough to share
+     */
+    private boolean admit(String label) {
+        AtomicInteger hits = this.candidates.get(label);
+        if (hits == null) {
+            if (this.candidates.size() >= MAX_CANDIDATES) {
+                this.candidates.clear();
+            }
+            AtomicInteger added = new AtomicInteger();
+            hits = this.candidates.putIfAbsent(label, added);
+            if (hits == null) {
+                hits = added;
+            }
+        }
+        if (hits.incrementAndGet() >= ADMIT_HITS) {
+            this.candidates.remove(label);
+            return true;
+        }
+        return false;
+    }
+
+    private Literal internLiteral(String label) {
+        Literal value = super.createLiteral(label);
+        Literal prior = this.literals.putIfAbsent(label, value);
+        return (prior == null ? value : prior);
+    }
+
+    private static boolean inSchemaNamespace(String uri) {
+        for (String ns : NAMESPACES) {
+            if (uri.startsWith(ns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,371 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.URI;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.methods.HeadMethod;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Checks the links collected while indexing. Each distinct URL in the link
+ * data file is requested once with a HEAD, falling back to a GET for servers
+ * that refuse HEAD. Requests run on a pool of workers; a HostThrottle queues
+ * them per host and keeps the load on any single host down. Results are kept in a cache file, and a
+ * later run only rechecks URLs whose result is older than the TTL. Broken
+ * links are written to a report, one line per document and link.
+ */
+final class LinkChecker {
+
+    private static final Logger log = Logger.getLogger(LinkChecker.class.getName());
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int TIMEOUT_MS = 30 * 1000;
+
+    private final ErrorReport errorReport;
+    private final int threads;
+    private final long ttlMillis;
+    private final int perHost;
+    private final long hostDelay;
+    private final HttpClient httpClient;
+
+    private final ConcurrentHashMap<String, Result> results = new ConcurrentHashMap<String, Result>();
+    private final AtomicInteger checked = new AtomicInteger();
+    private int cached = 0;
+    private int broken = 0;
+    private int notChecked = 0;
+
+    /**
+     * Outcome of checking one URL. Status is the HTTP status, or -1 when no
+     * response was received. A URL the check never got to, because it was
+     * interrupted, has a checkedAt of 0.
+     */
+    static final class Result {
+        final int status;
+        final long checkedAt;
+        final String message;
+
+        Result(int status, long checkedAt, String message) {
+            this.status = status;
+            this.checkedAt = checkedAt;
+            this.message = message;
+        }
+
+        boolean isChecked() {
+            return this.checkedAt > 0;
+        }
+
+        boolean isBroken() {
+            return isChecked() && (this.status < 200 || this.status >= 400);
+        }
+    }
+
+    public LinkChecker(final RDFIndexerConfig config, final ErrorReport errorReport) {
+        this.errorReport = errorReport;
+        this.threads = config.linkCheckThreads;
+        this.ttlMillis = TimeUnit.DAYS.toMillis(config.linkCheckTtlDays);
+        this.perHost = config.linkCheckPerHost;
+        this.hostDelay = config.linkCheckHostDelay;
+
+        MultiThreadedHttpConnectionManager mgr = new MultiThreadedHttpConnectionManager();
+        mgr.getParams().setDefaultMaxConnectionsPerHost(config.linkCheckPerHost);
+        mgr.getParams().setMaxTotalConnections(this.threads);
+        mgr.getParams().setConnectionTimeout(TIMEOUT_MS);
+        mgr.getParams().setSoTimeout(TIMEOUT_MS);
+        this.httpClient = new HttpClient(mgr);
+        // HEAD and GET are safe to resend when a pooled connection turns out to be closed
+        this.httpClient.getParams().setParameter(HttpMethodParams.RETRY_HANDLER,
+            new DefaultHttpMethodRetryHandler(1, true));
+    }
+
+    /**
+     * Check the links in <code>linkData</code>, using and updating the results
+     * in <code>cacheFile</code>, and write the broken ones to <code>reportFile</code>
+     */
+    public void check(final File linkData, final File cacheFile, final File reportFile) throws IOException {
+        long now = System.currentTimeMillis();
+        Map<String, Result> cache = readCache(cacheFile);
+
+        // distinct URLs that need a fresh check, grouped by host
+        Map<String, List<String>> byHost = new LinkedHashMap<String, List<String>>();
+        int total = 0;
+        BufferedReader in = openReader(linkData);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String url = urlOf(line);
+                if (url == null || this.results.containsKey(url)) {
+                    continue;
+                }
+                total++;
+                Result prior = cache.get(url);
+                if (prior != null && now - prior.checkedAt < this.ttlMillis) {
+                    this.results.put(url, prior);
+                    this.cached++;
+                    continue;
+                }
+                this.results.put(url, new Result(-1, 0, "not checked"));
+                String host = HostThrottle.hostOf(url);
+                List<String> urls = byHost.get(host);
+                if (urls == null) {
+                    urls = new ArrayList<String>();
+                    byHost.put(host, urls);
+                }
+                urls.add(url);
+            }
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        log.info("Checking " + (total - this.cached) + " of " + total + " distinct links on " + byHost.size()
+            + " hosts; " + this.cached + " recent results reused");
+
+        checkAll(interleave(byHost));
+        writeCache(cacheFile, cache);
+        writeReport(linkData, reportFile);
+        for (Result r : this.results.values()) {
+            if (r.isChecked() == false) {
+                this.notChecked++;
+            }
+        }
+        log.info("Link check complete: " + this.checked.get() + " checked, " + this.cached + " cached, "
+            + this.notChecked + " not checked, " + this.broken + " broken links");
+    }
+
+    public int getCheckedCount() {
+        return this.checked.get();
+    }
+
+    public int getBrokenCount() {
+        return this.broken;
+    }
+
+    /**
+     * Number of distinct links left unchecked because the check was interrupted
+     */
+    public int getNotCheckedCount() {
+        return this.notChecked;
+    }
+
+    /**
+     * Order the URLs one host at a time, round robin, so the workers
+     * are spread over as many hosts as possible
+     */
+    private static List<String> interleave(final Map<String, List<String>> byHost) {
+        int total = 0;
+        for (List<String> urls : byHost.values()) {
+            total += urls.size();
+        }
+        List<String> order = new ArrayList<String>(total);
+        for (int i = 0; order.size() < total; i++) {
+            for (List<String> urls : byHost.values()) {
+                if (i < urls.size()) {
+                    order.add(urls.get(i));
+                }
+            }
+        }
+        return order;
+    }
+
+    private void checkAll(final List<String> urls) {
+        if (urls.isEmpty()) {
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        HostThrottle throttle = new HostThrottle(this.perHost, this.hostDelay, pool);
+        for (final String url : urls) {
+            throttle.submit(HostThrottle.hostOf(url), new Runnable() {
+                public void run() {
+                    results.put(url, probe(url));
+                    int cnt = checked.incrementAndGet();
+                    if (cnt % 1000 == 0) {
+                        log.info("Checked " + cnt + " links");
+                    }
+                }
+            });
+        }
+        try {
+            while (throttle.awaitIdle(1, TimeUnit.MINUTES) == false) {
+                log.info("Checked " + this.checked.get() + " of " + urls.size() + " links");
+            }
+        } catch (InterruptedException e) {
+            throttle.cancel();
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            throttle.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Request <code>url</code> with a HEAD, then with a GET if the server
+     * answered the HEAD with an error; some servers do not support HEAD
+     */
+    Result probe(final String url) {
+        Result result = request(new HeadMethod(), url);
+        if (result.status >= 400) {
+            result = request(new GetMethod(), url);
+        }
+        return result;
+    }
+
+    private Result request(final HttpMethodBase method, final String url) {
+        try {
+            method.setURI(new URI(url, false));
+            method.setFollowRedirects(true);
+            int status = this.httpClient.executeMethod(method);
+            return new Result(status, System.currentTimeMillis(), method.getStatusText());
+        } catch (Exception e) {
+            return new Result(-1, System.currentTimeMillis(), e.toString());
+        } finally {
+            if (method instanceof GetMethod) {
+                // the body is not needed; drop the connection rather than read it
+                method.abort();
+            }
+            method.releaseConnection();
+        }
+    }
+
+    private Map<String, Result> readCache(final File cacheFile) {
+        Map<String, Result> cache = new HashMap<String, Result>();
+        if (cacheFile.exists() == false) {
+            return cache;
+        }
+        BufferedReader in = null;
+        try {
+            in = openReader(cacheFile);
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length == 4) {
+                    cache.put(parts[0], new Result(Integer.parseInt(parts[1]), Long.parseLong(parts[2]), parts[3]));
+                }
+            }
+        } catch (Exception e) {
+            this.errorReport.addError(new IndexerError(cacheFile.toString(), "", "Unable to read link check cache: "
+                + e.toString()));
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        return cache;
+    }
+
+    /**
+     * Write the cache back, sorted by URL, with the new results merged in.
+     * Old entries for links that are no longer present are kept until they expire.
+     */
+    private void writeCache(final File cacheFile, final Map<String, Result> cache) throws IOException {
+        long now = System.currentTimeMillis();
+        TreeMap<String, Result> merged = new TreeMap<String, Result>();
+        for (Map.Entry<String, Result> entry : cache.entrySet()) {
+            if (now - entry.getValue().checkedAt < this.ttlMillis) {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Result> entry : this.results.entrySet()) {
+            if (entry.getValue().isChecked()) {
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        File tmp = new File(cacheFile.getPath() + ".tmp");
+        Writer out = openWriter(tmp);
+        try {
+            for (Map.Entry<String, Result> entry : merged.entrySet()) {
+                Result r = entry.getValue();
+                out.write(entry.getKey() + "\t" + r.status + "\t" + r.checkedAt + "\t" + clean(r.message) + "\n");
+            }
+        } finally {
+            out.close();
+        }
+        cacheFile.delete();
+        if (tmp.renameTo(cacheFile) == false) {
+            throw new IOException("Unable to replace " + cacheFile);
+        }
+    }
+
+    /**
+     * One line per broken link: document URI, file, URL, status and message.
+     * The link data is sorted by document, so is the report.
+     */
+    private void writeReport(final File linkData, final File reportFile) throws IOException {
+        BufferedReader in = openReader(linkData);
+        Writer out = openWriter(reportFile);
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String url = urlOf(line);
+                Result r = (url == null ? null : this.results.get(url));
+                if (r != null && r.isBroken()) {
+                    out.write(line + "\t" + r.status + "\t" + clean(r.message) + "\n");
+                    this.broken++;
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(in);
+            out.close();
+        }
+    }
+
+    /**
+     * The URL of a link data line (document URI, file, URL)
+     */
+    private static String urlOf(final String line) {
+        int pos = line.lastIndexOf('\t');
+        if (pos == -1 || pos == line.length() - 1) {
+            return null;
+        }
+        return line.substring(pos + 1);
+    }
+
+    private static String clean(final String message) {
+        return (message == null ? "" : message.replace('\t', ' ').replace('\n', ' ').replace('\r', ' '));
+    }
+
+    private static BufferedReader openReader(final File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+    }
+
+    private static Writer openWriter(final File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF8));
+    }
+}
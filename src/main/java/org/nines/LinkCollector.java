@@ -1,13 +1,65 @@
 package org.nines;
 
-import java.io.FileWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Collects the external links found in documents. Adding a link only queues
+ * it; a background thread gathers the links into sorted runs, spilling each
+ * run to a temporary file once it reaches a fixed size. When the collector
+ * is closed the runs are merged into a link data file that holds each link
+ * once, in sorted order. The file is rebuilt on every run rather than
+ * appended to; the new data is written next to it and only replaces it once
+ * complete. If a run cannot be spilled, collecting stops and the old file
+ * is left as it was.
+ */
 public class LinkCollector
 {
-    private Writer dataWriter;
+    private static final Logger log = Logger.getLogger(LinkCollector.class.getName());
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // chars of links held in memory before a sorted run is spilled to disk
+    private static final long DEFAULT_RUN_CHARS = 8L * 1024 * 1024;
+
+    // most runs merged at once
+    private static final int MERGE_FAN_IN = 64;
+
+    // how long the collector thread waits for more links before looking again
+    private static final long COLLECT_INTERVAL_MS = 250;
+
+    private PrintWriter console = null;
+
+    private File output;
+    private File tmpOutput;
+    private long maxRunChars;
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<String>();
+    private final ArrayList<String> run = new ArrayList<String>();
+    private long runChars = 0;
+    private final List<File> runFiles = new ArrayList<File>();
+    private Thread collector;
+    private volatile boolean closed = false;
+
+    // set by the collector thread when a run could not be spilled; links are dropped from then on
+    private boolean failed = false;
 
     /**
      * Testing LinkCollector that writes to System.out instead
@@ -15,53 +67,306 @@ public class LinkCollector
      */
     public LinkCollector()
     {
-        dataWriter = new PrintWriter(System.out, true);
+        console = new PrintWriter(System.out, true);
     }
-    
+
     /**
      * Standard LinkCollector that writes data out to a link data
-     * file with the prefix specified. If the specified prefix does not
-     * exist, data will be streamed to System.out
+     * file with the prefix specified. If the link data file cannot be
+     * created, data will be streamed to System.out
      * @param prefix
-     * @throws IOException Throws of the prefix does not exist
      */
     public LinkCollector(String prefix)
+    {
+        this(new File(prefix + "_link_data.txt"), DEFAULT_RUN_CHARS);
+    }
+
+    /**
+     * Collector that writes the sorted links to <code>output</code>, holding
+     * at most <code>maxRunChars</code> chars of links in memory
+     */
+    LinkCollector(File output, long maxRunChars)
     {
         try
         {
-            dataWriter = new FileWriter(prefix + "_link_data.txt", true);
+            // fail early, as the old collector did, if the link data cannot be written
+            this.tmpOutput = File.createTempFile("links", ".tmp", output.getAbsoluteFile().getParentFile());
         }
         catch (IOException e)
         {
-            dataWriter = new PrintWriter(System.out, true);
+            console = new PrintWriter(System.out, true);
+            return;
         }
+        this.output = output;
+        this.maxRunChars = maxRunChars;
+        this.collector = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                collectLoop();
+            }
+        }, "link-collector");
+        this.collector.setDaemon(true);
+        this.collector.start();
     }
 
     public void addLink(String documentURI, String filename, String url)
     {
+        String line = documentURI + "\t" + filename + "\t" + url;
+        if (console != null)
+        {
+            console.println(line);
+            return;
+        }
+        pending.offer(line);
+    }
+
+    /**
+     * Merge everything that was collected into the link data file
+     */
+    public void close()
+    {
+        if (console != null)
+        {
+            console.flush();
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(collector);
+        try
+        {
+            collector.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
         try
         {
-            dataWriter.write(documentURI + "\t" + filename + "\t" + url + "\n");
-            dataWriter.flush();
+            if (failed)
+            {
+                log.error("Link data in " + output + " was left as it was");
+                return;
+            }
+            if (runFiles.isEmpty())
+            {
+                Collections.sort(run);
+                writeUnique(run, tmpOutput);
+            }
+            else
+            {
+                if (run.isEmpty() == false)
+                {
+                    spill();
+                }
+                mergeRuns(tmpOutput);
+            }
+            output.delete();
+            if (tmpOutput.renameTo(output) == false)
+            {
+                throw new IOException("Unable to replace " + output);
+            }
         }
         catch (IOException e)
         {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+            log.error("Unable to write link data to " + output + ": " + e.toString());
+        }
+        finally
+        {
+            for (File runFile : runFiles)
+            {
+                runFile.delete();
+            }
+            tmpOutput.delete();
         }
     }
 
-    public void close()
+    private void collectLoop()
+    {
+        while (true)
+        {
+            boolean last = closed;
+            int cnt = 0;
+            String line;
+            while ((line = pending.poll()) != null)
+            {
+                if (failed)
+                {
+                    continue;
+                }
+                run.add(line);
+                runChars += line.length();
+                cnt++;
+                if (runChars >= maxRunChars)
+                {
+                    try
+                    {
+                        spill();
+                    }
+                    catch (IOException e)
+                    {
+                        log.error("Unable to spill link data, no more links will be collected: " + e.toString());
+                        failed = true;
+                        run.clear();
+                        runChars = 0;
+                    }
+                }
+            }
+            if (last)
+            {
+                return;
+            }
+            if (cnt == 0)
+            {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(COLLECT_INTERVAL_MS));
+            }
+        }
+    }
+
+    /**
+     * Sort the links in memory and write them to a new run file
+     */
+    private void spill() throws IOException
+    {
+        Collections.sort(run);
+        File runFile = File.createTempFile("links", ".run", output.getAbsoluteFile().getParentFile());
+        runFiles.add(runFile);
+        writeUnique(run, runFile);
+        run.clear();
+        runChars = 0;
+    }
+
+    /**
+     * Merge the run files, at most MERGE_FAN_IN at a time, into <code>target</code>
+     */
+    private void mergeRuns(File target) throws IOException
+    {
+        List<File> runs = new ArrayList<File>(runFiles);
+        while (runs.size() > MERGE_FAN_IN)
+        {
+            List<File> merged = new ArrayList<File>();
+            for (int i = 0; i < runs.size(); i += MERGE_FAN_IN)
+            {
+                List<File> group = runs.subList(i, Math.min(runs.size(), i + MERGE_FAN_IN));
+                if (group.size() == 1)
+                {
+                    merged.add(group.get(0));
+                    continue;
+                }
+                File runFile = File.createTempFile("links", ".run", output.getAbsoluteFile().getParentFile());
+                runFiles.add(runFile);
+                merge(group, runFile);
+                merged.add(runFile);
+            }
+            runs = merged;
+        }
+        merge(runs, target);
+    }
+
+    private void merge(List<File> runs, File target) throws IOException
     {
+        PriorityQueue<RunReader> heads = new PriorityQueue<RunReader>();
+        Writer out = null;
         try
         {
-            dataWriter.close();
+            for (File runFile : runs)
+            {
+                RunReader reader = new RunReader(runFile);
+                if (reader.advance())
+                {
+                    heads.add(reader);
+                }
+                else
+                {
+                    reader.close();
+                }
+            }
+            out = openWriter(target);
+            String last = null;
+            while (heads.isEmpty() == false)
+            {
+                RunReader reader = heads.poll();
+                if (reader.line.equals(last) == false)
+                {
+                    out.write(reader.line);
+                    out.write('\n');
+                    last = reader.line;
+                }
+                if (reader.advance())
+                {
+                    heads.add(reader);
+                }
+                else
+                {
+                    reader.close();
+                }
+            }
         }
-        catch (IOException e)
+        finally
+        {
+            for (RunReader reader : heads)
+            {
+                reader.close();
+            }
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    private static void writeUnique(List<String> lines, File target) throws IOException
+    {
+        Writer out = openWriter(target);
+        try
+        {
+            String last = null;
+            for (String line : lines)
+            {
+                if (line.equals(last) == false)
+                {
+                    out.write(line);
+                    out.write('\n');
+                    last = line;
+                }
+            }
+        }
+        finally
         {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+            out.close();
         }
     }
 
+    private static Writer openWriter(File target) throws IOException
+    {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(target), UTF8), 64 * 1024);
+    }
+
+    /**
+     * Current line of a sorted run file
+     */
+    private static final class RunReader implements Comparable<RunReader>
+    {
+        private final BufferedReader reader;
+        private String line;
+
+        RunReader(File runFile) throws IOException
+        {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(runFile), UTF8), 64 * 1024);
+        }
+
+        boolean advance() throws IOException
+        {
+            line = reader.readLine();
+            return line != null;
+        }
+
+        void close()
+        {
+            IOUtils.closeQuietly(reader);
+        }
+
+        public int compareTo(RunReader other)
+        {
+            return line.compareTo(other.line);
+        }
+    }
 }
@@ -27,14 +27,30 @@ public class Main {
         final String pageSize = "pageSize";     // compare: max results per solr page
         final String maxSize = "maxSize";       // indexing: the max size of data to send to solr
         final String custom = "custom";         // flag to indicate customized clean
+        final String force = "force";           // clean_raw: clean unchanged raw texts too
         final String encoding = "encoding";     // set char set of raw source text for clea
+        final String yearRanges = "yearRanges"; // indexing: post date ranges rather than every year
+        final String jsonErrors = "jsonErrors"; // write the error report as JSON lines
+        final String exactCounts = "exactCounts"; // exact distinct counts in the error summary
+        final String errorExamples = "errorExamples"; // max errors of each category written to the report
+        final String linkThreads = "linkThreads"; // linkcheck: concurrent requests
+        final String linkTtl = "linkTtl";       // linkcheck: days to reuse a result
+        final String rules = "rules";           // indexing: validation rules file
+        final String lintThreads = "lintThreads"; // lint: files parsed at once
+        final String spiderThreads = "spiderThreads"; // spider: concurrent fetches
+        final String pdfMaxBytes = "pdfMaxBytes"; // spider: largest PDF downloaded
+        final String pdfMaxPages = "pdfMaxPages"; // spider: most PDF pages extracted
+        final String extractTimeout = "extractTimeout"; // spider/clean_raw: seconds per extraction
+        final String childJvm = "childJvm";     // spider/clean_raw: extract in child JVMs
+        final String spiderClean = "spiderClean"; // spider: clean texts as they are fetched
+        final String cleanThreads = "cleanThreads"; // clean_raw/clean_full: files cleaned at once
 
         // define the list of command line options
         Options options = new Options();
         options.addOption( source, true, "Path to the target RDF archive directory" );
         options.addOption( archive, true, "The name of of the archive");
         options.getOption( archive).setRequired(true);
-        options.addOption( mode, true, "Mode of operation [TEST, SPIDER, CLEAN_RAW, CLEAN_FULL, INDEX, RESOLVE, COMPARE]" );
+        options.addOption( mode, true, "Mode of operation [TEST, SPIDER, CLEAN_RAW, CLEAN_FULL, INDEX, RESOLVE, COMPARE, LINKCHECK, LINT]" );
         options.getOption( mode).setRequired(true);
 
         // include/exclude field group
@@ -52,6 +68,28 @@ public class Main {
 
         options.addOption(encoding, true, "Encoding of source raw text file for clean");
         options.addOption(custom, true, "Customized clean class");
+        options.addOption(force, false, "Clean every raw text, even those unchanged since they were last cleaned");
+        options.addOption(cleanThreads, true,
+                "Number of files cleaned at once in CLEAN_RAW and CLEAN_FULL mode. Default = number of processors");
+        options.addOption(yearRanges, false,
+                "Post dates as year_range values; the year field only holds the first and last year of each range");
+        options.addOption(jsonErrors, false, "Write the error report as one JSON object per line");
+        options.addOption(exactCounts, false,
+                "Count the distinct files and objects with errors exactly instead of estimating them");
+        options.addOption(errorExamples, true,
+                "Max errors of each kind written to the error report, the rest are only counted. 0 = all. Default = 100");
+        options.addOption(linkThreads, true, "Number of links checked at once. Default = 16");
+        options.addOption(linkTtl, true, "Days a link check result is reused before the link is checked again. Default = 7");
+        options.addOption(spiderThreads, true, "Number of texts fetched at once in SPIDER mode. Default = 8");
+        options.addOption(pdfMaxBytes, true, "Largest PDF downloaded in SPIDER mode, in bytes. 0 = no limit. Default = 256MB");
+        options.addOption(pdfMaxPages, true, "Most pages of a PDF extracted in SPIDER mode. 0 = all. Default = all");
+        options.addOption(extractTimeout, true,
+                "Seconds a PDF or raw text extraction may take before the document is quarantined. Default = 120");
+        options.addOption(childJvm, false, "Run each PDF or raw text extraction in its own JVM");
+        options.addOption(spiderClean, false,
+                "Clean each text as it is spidered, writing its full text too. No CLEAN_RAW run is needed afterwards");
+        options.addOption(lintThreads, true, "Number of files parsed at once in LINT mode. Default = number of processors");
+        options.addOption(rules, true, "Validation rules file that replaces or extends the built in genres, roles and required fields");
 
         // create parser and handle the options
         RDFIndexerConfig config = new RDFIndexerConfig();
@@ -83,6 +121,38 @@ public class Main {
                 config.logRoot = line.getOptionValue(logDir);
             }
             config.deleteAll = line.hasOption(deleteFlag);
+            config.yearRanges = line.hasOption(yearRanges);
+            config.jsonErrors = line.hasOption(jsonErrors);
+            config.exactErrorCounts = line.hasOption(exactCounts);
+            if (line.hasOption(errorExamples)) {
+                config.maxErrorExamples = Integer.parseInt(line.getOptionValue(errorExamples));
+            }
+            if (line.hasOption(linkThreads)) {
+                config.linkCheckThreads = Integer.parseInt(line.getOptionValue(linkThreads));
+            }
+            if (line.hasOption(linkTtl)) {
+                config.linkCheckTtlDays = Integer.parseInt(line.getOptionValue(linkTtl));
+            }
+            if (line.hasOption(spiderThreads)) {
+                config.spiderThreads = Integer.parseInt(line.getOptionValue(spiderThreads));
+            }
+            if (line.hasOption(pdfMaxBytes)) {
+                config.pdfMaxBytes = Long.parseLong(line.getOptionValue(pdfMaxBytes));
+            }
+            if (line.hasOption(pdfMaxPages)) {
+                config.pdfMaxPages = Integer.parseInt(line.getOptionValue(pdfMaxPages));
+            }
+            if (line.hasOption(extractTimeout)) {
+                config.extractTimeout = Integer.parseInt(line.getOptionValue(extractTimeout));
+            }
+            config.extractChildJvm = line.hasOption(childJvm);
+            config.spiderClean = line.hasOption(spiderClean);
+            if (line.hasOption(lintThreads)) {
+                config.lintThreads = Integer.parseInt(line.getOptionValue(lintThreads));
+            }
+            if (line.hasOption(rules)) {
+                config.validationRules = new File(line.getOptionValue(rules));
+            }
 
             // compare stuff
             if (line.hasOption(includeFlag)) {
@@ -97,6 +167,7 @@ public class Main {
                 case CLEAN_RAW:
                 case CLEAN_FULL:
                 case INDEX:
+                case LINT:
                     if( config.sourceDir == null ) {
                         throw new ParseException("Missing required -source parameter");
                     }
@@ -111,6 +182,10 @@ public class Main {
             if (line.hasOption(custom)) {
                 config.customCleanClass = line.getOptionValue(custom);
             }
+            config.forceClean = line.hasOption(force);
+            if (line.hasOption(cleanThreads)) {
+                config.cleanThreads = Integer.parseInt(line.getOptionValue(cleanThreads));
+            }
 
         } catch (ParseException exp) {
 
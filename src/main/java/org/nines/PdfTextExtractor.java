@@ -0,0 +1,129 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import org.apache.pdfbox.io.RandomAccessFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.util.PDFTextStripper;
+
+/**
+ * Extracts the text of a PDF file into a UTF-8 text file without holding
+ * the document or its text in memory. PDFBox keeps the parsed objects in a
+ * scratch file next to the PDF, and the text is written a range of pages at
+ * a time from that one load. An extractor holds no state, so PDFs are
+ * extracted in parallel by calling it from several threads at once.
+ */
+final class PdfTextExtractor {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final int maxPages;
+    private final int pagesPerRange;
+
+    /**
+     * @param maxPages Most pages extracted from a PDF; 0 extracts all
+     * @param pagesPerRange Pages extracted at a time
+     */
+    public PdfTextExtractor(final int maxPages, final int pagesPerRange) {
+        this.maxPages = maxPages;
+        this.pagesPerRange = Math.max(1, pagesPerRange);
+    }
+
+    /**
+     * Extract the text of <code>pdf</code> into <code>out</code>
+     * @return The number of pages extracted
+     */
+    public int extract(final File pdf, final File out) throws IOException {
+        Scratch scratch = new Scratch(pdf);
+        try {
+            PDDocument doc = scratch.load();
+            int last = lastPage(doc.getNumberOfPages());
+            Writer writer = openWriter(out);
+            try {
+                for (int start = 1; start <= last; start += this.pagesPerRange) {
+                    writeRange(doc, start, Math.min(last, start + this.pagesPerRange - 1), writer);
+                }
+            } finally {
+                writer.close();
+            }
+            return last;
+        } finally {
+            scratch.close();
+        }
+    }
+
+    private int lastPage(final int pages) {
+        return (this.maxPages > 0 ? Math.min(pages, this.maxPages) : pages);
+    }
+
+    private static void writeRange(final PDDocument doc, final int start, final int end, final Writer writer)
+        throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setStartPage(start);
+        stripper.setEndPage(end);
+        stripper.writeText(doc, writer);
+        writer.flush();
+    }
+
+    private static Writer openWriter(final File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF8), 64 * 1024);
+    }
+
+    /**
+     * A document loaded with its objects in a scratch file instead of memory
+     */
+    private static final class Scratch {
+        private final File pdf;
+        private File file;
+        private RandomAccessFile scratch;
+        private PDDocument doc;
+
+        Scratch(File pdf) {
+            this.pdf = pdf;
+        }
+
+        PDDocument load() throws IOException {
+            this.file = File.createTempFile("pdfbox", ".scratch", this.pdf.getAbsoluteFile().getParentFile());
+            this.scratch = new RandomAccessFile(this.file, "rw");
+            this.doc = PDDocument.load(this.pdf, this.scratch);
+            return this.doc;
+        }
+
+        void close() {
+            try {
+                if (this.doc != null) {
+                    this.doc.close();
+                }
+                if (this.scratch != null) {
+                    this.scratch.close();
+                }
+            } catch (IOException e) {
+                // nothing more to release
+            }
+            if (this.file != null) {
+                this.file.delete();
+            }
+        }
+    }
+}
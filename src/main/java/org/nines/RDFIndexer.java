@@ -22,14 +22,16 @@ import java.net.URL;
 import java.net.URLEncoder;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.apache.log4j.xml.DOMConfigurator;
 import org.nines.RDFIndexerConfig.Mode;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 public class RDFIndexer {
@@ -44,17 +46,22 @@ public class RDFIndexer {
     private LinkCollector linkCollector;
     private Logger log;
     private AsyncPoster asyncPoster;
-    private JsonArray jsonPayload = new JsonArray();
     private int postCount = 0;
     private SolrClient solrClient;
     private Date ts = new Date();
     private SimpleDateFormat ts2 = new SimpleDateFormat("yyyy-MM-dd");
     private String timeStamp = new String(ts2.format(ts));
+    private SolrJsonWriter jsonPayload = new SolrJsonWriter(timeStamp);
+    private SchemaValidator validator;
 
     // special field names
     private final String isPartOf = "isPartOf";
     private final String hasPart = "hasPart";
 
+    // read ahead of the full texts of the next few RDF files in the queue
+    private static final int TEXT_PREFETCH_THREADS = 2;
+    private static final int TEXT_PREFETCH_FILES = 8;
+
     /**
      * 
      * @param config
@@ -79,15 +86,23 @@ public class RDFIndexer {
         } else {
             logName = logFileRoot + "_" + this.config.mode.toString().toLowerCase() + "_error.log";
         }
+        if (this.config.jsonErrors) {
+            logName = logName.substring(0, logName.length() - ".log".length()) + ".jsonl";
+        }
         File reportFile = new File(logName);
         try {
-            this.errorReport = new ErrorReport(reportFile);
+            this.errorReport = new ErrorReport(reportFile,
+                this.config.jsonErrors ? ErrorReport.Format.JSON : ErrorReport.Format.TEXT, this.config.exactErrorCounts,
+                this.config.maxErrorExamples);
         } catch (IOException e1) {
             this.log.error("Unable to open error report log for writing, aborting indexer.");
             return;
         }
 
-        this.linkCollector = new LinkCollector(this.config.getLogfileBaseName("links"));
+        // only the modes that parse documents collect links
+        if (this.config.mode.equals(Mode.INDEX) || this.config.mode.equals(Mode.TEST)) {
+            this.linkCollector = new LinkCollector(this.config.getLogfileBaseName("links"));
+        }
         this.solrClient = new SolrClient(this.config.solrBaseURL);
         this.asyncPoster = new AsyncPoster( 1 );
     }
@@ -97,8 +112,16 @@ public class RDFIndexer {
      */
     public void execute() {
 
+        // linting and link checking never touch solr
+        if (config.mode.equals(Mode.LINT)) {
+            this.log.info("Lint Mode");
+            doLinting();
+        } else if (config.mode.equals(Mode.LINKCHECK)) {
+            this.log.info("Link Check Mode");
+            doLinkChecking();
+
         // There is only something else to do if a MODE was configured
-        if (config.mode.equals(Mode.NONE) == false) {
+        } else if (config.mode.equals(Mode.NONE) == false) {
 
             // first, ensure that core is valid and exists
             try {
@@ -136,7 +159,22 @@ public class RDFIndexer {
 
         this.asyncPoster.shutdown( );
         this.errorReport.close( );
-        this.linkCollector.close( );
+        logErrorSummary( );
+        if (this.linkCollector != null) {
+            this.linkCollector.close( );
+        }
+    }
+
+    private void logErrorSummary() {
+        ErrorSummary summary = this.errorReport.getSummary();
+        if (summary.getErrorCount() == 0) {
+            return;
+        }
+        this.log.info(summary.getErrorCount() + " errors in " + summary.getFileCount() + " files and "
+            + summary.getObjectCount() + " objects");
+        for (Map.Entry<String, Integer> entry : summary.getCategoryCounts().entrySet()) {
+            this.log.info("   " + entry.getValue() + "\t" + entry.getKey());
+        }
     }
 
     private void doFullTextCleanup() {
@@ -148,17 +186,27 @@ public class RDFIndexer {
         recursivelyQueueFiles(new File(fullPath), false);
         int totalFiles = this.dataFileQueue.size();
 
-        FullTextCleaner cleaner = new FullTextCleaner(config.archiveName, this.errorReport,
-            config.customCleanClass);
-        while (this.dataFileQueue.size() > 0) {
-            File txtFile = this.dataFileQueue.remove();
-            cleaner.clean(txtFile);
-            this.errorReport.flush();
+        // each worker has its own cleaner; they share the stats
+        final CleanStats cleanStats = new CleanStats();
+        final ThreadLocal<FullTextCleaner> cleaner = new ThreadLocal<FullTextCleaner>() {
+            protected FullTextCleaner initialValue() {
+                return new FullTextCleaner(config.archiveName, errorReport, config.customCleanClass, cleanStats);
+            }
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(config.cleanThreads);
+        for (final File txtFile : this.dataFileQueue) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    cleaner.get().clean(txtFile);
+                }
+            });
         }
+        awaitCleaners(pool, cleanStats);
+        this.dataFileQueue.clear();
 
-        String stats = "Cleaned " + totalFiles + " files (Original Size: " + cleaner.getOriginalLength()
-            + ", Cleaned Size: " + cleaner.getCleanedLength() + ", Total Files Cleaned: "
-            + cleaner.getTotalFilesChanged() + ")";
+        String stats = "Cleaned " + totalFiles + " files (Original Size: " + cleanStats.getOriginalLength()
+            + ", Cleaned Size: " + cleanStats.getCleanedLength() + ", Total Files Cleaned: "
+            + cleanStats.getTotalFilesChanged() + ")";
 
         Date end = new Date();
         double durationSec = (end.getTime() - start.getTime()) / 1000.0;
@@ -178,16 +226,34 @@ public class RDFIndexer {
         recursivelyQueueFiles(new File(rawPath), false);
         int totalFiles = this.dataFileQueue.size();
 
-        RawTextCleaner cleaner = new RawTextCleaner(config, this.errorReport);
-        while (this.dataFileQueue.size() > 0) {
-            File rawFile = this.dataFileQueue.remove();
-            cleaner.clean(rawFile);
-            this.errorReport.flush();
+        // each worker has its own cleaner and detector; they share the stats and
+        // an extraction pool with a slot per worker
+        final CleanStats cleanStats = new CleanStats();
+        final ExtractionPool extraction = new ExtractionPool(config, this.errorReport, config.cleanThreads);
+        final ThreadLocal<RawTextCleaner> cleaner = new ThreadLocal<RawTextCleaner>() {
+            protected RawTextCleaner initialValue() {
+                return new RawTextCleaner(config, errorReport, extraction, cleanStats);
+            }
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(config.cleanThreads);
+        for (final File rawFile : this.dataFileQueue) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    cleaner.get().clean(rawFile);
+                }
+            });
+        }
+        awaitCleaners(pool, cleanStats);
+        this.dataFileQueue.clear();
+        extraction.shutdown();
+        if (extraction.getQuarantinedCount() > 0) {
+            this.log.warn(extraction.getQuarantinedCount() + " raw text files were quarantined");
         }
 
-        String stats = "Cleaned " + totalFiles + " files (Original Size: " + cleaner.getOriginalLength()
-            + ", Cleaned Size: " + cleaner.getCleanedLength() + ", Total Files Cleaned: "
-            + cleaner.getTotalFilesChanged() + ")";
+        String stats = "Cleaned " + totalFiles + " files (Original Size: " + cleanStats.getOriginalLength()
+            + ", Cleaned Size: " + cleanStats.getCleanedLength() + ", Total Files Cleaned: "
+            + cleanStats.getTotalFilesChanged() + ", Unchanged Files Skipped: " + cleanStats.getTotalFilesSkipped()
+            + ")";
 
         Date end = new Date();
         double durationSec = (end.getTime() - start.getTime()) / 1000.0;
@@ -199,16 +265,18 @@ public class RDFIndexer {
     }
     
     /**
-     * find the full path to the corrected text root baseed on 
-     * the path to the original rdf sources
-     * @return
+     * Wait for the cleanup workers to finish every queued file
      */
-    private String findCorrectedTextRoot() {
-        String path = config.sourceDir.toString();
-        int pos = path.indexOf("/rdf/");
-        path = path.substring(0, pos) + "/correctedtext/";
-        path += RDFIndexerConfig.safeArchive( config.archiveName ) + "/";
-        return path;
+    private void awaitCleaners(final ExecutorService pool, final CleanStats cleanStats) {
+        pool.shutdown();
+        try {
+            while (pool.awaitTermination(1, TimeUnit.MINUTES) == false) {
+                this.log.info("=> Cleaning... " + cleanStats.getOriginalLength() + " chars so far");
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
 
     private void doIndexing() {        
@@ -231,6 +299,64 @@ public class RDFIndexer {
         this.log.info("Largest text field size: " + this.largestTextSize);
     }
 
+    private void doLinting() {
+        Date start = new Date();
+        log.info("Started lint at " + start);
+        System.out.println("Linting " + config.sourceDir);
+
+        // only parse and validate; no text, links, json or solr
+        config.collectLinks = false;
+        if (compileValidator() == false) {
+            return;
+        }
+
+        // the workers only read the text file index, so build it before they start
+        config.textFiles = TextFileIndex.scan( config.sourceDir, config.archiveName );
+        this.dataFileQueue = new LinkedList<File>();
+        recursivelyQueueFiles(config.sourceDir, true);
+        this.numFiles = this.dataFileQueue.size();
+        log.info("=> Linting " + config.sourceDir + " total files: " + this.numFiles + " with "
+            + config.lintThreads + " threads");
+
+        final AtomicInteger objects = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(config.lintThreads);
+        for (final File rdfFile : this.dataFileQueue) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    objects.addAndGet(parseFile(rdfFile, new DocumentIndexer(rdfFile, false)));
+                }
+            });
+        }
+        pool.shutdown();
+        try {
+            while (pool.awaitTermination(1, TimeUnit.MINUTES) == false) {
+                log.info("=> Linting... " + objects.get() + " objects so far");
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        this.dataFileQueue.clear();
+        this.numObjects = objects.get();
+        System.out.println("Linting DONE");
+
+        Date end = new Date();
+        double durationSec = (end.getTime() - start.getTime()) / 1000.0;
+        String summary;
+        if (durationSec >= 60) {
+            summary = String.format("Linted " + numFiles + " files (" + numObjects + " objects) in %3.2f minutes.",
+                (durationSec / 60.0));
+        } else {
+            summary = String.format("Linted " + numFiles + " files (" + numObjects + " objects) in %3.2f seconds.",
+                durationSec);
+        }
+        this.log.info(summary);
+        System.out.println(summary);
+        ErrorSummary errors = this.errorReport.getSummary();
+        System.out.println(errors.getErrorCount() + " errors in " + errors.getFileCount() + " files and "
+            + errors.getObjectCount() + " objects");
+    }
+
     private void doResolving() {
         Date start = new Date();
         log.info("Started resolving at " + start);
@@ -250,6 +376,39 @@ public class RDFIndexer {
         }
     }
 
+    private void doLinkChecking() {
+        Date start = new Date();
+        log.info("Started link check at " + start);
+        String prefix = this.config.getLogfileBaseName("links");
+        File linkData = new File(prefix + "_link_data.txt");
+        if (linkData.exists() == false) {
+            this.errorReport.addError(new IndexerError(linkData.toString(), "",
+                "No link data found; run the indexer in INDEX or TEST mode first"));
+            return;
+        }
+        System.out.println("Checking links in " + linkData);
+        LinkChecker checker = new LinkChecker(this.config, this.errorReport);
+        try {
+            checker.check(linkData, new File(prefix + "_link_cache.txt"), new File(prefix + "_broken_links.txt"));
+        } catch (IOException e) {
+            this.errorReport.addError(new IndexerError(linkData.toString(), "", "Link check failed: " + e.toString()));
+        }
+        System.out.println("DONE");
+        if (checker.getNotCheckedCount() > 0) {
+            this.log.warn(checker.getNotCheckedCount() + " links were not checked; run the check again to finish");
+        }
+
+        Date end = new Date();
+        double durationSec = (end.getTime() - start.getTime()) / 1000.0;
+        if (durationSec >= 60) {
+            this.log.info(String.format("Checked " + checker.getCheckedCount() + " links in %3.2f minutes.",
+                (durationSec / 60.0)));
+        } else {
+            this.log.info(String.format("Checked " + checker.getCheckedCount() + " links in %3.2f seconds.",
+                durationSec));
+        }
+    }
+
     private void doSpidering() {
         Date start = new Date();
         log.info("Started full-text spider at " + start);
@@ -321,12 +480,8 @@ public class RDFIndexer {
             File rdfFile = this.dataFileQueue.remove();
             this.log.info("Spider text from file " + rdfFile.toString());
             spider.spider(rdfFile);
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-            }
-            this.errorReport.flush();
         }
+        spider.finish();
     }
 
     /**
@@ -336,31 +491,34 @@ public class RDFIndexer {
      * @param rdfDir
      */
     private void indexDirectory(File rdfDir) {
-        // see if corrected texts exist. 
-        config.correctedTextDir = new File(  findCorrectedTextRoot() );
-        if ( config.correctedTextDir .exists() ) {
-            // it does; grab a list of filenames that have corrected text and cache them.
-            // The file names are URIs with ugly characters replaces. Rules... 
-            // '/' is replaced by _S_ and ':' by _C_
-            // Undo this and save a list of corrected doc URIs
-            for (File entry : config.correctedTextDir .listFiles()) {
-                if ( entry.getName().endsWith(".txt")) {
-                    config.correctedTextMap.put(
-                        entry.getName().replaceAll("_C_", ":").replaceAll("_S_", "\\/").replaceAll(".txt",""),                        
-                        entry.getName() );
-                }
-            }
+        if (compileValidator() == false) {
+            return;
         }
-        
+
+        // list the full and corrected texts that are available up front
+        config.textFiles = TextFileIndex.scan( config.sourceDir, config.archiveName );
+        TextPrefetcher prefetcher = new TextPrefetcher( config.textFiles, TEXT_PREFETCH_THREADS, TEXT_PREFETCH_FILES );
+        log.info( "=> " + config.textFiles.fullTextCount( ) + " full text and "
+            + config.textFiles.correctedTextCount( ) + " corrected text files available" );
+
         this.dataFileQueue = new LinkedList<File>();
         recursivelyQueueFiles(rdfDir, true);
         this.numFiles = this.dataFileQueue.size();
         log.info( "=> Indexing " + rdfDir + " total files: " + this.numFiles );
 
+        // keep the texts of the next few files being read while this one is indexed
+        Iterator<File> ahead = new ArrayList<File>(this.dataFileQueue).iterator();
+        int prefetched = 0;
         while (this.dataFileQueue.size() > 0) {
+           int indexed = this.numFiles - this.dataFileQueue.size();
+           while (ahead.hasNext() && prefetched < indexed + TEXT_PREFETCH_FILES) {
+               prefetcher.prefetch(ahead.next());
+               prefetched++;
+           }
            File rdfFile = this.dataFileQueue.remove();
            indexFile(rdfFile);
         }
+        prefetcher.shutdown( );
 
         if( config.isTestMode( ) == false ) {
 
@@ -378,55 +536,98 @@ public class RDFIndexer {
         }
     }
 
-    private void indexFile(File file) {
+    /**
+     * Compile the validation rules once for the whole archive
+     * @return false if the configured rules could not be loaded
+     */
+    private boolean compileValidator() {
+        if (config.validationRules == null) {
+            this.validator = SchemaValidator.defaultValidator( config.isPagesArchive( ) );
+            return true;
+        }
+        try {
+            this.validator = SchemaValidator.load( config.validationRules, config.isPagesArchive( ) );
+            return true;
+        } catch (Exception e) {
+            log.error( "Unable to load validation rules " + config.validationRules + ": " + e.toString( ) );
+            this.errorReport.addError(new IndexerError( config.validationRules.getName( ), "",
+                "Unable to load validation rules: " + e.toString( ) ));
+            return false;
+        }
+    }
 
-        HashMap<String, HashMap<String, ArrayList<String>>> objects;
+    private void indexFile(final File file) {
+        int count = parseFile(file, new DocumentIndexer(file, true));
+        if (count == 0) {
+            return;
+        }
+
+        // save the largest text field size
+        this.largestTextSize = Math.max(this.largestTextSize, RdfDocumentParser.getLargestTextSize());
+
+        this.numObjects += count;
+    }
 
-        // Parse a file into a hashmap.
-        // Key is object URI, Value is a set of key-value pairs
-        // that describe the object
+    /**
+     * Parse the file, handing each object to the indexer as soon as it is complete
+     * @return The number of objects in the file
+     */
+    private int parseFile(final File file, final DocumentIndexer indexer) {
         try {
-            objects = RdfDocumentParser.parse(file, this.errorReport, this.linkCollector, config);
+            RdfDocumentParser.parse(file, this.errorReport, this.linkCollector, config, indexer);
         } catch (IOException e) {
             this.errorReport.addError(new IndexerError(file.getName(), "", e.getMessage()));
-            return;
+            return 0;
         }
 
-        // Log an error for no objects and bail if size is zero
-        if (objects == null || objects.size() == 0) {
+        // Log an error for no objects
+        if (indexer.getCount() == 0) {
             errorReport.addError(new IndexerError(file.getName(), "", "No objects in this file."));
-            errorReport.flush();
-            return;
         }
+        return indexer.getCount();
+    }
 
-        // save the largest text field size
-        this.largestTextSize = Math.max(this.largestTextSize, RdfDocumentParser.getLargestTextSize());
+    /**
+     * Validates each parsed object of a file and, unless linting, adds it to the pending solr payload
+     */
+    private final class DocumentIndexer implements IDocumentConsumer, IValidationSink {
+        private final File file;
+        private final boolean write;
+        private int count = 0;
+        private String uri;
+
+        public DocumentIndexer(final File file, final boolean write) {
+            this.file = file;
+            this.write = write;
+        }
 
-        for (Map.Entry<String, HashMap<String, ArrayList<String>>> entry : objects.entrySet()) {
+        public int getCount() {
+            return this.count;
+        }
 
-            String uri = entry.getKey();
-            HashMap<String, ArrayList<String>> object = entry.getValue();
+        public void handleDocument(String uri, SolrDocument object) {
+            this.count++;
 
             // Validate archive and push objects into new archive map
-            ArrayList<String> objectArray = object.get("archive");
-            if (objectArray != null) {
-                String objArchive = objectArray.get(0);
-                if (!objArchive.equals( config.archiveName)) {
-                    this.errorReport.addError(new IndexerError(file.getName(), uri, "The wrong archive was found. "
-                        + objArchive + " should be " + config.archiveName));
+            try {
+                String objArchive = object.getFirst("archive");
+                if (objArchive != null) {
+                    if (!objArchive.equals( config.archiveName)) {
+                        errorReport.addError(new IndexerError(file.getName(), uri, "The wrong archive was found. "
+                            + objArchive + " should be " + config.archiveName));
+                    }
+                } else {
+                    errorReport.addError(new IndexerError(file.getName(), uri,
+                        "Unable to determine archive for this object."));
                 }
-            } else {
-                this.errorReport.addError(new IndexerError(file.getName(), uri,
-                    "Unable to determine archive for this object."));
+            } catch (IOException e) {
+                errorReport.addError(new IndexerError(file.getName(), uri, "Unable to read archive: " + e.toString()));
             }
 
             // validate all other parts of object and generate error report
             try {
-                ArrayList<String> messages = ValidationUtility.validateObject(this.config.isPagesArchive(), object);
-                for (String message : messages) {
-                    IndexerError e = new IndexerError(file.getName(), uri, message);
-                    errorReport.addError(e);
-                }
+                this.uri = uri;
+                validator.validate(object, this);
             } catch (Exception valEx) {
                 System.err.println("ERROR Validating file:" + file.getName() + " URI: " + uri);
                 valEx.printStackTrace();
@@ -434,17 +635,28 @@ public class RDFIndexer {
                 errorReport.addError(e);
             }
 
-            // turn this object into an XML solr docm then xml string. Add this to the curr payload
-            JsonElement jsonDoc = docToJson(uri, object);
-            this.jsonPayload.add(jsonDoc);
+            if (this.write == false) {
+                return;
+            }
+
+            // write this object as json directly into the curr payload
+            try {
+                jsonPayload.write(object);
+            } catch (IOException e) {
+                errorReport.addError(new IndexerError(file.getName(), uri, "Unable to read full text: " + e.toString()));
+            }
 
             if( config.isTestMode( ) == false ) {
                 flushIfEnough( );
+            } else if ( jsonPayload.length() >= config.maxUploadSize ) {
+                // nothing is posted in test mode; drop the payload rather than hold the whole archive
+                jsonPayload.finish( );
             }
         }
 
-        this.numObjects += objects.size();
-        this.errorReport.flush();
+        public void message(String message) {
+            errorReport.addError(new IndexerError(file.getName(), this.uri, message));
+        }
     }
 
     //
@@ -553,7 +765,7 @@ public class RDFIndexer {
             }
 
             if( updated == true ) {
-                this.jsonPayload.add( json );
+                this.jsonPayload.write( json );
                 flushIfEnough( );
             }
         } catch( UnsupportedEncodingException ex ) {
@@ -586,26 +798,17 @@ public class RDFIndexer {
         return( json );
     }
 
-    private JsonElement docToJson(String documentName, HashMap<String, ArrayList<String>> fields) {
-        Gson gson = new Gson();
-        JsonObject obj = gson.toJsonTree(fields).getAsJsonObject();
-        obj.addProperty("date_created", this.timeStamp);
-        obj.addProperty("date_updated", this.timeStamp);
-        return obj;
-    }
-
     private void flushIfEnough( ) {
-        if ( this.jsonPayload.toString().length( ) >= config.maxUploadSize ) flushPending( );
+        if ( this.jsonPayload.length( ) >= config.maxUploadSize ) flushPending( );
     }
 
     private void flush( ) {
-        if ( this.jsonPayload.size( ) > 0 ) flushPending( );
+        if ( this.jsonPayload.isEmpty( ) == false ) flushPending( );
     }
 
     // flush pending data to SOLR
     private void flushPending( ) {
-        this.asyncPoster.asyncPost( this.solrClient, config.coreName( ), this.jsonPayload.toString( ) );
-        this.jsonPayload = new JsonArray( );
+        this.asyncPoster.asyncPost( this.solrClient, config.coreName( ), this.jsonPayload.finish( ) );
         this.postCount++;
         if( postCount % 5 == 0 ) {
             this.asyncPoster.asyncCommit( this.solrClient, config.coreName( ) );
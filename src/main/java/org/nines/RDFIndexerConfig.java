@@ -37,7 +37,9 @@ public class RDFIndexerConfig {
         CLEAN_FULL, // cleanup the fulltext
         INDEX,      // populate solr with rdf data Text will be pulled from the RDF or fulltext
         RESOLVE,    // examine existing archive and resolve any references (isPartOf, hasPart)
-        COMPARE     // compare the new arcive with the main index
+        COMPARE,    // compare the new arcive with the main index
+        LINKCHECK,  // check the links collected by the last index or test run
+        LINT        // parse and validate only: no text, links, json or solr
     };
 
     // general properties
@@ -48,15 +50,49 @@ public class RDFIndexerConfig {
     public Mode mode = Mode.NONE;
     public String defaultEncoding = "UTF-8";
     public String customCleanClass = "";
-
-    // corrected text map: URI -> filename
-    public Map<String,String> correctedTextMap =  new HashMap<String,String>();
-    public File correctedTextDir = null;
+    public boolean forceClean = false;        // clean_raw: clean raw texts even if unchanged since the last clean
+    public boolean jsonErrors = false;        // write the error report as JSON lines
+    public boolean exactErrorCounts = false;  // count distinct error files/objects exactly rather than estimate
+    public int maxErrorExamples = 100;        // errors of each category written in full; 0 writes all
+    public File validationRules = null;       // rules file that replaces or extends the built in validation rules
+
+    // lint properties
+    public int lintThreads = Runtime.getRuntime().availableProcessors();  // files parsed at once
+
+    // clean_raw / clean_full properties
+    public int cleanThreads = Runtime.getRuntime().availableProcessors();  // files cleaned at once
+
+    // spider properties
+    public int spiderThreads = 8;            // concurrent fetches overall
+    public int spiderPerHost = 2;            // concurrent fetches from a single host
+    public long spiderHostDelay = 1000;      // min ms between the start of fetches from a host
+    public long pdfMaxBytes = 256L * 1024 * 1024;  // largest PDF downloaded; 0 = no limit
+    public int pdfMaxPages = 0;              // most pages of a PDF extracted; 0 = all
+    public int pdfPagesPerRange = 50;        // PDF pages extracted at a time
+    public boolean spiderClean = false;      // clean each text as it is fetched, writing fulltext as well as rawtext
+
+    // text extraction properties, for spidered PDFs and raw text cleanup
+    public int extractThreads = 2;           // extractions run at once
+    public int extractTimeout = 120;         // seconds an extraction may take before its document is quarantined
+    public boolean extractChildJvm = false;  // run each extraction in its own JVM
+    public String extractChildHeap = "512m"; // max heap of an extraction JVM
+
+    // link check properties
+    public int linkCheckThreads = 16;        // concurrent requests overall
+    public int linkCheckPerHost = 2;         // concurrent requests to a single host
+    public long linkCheckHostDelay = 500;    // min ms between the start of requests to a host
+    public int linkCheckTtlDays = 7;         // days a link check result is reused
+
+    // full and corrected text files of the archive, listed when indexing starts
+    TextFileIndex textFiles = null;
 
     // indexing properties
     public boolean collectLinks = true;
     public boolean deleteAll = false;
     public long maxUploadSize = 10000000; // 10m of characters
+    // post date ranges as year_range instead of every year. Off by default: it needs the
+    // year_range fields in the solr schema and changes what a search on year matches
+    public boolean yearRanges = false;
 
     // comparison properties
     public String ignoreFields = "";
@@ -72,35 +108,8 @@ public class RDFIndexerConfig {
     }
 
     // all of the solr instance fields. Text is the last field
-    private static final ArrayList<String> ALL_FIELDS = new ArrayList<String>( Arrays.asList( "uri", "archive",
+    static final ArrayList<String> ALL_FIELDS = new ArrayList<String>( Arrays.asList( "uri", "archive",
             "date_label", "genre", "source", "image", "thumbnail", "title", "alternative", "url",
-            "role_ABR", "role_ACP", "role_ACT", "role_ADI", "role_ADP", "role_AFT", "role_ANL", "role_ANM", "role_ANN", "role_ANT",
-        	"role_APE", "role_APL", "role_APP", "role_AQT", "role_ARC", "role_ARD", "role_ARR", "role_ART", "role_ASG", "role_ASN",
-        	"role_ATO", "role_ATT", "role_AUC", "role_AUD", "role_AUI", "role_AUS", "role_AUT", "role_BDD", "role_BJD", "role_BKD",
-        	"role_BKP", "role_BLW", "role_BND", "role_BPD", "role_BRD", "role_BRL", "role_BSL", "role_CAS", "role_CCP", "role_CHR",
-        	"role_CLI", "role_CLL", "role_CLR", "role_CLT", "role_CMM", "role_CMP", "role_CMT", "role_CND", "role_CNG", "role_CNS",
-        	"role_COE", "role_COL", "role_COM", "role_CON", "role_COR", "role_COS", "role_COT", "role_COU", "role_COV", "role_CPC",
-        	"role_CPE", "role_CPH", "role_CPL", "role_CPT", "role_CRE", "role_CRP", "role_CRR", "role_CRT", "role_CSL", "role_CSP",
-        	"role_CST", "role_CTB", "role_CTE", "role_CTG", "role_CTR", "role_CTS", "role_CTT", "role_CUR", "role_CWT", "role_DBP",
-        	"role_DFD", "role_DFE", "role_DFT", "role_DGG", "role_DGS", "role_DIS", "role_DLN", "role_DNC", "role_DNR", "role_DPC",
-        	"role_DPT", "role_DRM", "role_DRT", "role_DSR", "role_DST", "role_DTC", "role_DTE", "role_DTM", "role_DTO", "role_DUB",
-        	"role_EDC", "role_EDM", "role_EDT", "role_EGR", "role_ELG", "role_ELT", "role_ENG", "role_ENJ", "role_ETR", "role_EVP",
-        	"role_EXP", "role_FAC", "role_FDS", "role_FLD", "role_FLM", "role_FMD", "role_FMK", "role_FMO", "role_FMP", "role_FND",
-        	"role_FPY", "role_FRG", "role_GIS", "role_HIS", "role_HNR", "role_HST", "role_ILL", "role_ILU", "role_INS", "role_INV",
-        	"role_ISB", "role_ITR", "role_IVE", "role_IVR", "role_JUD", "role_JUG", "role_LBR", "role_LBT", "role_LDR", "role_LED",
-        	"role_LEE", "role_LEL", "role_LEN", "role_LET", "role_LGD", "role_LIE", "role_LIL", "role_LIT", "role_LSA", "role_LSE",
-        	"role_LSO", "role_LTG", "role_LYR", "role_MCP", "role_MDC", "role_MED", "role_MFP", "role_MFR", "role_MOD", "role_MON",
-        	"role_MRB", "role_MRK", "role_MSD", "role_MTE", "role_MTK", "role_MUS", "role_NRT", "role_OPN", "role_ORG", "role_ORM",
-        	"role_OSP", "role_OTH", "role_OWN", "role_PAN", "role_PAT", "role_PBD", "role_PBL", "role_PDR", "role_PFR", "role_PHT",
-        	"role_PLT", "role_PMA", "role_PMN", "role_POP", "role_PPM", "role_PPT", "role_PRA", "role_PRC", "role_PRD", "role_PRE",
-        	"role_PRF", "role_PRG", "role_PRM", "role_PRN", "role_PRO", "role_PRP", "role_PRS", "role_PRT", "role_PRV", "role_PTA",
-        	"role_PTE", "role_PTF", "role_PTH", "role_PTT", "role_PUP", "role_RBR", "role_RCD", "role_RCE", "role_RCP", "role_RDD",
-        	"role_RED", "role_REN", "role_RES", "role_REV", "role_RPC", "role_RPS", "role_RPT", "role_RPY", "role_RSE", "role_RSG",
-        	"role_RSP", "role_RSR", "role_RST", "role_RTH", "role_RTM", "role_SAD", "role_SCE", "role_SCL", "role_SCR", "role_SDS",
-        	"role_SEC", "role_SGD", "role_SGN", "role_SHT", "role_SLL", "role_SNG", "role_SPK", "role_SPN", "role_SPY", "role_SRV",
-        	"role_STD", "role_STG", "role_STL", "role_STM", "role_STN", "role_STR", "role_TCD", "role_TCH", "role_THS", "role_TLD",
-        	"role_TLP", "role_TRC", "role_TRL", "role_TYD", "role_TYG", "role_UVP", "role_VAC", "role_VDG", "role_WAC", "role_WAL",
-        	"role_WAM", "role_WAT", "role_WDC", "role_WDE", "role_WIN", "role_WIT", "role_WPR", "role_WST",
         	"freeculture", "is_ocr", "federation",
             "has_full_text", "source_xml", "typewright", "publisher", "agent", "agent_facet", "author", "editor",
             "text_url", "year", "type", "date_created", "date_updated", "title_sort", "author_sort",
@@ -109,10 +118,20 @@ public class RDFIndexerConfig {
             "coverage", "description", "review_date", "edition_date_label", "edition_year",
             "publication_country", "publication_state", "publication_city",
             "source_sgml", "person", "format", "language", "geospacial", "text"));
+    static {
+        // the role fields come from the schema registry; keep text as the last field
+        ALL_FIELDS.addAll( ALL_FIELDS.indexOf( "url" ) + 1, RdfSchema.ROLE_FIELDS );
+    }
 
-    private static final ArrayList<String> ALL_PAGE_FIELDS = new ArrayList<String>( Arrays.asList( "uri", "archive",
+    static final ArrayList<String> ALL_PAGE_FIELDS = new ArrayList<String>( Arrays.asList( "uri", "archive",
         "date_created", "date_updated", "page_num", "page_of", "text" ));
 
+    // fields the solr schema defines as single valued; these are posted as scalars
+    static final HashSet<String> SINGLE_VALUED_FIELDS = new HashSet<String>( Arrays.asList( "uri",
+        "title_sort", "author_sort", "year_sort", "year_sort_asc", "year_sort_desc",
+        "freeculture", "is_ocr", "has_full_text", "typewright", "has_pages",
+        "date_created", "date_updated" ));
+
 
     /**
      * Gets the path and partial name of the logfile. The partial name
@@ -1,19 +1,15 @@
 package org.nines;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.mozilla.intl.chardet.nsDetector;
@@ -24,7 +20,10 @@ import org.mozilla.universalchardet.UniversalDetector;
  * Cleaner for Raw text files. It will clean out unused tags,
  * fix escape sequences and strip bad utf-8 characters. Errors
  * and changes will be written out to the log files. The cleaned file
- * will be written out to the fullltext area of solr sources
+ * will be written out to the fullltext area of solr sources.
+ * <p>
+ * A cleaner is not thread safe. To clean in parallel, give each worker
+ * its own cleaner, sharing one ExtractionPool and one CleanStats.
  * 
  * @author loufoster
  *
@@ -34,17 +33,48 @@ final class RawTextCleaner {
     private ErrorReport errorReport;    
     private RDFIndexerConfig config;
     private Logger log;
-    private String fileEncoding;
-    private long totalOrigChars = 0;
-    private long totalFilesChanged = 0;
-    private long totalCleanedChars = 0;
+    private final CleanStats stats;
     private UniversalDetector detector = null;
+    private final ExtractionPool extraction;
+    private final boolean ownsExtraction;
+    private final TextNormalizer normalizer =
+        new TextNormalizer(TextNormalizer.UNESCAPE | TextNormalizer.STRIP_BAD_ESCAPES | TextNormalizer.WHITESPACE);
     
     public RawTextCleaner( RDFIndexerConfig config, ErrorReport errorReport ) {
+        this(config, errorReport, new ExtractionPool(config, errorReport), new CleanStats(), true);
+    }
+
+    /**
+     * Cleaner that strips markup in an extraction pool it shares with
+     * others and adds to shared <code>stats</code>. The pool is left
+     * running by {@link #finish()}.
+     */
+    RawTextCleaner( RDFIndexerConfig config, ErrorReport errorReport, ExtractionPool extraction, CleanStats stats ) {
+        this(config, errorReport, extraction, stats, false);
+    }
+
+    private RawTextCleaner( RDFIndexerConfig config, ErrorReport errorReport, ExtractionPool extraction,
+        CleanStats stats, boolean ownsExtraction ) {
         this.errorReport = errorReport;
         this.config = config;
         this.log = Logger.getLogger(RawTextCleaner.class.getName());
         this.detector = new UniversalDetector(null);
+        this.extraction = extraction;
+        this.stats = stats;
+        this.ownsExtraction = ownsExtraction;
+    }
+
+    /**
+     * Release the extraction workers once all files are cleaned
+     */
+    public void finish() {
+        if (this.ownsExtraction == false) {
+            return;
+        }
+        this.extraction.shutdown();
+        if (this.extraction.getQuarantinedCount() > 0) {
+            this.log.warn(this.extraction.getQuarantinedCount() + " raw text files were quarantined");
+        }
     }
     
     /**
@@ -54,40 +84,69 @@ final class RawTextCleaner {
      * @param rawTextFile
      */
     public void clean( final File rawTextFile ) {
-    
-        this.log.info("Clean raw text from file "+rawTextFile);
-        
-        // get the filename for the cleaned fulltext file
-        File cleanTextFile = toFullTextFile(rawTextFile);
-        
-        // ensure that the file is UTF-8 encoded...
-        File srcFile = rawTextFile;
+        clean(rawTextFile, toFullTextFile(rawTextFile));
+    }
+
+    /**
+     * Clean the specified file and write the results to <code>cleanTextFile</code>,
+     * unless it was already cleaned since the raw text last changed.
+     */
+    public void clean( final File rawTextFile, final File cleanTextFile ) {
+
+        // the spider leaves unchanged texts untouched, so a raw file older
+        // than its cleaned copy has already been cleaned
+        if ( this.config.forceClean == false && cleanTextFile.exists()
+            && cleanTextFile.lastModified() >= rawTextFile.lastModified() ) {
+            this.log.info("Raw text file "+rawTextFile+" unchanged since it was last cleaned; skipping");
+            this.stats.skipped();
+            return;
+        }
+
+        byte[] raw;
         try {
-            srcFile = fixEncoding(rawTextFile, cleanTextFile);
-        } catch (IOException e) {
+            raw = FileUtils.readFileToByteArray(rawTextFile);
+        } catch ( IOException e ) {
             this.errorReport.addError( 
-                new IndexerError(rawTextFile.toString(), "", "Unable to convert raw text file encoding to UTF-8: " + e.toString()));
+                new IndexerError(rawTextFile.toString(), "", "Unable to read raw text file: " + e.toString()));
             return;
         }
+        clean(rawTextFile, raw, cleanTextFile);
+    }
+
+    /**
+     * Clean raw text that is already in memory, such as a text the spider
+     * just fetched, and write the results to <code>cleanTextFile</code>. The
+     * encoding is detected from the bytes and they are decoded once; nothing
+     * is read from or written to the raw text area.
+     * 
+     * @param rawTextFile The raw text file the bytes belong to; used in reports
+     * @param raw
+     * @param cleanTextFile
+     */
+    public void clean( final File rawTextFile, final byte[] raw, final File cleanTextFile ) {
+    
+        this.log.info("Clean raw text from file "+rawTextFile);
         
-        // ...now read the file
+        // decode from the detected encoding. Bad chars are replaced 
+        // with 0xFFFD (unknown utf-8 symbol)
         String content = null;
-        InputStreamReader is = null;
         try {
-            is = new InputStreamReader(new FileInputStream(srcFile), "UTF-8");
-            content =  IOUtils.toString(is);
+            String fileEncoding = detectEncoding(raw);
+            if (fileEncoding.equalsIgnoreCase("UTF-8") == false) {
+                this.log.info("  * Converting " + rawTextFile.toString() + " from " + fileEncoding + " to UTF-8");
+            }
+            content = Charset.forName(fileEncoding).newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(ByteBuffer.wrap(raw)).toString();
         } catch ( Exception e ) {
             this.errorReport.addError( 
-                new IndexerError(rawTextFile.toString(), "", "Unable to read raw text file: " + e.toString()));
+                new IndexerError(rawTextFile.toString(), "", "Unable to convert raw text file encoding to UTF-8: " + e.toString()));
             return;
-            
-        } finally {
-            IOUtils.closeQuietly(is);
         }
         
         // stats!
-        long startChars = content.length();;
-        this.totalOrigChars += startChars;
+        long startChars = content.length();
         
         content = TextUtils.stripUnknownUTF8(content, this.errorReport, rawTextFile); 
         
@@ -104,21 +163,27 @@ final class RawTextCleaner {
             }
         }
         
-        content = cleanText( content );
-        content = TextUtils.stripEscapeSequences(content, errorReport, rawTextFile); 
-        content = TextUtils.normalizeWhitespace(content);
+        // markup is stripped in isolation; a pathological file is quarantined
+        try {
+            content = this.extraction.cleanText( content, rawTextFile.toString() );
+        } catch (ExtractionPool.QuarantinedException e) {
+            return;
+        } catch (IOException e) {
+            this.errorReport.addError(
+                new IndexerError(rawTextFile.toString(), "", "Unable to clean raw text file: " + e.toString()));
+            return;
+        }
+        content = this.normalizer.normalize(content, TextUtils.errorListener(this.errorReport, rawTextFile, null));
         
         
         long endChars = content.length();
-        this.totalCleanedChars += endChars;
-        if ( endChars != startChars ) {
-            this.totalFilesChanged++;
-        }
+        this.stats.cleaned(startChars, endChars);
         this.log.info("  => Original length: "+startChars+", Cleaned length: "+endChars+", Delta:"+(startChars - endChars) );
                 
-        // Make sure that the directory structure exists
+        // Make sure that the directory structure exists; when spidering,
+        // another worker may create it at the same time
         if ( cleanTextFile.getParentFile().exists() == false) {
-            if ( cleanTextFile.getParentFile().mkdirs() == false ) {
+            if ( cleanTextFile.getParentFile().mkdirs() == false && cleanTextFile.getParentFile().isDirectory() == false ) {
                 this.errorReport.addError(
                     new IndexerError(cleanTextFile.toString(), "", "Unable to create full text directory tree"));
                 return;
@@ -138,58 +203,21 @@ final class RawTextCleaner {
         }
     }
     
-    private File fixEncoding(File rawTextFile, File cleanTextFile) throws IOException {
-        
-        // Always attempt detect the encoding of the file.
-        // if this is unsuccessful, encoding will be set to
-        // the default specified  in the config
-        this.fileEncoding = detectEncoding(rawTextFile);
-
-        // if it is not utf-8, attempt to convert it!
-        if (this.fileEncoding.equalsIgnoreCase("UTF-8") == false) {
-            this.log.info("  * Converting " + rawTextFile.toString() + " from " + this.fileEncoding + " to UTF-8");
-            
-            // read from original encoding into 16-bit unicode
-            String nonUtf8Txt =  IOUtils.toString(new FileInputStream(rawTextFile), this.fileEncoding);
-            
-            // setup encoders to translate the data. IF bad chars
-            // are encountered, replace them with 0xFFFD (uunkown utf-8 symbol)
-            Charset utf8cs = Charset.availableCharsets().get("UTF-8");
-            CharsetEncoder utf8en = utf8cs.newEncoder();
-            utf8en.onMalformedInput(CodingErrorAction.REPLACE);
-            utf8en.onUnmappableCharacter(CodingErrorAction.REPLACE);
-            
-            // encode the 16-bit unicode to UTF-8 and write out the bytes
-            ByteBuffer utf8Buffer = utf8en.encode(CharBuffer.wrap(nonUtf8Txt));
-            FileOutputStream fos = new FileOutputStream(cleanTextFile);
-            fos.write(utf8Buffer.array());
-            fos.close();
-
-            return cleanTextFile;
-        }
-
-        return rawTextFile;
-    }
-    
-    private String detectEncoding(File testFile) throws IOException {
+    private String detectEncoding(byte[] raw) {
         
         // feed chunks of data to the detector until it is done
         this.detector.reset();
-        byte[] buf = new byte[4096];
-        FileInputStream fis = new FileInputStream(testFile);
-        int nread;
-        while ((nread = fis.read(buf)) > 0 && !this.detector.isDone()) {
-            this.detector.handleData(buf, 0, nread);
+        for (int pos = 0; pos < raw.length && !this.detector.isDone(); pos += 4096) {
+            this.detector.handleData(raw, pos, Math.min(4096, raw.length - pos));
         }
         this.detector.dataEnd();
-        fis.close();
 
         /// see what it thinks....
         String encoding = detector.getDetectedCharset();
         if (encoding == null) {
             
             // try an alternate detector
-            encoding =  alternateEncodeDetect(testFile);
+            encoding =  alternateEncodeDetect(raw);
             if ( encoding == null ){
                 encoding = this.config.defaultEncoding;
                 this.log.info("  * Unable to detect encoding, default to: "+encoding);
@@ -199,18 +227,18 @@ final class RawTextCleaner {
         return encoding;
     }
     
-    private String alternateEncodeDetect(File testFile) throws IOException {
+    private String alternateEncodeDetect(byte[] raw) {
 
         nsDetector det = new nsDetector();
         DetectListener listener = new DetectListener();
         det.Init( listener );
 
-        BufferedInputStream imp = new BufferedInputStream(new FileInputStream(testFile));
         byte[] buf = new byte[1024];
-        int len;
         boolean done = false;
         boolean isAscii = true;
-        while ((len = imp.read(buf, 0, buf.length)) != -1) {
+        for (int pos = 0; pos < raw.length; pos += buf.length) {
+            int len = Math.min(buf.length, raw.length - pos);
+            System.arraycopy(raw, pos, buf, 0, len);
             if (isAscii) {
                 isAscii = det.isAscii(buf, len);
             }
@@ -219,7 +247,6 @@ final class RawTextCleaner {
             }
         }
         det.DataEnd();
-        imp.close();
         return listener.getEncoding();
     }
 
@@ -230,15 +257,19 @@ final class RawTextCleaner {
     }
     
     public long getTotalFilesChanged() {
-        return this.totalFilesChanged;
+        return this.stats.getTotalFilesChanged();
+    }
+
+    public long getTotalFilesSkipped() {
+        return this.stats.getTotalFilesSkipped();
     }
     
     public long getOriginalLength() {
-        return this.totalOrigChars;
+        return this.stats.getOriginalLength();
     }
     
     public long getCleanedLength() {
-        return this.totalCleanedChars;
+        return this.stats.getCleanedLength();
     }
     
     /**
@@ -246,52 +277,8 @@ final class RawTextCleaner {
      * @param fullText
      * @return
      */
-    private String cleanText( String fullText ) {
-
-        // remove everything between <head>...</head>
-        fullText = removeTag(fullText, "head");
-
-        // remove everything between <script>..</script>
-        fullText = removeTag(fullText, "script");
-
-        // remove everything between <...>
-        fullText = removeBracketed(fullText, "<", ">");
-
-        // Get rid of non-unix line endings
-        fullText = fullText.replaceAll("\r", "");
-        
-        // Clean up the file a little bit 
-        fullText = fullText.replaceAll("&nbsp;", " ");
-        fullText = fullText.replaceAll("&#160;", " ");
-        fullText = fullText.replaceAll(" \n", "\n");
-        fullText = fullText.replaceAll("\n ", "\n");
-
-        return fullText;
-    }
-    
-    private String removeBracketed(String fullText, String left, String right) {
-        int start = fullText.indexOf(left);
-        while (start != -1) {
-            int end = fullText.indexOf(right, start);
-            if (end == -1) {
-                start = -1;
-            } else {
-                String tag = fullText.substring(start+1, end);
-                String insertion = "\n";
-                if (tag.equals("i") || tag.equals("/i") || 
-                    tag.equals("b") || tag.equals("/b") || 
-                    tag.equals("em") || tag.equals("/em") ) {
-                    insertion = "";
-                }
-                fullText = fullText.substring(0, start) + insertion + fullText.substring(end + right.length());
-                start = fullText.indexOf(left);
-            }
-        }
-        return fullText;
-    }
-
-    private String removeTag(String fullText, String tag) {
-        return removeBracketed(fullText, "<" + tag, "</" + tag + ">");
+    static String cleanText( String fullText ) {
+        return HtmlStripper.strip(fullText);
     }
     
     private static class DetectListener implements nsICharsetDetectionObserver {
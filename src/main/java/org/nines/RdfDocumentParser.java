@@ -19,16 +19,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.StringReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.log4j.Logger;
 import org.openrdf.rio.ParseErrorListener;
 import org.openrdf.rio.RDFHandlerException;
@@ -36,107 +33,104 @@ import org.openrdf.rio.RDFParseException;
 import org.openrdf.rio.rdfxml.RDFXMLParser;
 
 public class RdfDocumentParser {
-    private static long largestTextSize = 0;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
     public final static Logger log = Logger.getLogger(RdfDocumentParser.class.getName());
 
+    // parsers are reusable once a parse completes, so keep one per thread
+    private static final ThreadLocal<RDFXMLParser> PARSER = new ThreadLocal<RDFXMLParser>() {
+        protected RDFXMLParser initialValue() {
+            RDFXMLParser parser = new RDFXMLParser();
+            parser.setValueFactory(InterningValueFactory.getShared());
+            parser.setVerifyData(true);
+            parser.setStopAtFirstError(false);
+            return parser;
+        }
+    };
+
+    // largest text field of the file each thread parsed last; files are parsed in parallel
+    private static final ThreadLocal<long[]> LARGEST_TEXT_SIZE = new ThreadLocal<long[]>() {
+        protected long[] initialValue() {
+            return new long[1];
+        }
+    };
+
+    /**
+     * Size of the largest text field in the file the calling thread parsed last
+     */
     public static long getLargestTextSize() {
-        return largestTextSize;
+        return LARGEST_TEXT_SIZE.get()[0];
     }
 
-    public static HashMap<String, HashMap<String, ArrayList<String>>> parse(final File file, ErrorReport errorReport,
+    /**
+     * Parse the file and collect all of its documents. Key is object URI, Value is
+     * a set of key-value pairs that describe the object
+     */
+    public static HashMap<String, SolrDocument> parse(final File file, ErrorReport errorReport,
             LinkCollector linkCollector, RDFIndexerConfig config) throws IOException {
 
-        largestTextSize = 0;
-        RDFXMLParser parser = new RDFXMLParser();
+        final HashMap<String, SolrDocument> docHash = new HashMap<String, SolrDocument>();
+        parse(file, errorReport, linkCollector, config, new IDocumentConsumer() {
+            public void handleDocument(String uri, SolrDocument document) {
+                docHash.put(uri, document);
+            }
+        });
+        return docHash;
+    }
+
+    /**
+     * Parse the file and pass each document to the <code>consumer</code> as soon as it is
+     * complete, so only one document of the file is held in memory at a time.
+     */
+    public static void parse(final File file, ErrorReport errorReport, LinkCollector linkCollector,
+            RDFIndexerConfig config, IDocumentConsumer consumer) throws IOException {
+
+        LARGEST_TEXT_SIZE.get()[0] = 0;
+        RDFXMLParser parser = PARSER.get();
         NinesStatementHandler statementHandler = new NinesStatementHandler(errorReport, linkCollector, config);
         statementHandler.setFile(file);
+        statementHandler.setDocumentConsumer(consumer);
 
         parser.setRDFHandler(statementHandler);
         parser.setParseErrorListener( new ParseListener(file, errorReport));
-        parser.setVerifyData(true);
-        parser.setStopAtFirstError(false);
 
         // parse file
+        Reader reader = null;
         try {
-            
-            String content = validateContent(file, errorReport);
-            parser.parse( new StringReader(content), "http://foo/" + file.getName());
+
+            reader = openContent(file, errorReport);
+            parser.parse( reader, "http://foo/" + file.getName());
 
         } catch (RDFParseException e) {
             errorReport.addError(new IndexerError(file.getName(), "", "Parse Error on Line " + e.getLineNumber() + ": "
                     + e.getMessage()));
         } catch (RDFHandlerException e) {
             errorReport.addError(new IndexerError(file.getName(), "", "StatementHandler Exception: " + e.getMessage()));
+        } catch (IOException e) {
+            errorReport.addError(new IndexerError(file.getName(), "", "Error reading content: " + e.getMessage()));
         } catch (Exception e) {
             errorReport.addError(new IndexerError(file.getName(), "", "RDF Parser Error: " + e.getMessage()));
             e.printStackTrace();
+        } finally {
+            IOUtils.closeQuietly(reader);
         }
 
-        // retrieve parsed data
-        HashMap<String, HashMap<String, ArrayList<String>>> docHash = statementHandler.getDocuments( config.isPagesArchive() );
-
-        // process tags
-        Collection<HashMap<String, ArrayList<String>>> documents = docHash.values();
-        for (HashMap<String, ArrayList<String>> document : documents) {
-
-            // normalize tags, replace spaces with dashes, lowercase
-            ArrayList<String> tags = document.remove("tag");
-            if (tags != null) {
-                for (int i = 0; i < tags.size(); i++) {
-                    String tag = tags.get(i);
-                    tag = tag.toLowerCase();
-                    tag = tag.replaceAll(" ", "-");
-                    tags.set(i, tag);
-                }
-                // username is archive name
-                String archive = document.get("archive").get(0);
-                ArrayList<String> nameList = new ArrayList<String>();
-                nameList.add(archive);
-                document.put("username", nameList);
-                document.put(archive + "_tag", tags);
-            }
-        }
+        // a failed parse never reaches endRDF; pass along whatever was read
+        statementHandler.finishDocument();
 
-        largestTextSize = statementHandler.getLargestTextSize();
-        return docHash;
+        LARGEST_TEXT_SIZE.get()[0] = statementHandler.getLargestTextSize();
     }
 
-    private static String validateContent(File file, ErrorReport errorReport) {
-        InputStreamReader is = null;
-        try {
-            Charset cs = Charset.availableCharsets().get("UTF-8");
-            CharsetDecoder decoder = cs.newDecoder();
-            decoder.onMalformedInput(CodingErrorAction.REPLACE);
-            decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
-            
-            is = new InputStreamReader(new FileInputStream(file), decoder);
-            String content = IOUtils.toString(is);
-
-            // look for unescaped sequences and flag them as trouble
-            String unescaped = StringEscapeUtils.unescapeXml(content);
-            int startPos = 0;
-            while ( true ) {
-              int pos = unescaped.indexOf("&#", startPos);
-              if (pos > -1) {
-                String snip = unescaped.substring(Math.max(0, pos-25), Math.min(unescaped.length(), pos+25));
-                IndexerError e = new IndexerError(file.getName(), "","Potentially Invalid Escape sequence.\n   Position: [" +
-                    pos + "]\n   Snippet: [" +
-                    snip + "]");
-                errorReport.addError(e);
-                startPos = pos+2;
-              } else {
-                break;
-              }
-            }
-            
-        
-            return content;
-        } catch (IOException e) {
-            errorReport.addError(new IndexerError(file.getName(), "", "Error validating content: " + e.getMessage()));
-        } finally {
-            IOUtils.closeQuietly(is);
-        }
-        return "";
+    /**
+     * Open the file as a stream of UTF-8 text. Malformed input is replaced
+     * rather than rejected, and potentially invalid escape sequences are
+     * flagged in the error report as the content streams into the parser.
+     */
+    private static Reader openContent(File file, ErrorReport errorReport) throws IOException {
+        CharsetDecoder decoder = UTF8.newDecoder();
+        decoder.onMalformedInput(CodingErrorAction.REPLACE);
+        decoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+        Reader is = new InputStreamReader(new FileInputStream(file), decoder);
+        return new EscapeCheckingReader(is, file.getName(), errorReport);
     }
     
     private static final class ParseListener implements ParseErrorListener {
@@ -149,13 +143,19 @@ public class RdfDocumentParser {
             this.file = file;
         }
         public void warning(String msg, int lineNo, int colNo) {
-            this.errorReport.addError(new IndexerError(file.getName(), "", 
-                "Parse warning at line "+lineNo+", col "+colNo+" : " + msg));   
+            if (this.errorReport.countIfFull(ErrorReport.PARSE_WARNING, file.getName(), "")) {
+                return;
+            }
+            this.errorReport.report(file.getName(), "",
+                "Parse warning at line "+lineNo+", col "+colNo+" : " + msg, ErrorReport.PARSE_WARNING);
         }
 
         public void error(String msg, int lineNo, int colNo) {
-            this.errorReport.addError(new IndexerError(file.getName(), "", 
-                "Parse error at line "+lineNo+", col "+colNo+" : " + msg)); 
+            if (this.errorReport.countIfFull(ErrorReport.PARSE_ERROR, file.getName(), "")) {
+                return;
+            }
+            this.errorReport.report(file.getName(), "",
+                "Parse error at line "+lineNo+", col "+colNo+" : " + msg, ErrorReport.PARSE_ERROR);
         }
 
         public void fatalError(String msg, int lineNo, int colNo) {
@@ -0,0 +1,199 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Registry of the RDF predicates supported by the indexer, and the solr
+ * field each one populates. The statement handler dispatches on it, and the
+ * validation messages and solr field lists are derived from it, so a
+ * predicate only has to be described here.
+ */
+final class RdfSchema {
+
+    static final String COLLEX = "http://www.collex.org/schema#";
+    static final String NINES = "http://www.nines.org/schema#";
+    static final String DC = "http://purl.org/dc/elements/1.1/";
+    static final String DCTERMS = "http://purl.org/dc/terms/";
+    static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    static final String RDFS = "http://www.w3.org/2000/01/rdf-schema#";
+    static final String RELATORS = "http://www.loc.gov/loc.terms/relators/";
+
+    static final String RDF_TYPE = RDF + "type";
+    static final String RDF_VALUE = RDF + "value";
+    static final String RDFS_LABEL = RDFS + "label";
+    static final String COLLEX_TEXT = COLLEX + "text";
+
+    /**
+     * How the statement handler treats the object of a predicate
+     */
+    enum Handling {
+        FIELD,          // object is added to the field as-is
+        FEDERATION,
+        OCR,
+        TYPEWRIGHT,
+        FREECULTURE,
+        PAGES,
+        FULLTEXT,
+        TITLE,
+        GENRE,
+        DATE,
+        EDITION_DATE,
+        TEXT,
+        COVERAGE,
+        ROLE
+    }
+
+    /**
+     * A supported predicate
+     */
+    static final class Property {
+        final String uri;
+        final String term;      // prefixed name as it appears in the RDF, ex: dc:title
+        final String field;     // solr field the predicate populates
+        final Handling handling;
+
+        private Property(String prefix, String namespace, String name, String field, Handling handling) {
+            this.uri = namespace + name;
+            this.term = prefix + ":" + name;
+            this.field = field;
+            this.handling = handling;
+        }
+    }
+
+    // all MARC relator codes that are accepted as role_XXX fields
+    private static final String[] ROLE_CODES = new String[] {
+        "ABR", "ACP", "ACT", "ADI", "ADP", "AFT", "ANL", "ANM", "ANN", "ANT",
+        "APE", "APL", "APP", "AQT", "ARC", "ARD", "ARR", "ART", "ASG", "ASN",
+        "ATO", "ATT", "AUC", "AUD", "AUI", "AUS", "AUT", "BDD", "BJD", "BKD",
+        "BKP", "BLW", "BND", "BPD", "BRD", "BRL", "BSL", "CAS", "CCP", "CHR",
+        "CLI", "CLL", "CLR", "CLT", "CMM", "CMP", "CMT", "CND", "CNG", "CNS",
+        "COE", "COL", "COM", "CON", "COR", "COS", "COT", "COU", "COV", "CPC",
+        "CPE", "CPH", "CPL", "CPT", "CRE", "CRP", "CRR", "CRT", "CSL", "CSP",
+        "CST", "CTB", "CTE", "CTG", "CTR", "CTS", "CTT", "CUR", "CWT", "DBP",
+        "DFD", "DFE", "DFT", "DGG", "DGS", "DIS", "DLN", "DNC", "DNR", "DPC",
+        "DPT", "DRM", "DRT", "DSR", "DST", "DTC", "DTE", "DTM", "DTO", "DUB",
+        "EDC", "EDM", "EDT", "EGR", "ELG", "ELT", "ENG", "ENJ", "ETR", "EVP",
+        "EXP", "FAC", "FDS", "FLD", "FLM", "FMD", "FMK", "FMO", "FMP", "FND",
+        "FPY", "FRG", "GIS", "HIS", "HNR", "HST", "ILL", "ILU", "INS", "INV",
+        "ISB", "ITR", "IVE", "IVR", "JUD", "JUG", "LBR", "LBT", "LDR", "LED",
+        "LEE", "LEL", "LEN", "LET", "LGD", "LIE", "LIL", "LIT", "LSA", "LSE",
+        "LSO", "LTG", "LYR", "MCP", "MDC", "MED", "MFP", "MFR", "MOD", "MON",
+        "MRB", "MRK", "MSD", "MTE", "MTK", "MUS", "NRT", "OPN", "ORG", "ORM",
+        "OSP", "OTH", "OWN", "PAN", "PAT", "PBD", "PBL", "PDR", "PFR", "PHT",
+        "PLT", "PMA", "PMN", "POP", "PPM", "PPT", "PRA", "PRC", "PRD", "PRE",
+        "PRF", "PRG", "PRM", "PRN", "PRO", "PRP", "PRS", "PRT", "PRV", "PTA",
+        "PTE", "PTF", "PTH", "PTT", "PUP", "RBR", "RCD", "RCE", "RCP", "RDD",
+        "RED", "REN", "RES", "REV", "RPC", "RPS", "RPT", "RPY", "RSE", "RSG",
+        "RSP", "RSR", "RST", "RTH", "RTM", "SAD", "SCE", "SCL", "SCR", "SDS",
+        "SEC", "SGD", "SGN", "SHT", "SLL", "SNG", "SPK", "SPN", "SPY", "SRV",
+        "STD", "STG", "STL", "STM", "STN", "STR", "TCD", "TCH", "THS", "TLD",
+        "TLP", "TRC", "TRL", "TYD", "TYG", "UVP", "VAC", "VDG", "WAC", "WAL",
+        "WAM", "WAT", "WDC", "WDE", "WIN", "WIT", "WPR", "WST"
+    };
+
+    // NOTE: collex:person and collex:geospacial are solr fields, but are
+    // not accepted in the RDF so they are deliberately absent here
+    private static final Property[] PROPERTIES = new Property[] {
+        new Property("collex", COLLEX, "archive", "archive", Handling.FIELD),
+        new Property("collex", COLLEX, "federation", "federation", Handling.FEDERATION),
+        new Property("collex", COLLEX, "freeculture", "freeculture", Handling.FREECULTURE),
+        new Property("collex", COLLEX, "ocr", "is_ocr", Handling.OCR),
+        new Property("collex", COLLEX, "fulltext", "has_full_text", Handling.FULLTEXT),
+        new Property("collex", COLLEX, "typewright", "typewright", Handling.TYPEWRIGHT),
+        new Property("collex", COLLEX, "pages", "has_pages", Handling.PAGES),
+        new Property("collex", COLLEX, "pagenum", "page_num", Handling.FIELD),
+        new Property("collex", COLLEX, "pageof", "page_of", Handling.FIELD),
+        new Property("collex", COLLEX, "source_xml", "source_xml", Handling.FIELD),
+        new Property("collex", COLLEX, "source_html", "source_html", Handling.FIELD),
+        new Property("collex", COLLEX, "source_sgml", "source_sgml", Handling.FIELD),
+        new Property("collex", COLLEX, "genre", "genre", Handling.GENRE),
+        new Property("collex", COLLEX, "discipline", "discipline", Handling.FIELD),
+        new Property("collex", COLLEX, "thumbnail", "thumbnail", Handling.FIELD),
+        new Property("collex", COLLEX, "image", "image", Handling.FIELD),
+        new Property("collex", COLLEX, "text", "text", Handling.TEXT),
+        new Property("collex", COLLEX, "reviewdate", "reviewdate", Handling.FIELD),
+        new Property("collex", COLLEX, "dateofedition", "edition_year", Handling.EDITION_DATE),
+        new Property("dc", DC, "title", "title", Handling.TITLE),
+        new Property("dc", DC, "date", "year", Handling.DATE),
+        new Property("dc", DC, "type", "doc_type", Handling.FIELD),
+        new Property("dc", DC, "source", "source", Handling.FIELD),
+        new Property("dc", DC, "format", "format", Handling.FIELD),
+        new Property("dc", DC, "language", "language", Handling.FIELD),
+        new Property("dc", DC, "provenance", "provenance", Handling.FIELD),
+        new Property("dc", DC, "subject", "subject", Handling.FIELD),
+        new Property("dc", DC, "coverage", "coverage", Handling.COVERAGE),
+        new Property("dc", DC, "description", "description", Handling.FIELD),
+        new Property("dcterms", DCTERMS, "alternative", "alternative", Handling.FIELD),
+        new Property("dcterms", DCTERMS, "hasPart", "hasPart", Handling.FIELD),
+        new Property("dcterms", DCTERMS, "isPartOf", "isPartOf", Handling.FIELD),
+        new Property("rdfs", RDFS, "seeAlso", "url", Handling.FIELD)
+    };
+
+    /**
+     * All valid role_XXX solr fields
+     */
+    static final List<String> ROLE_FIELDS;
+    private static final HashSet<String> ROLE_SET = new HashSet<String>();
+
+    private static final HashMap<String, Property> BY_URI = new HashMap<String, Property>();
+    private static final HashMap<String, Property> BY_FIELD = new HashMap<String, Property>();
+    static {
+        ArrayList<String> roles = new ArrayList<String>(ROLE_CODES.length);
+        for (String code : ROLE_CODES) {
+            String field = "role_" + code;
+            roles.add(field);
+            BY_URI.put(RELATORS + code, new Property("role", RELATORS, code, field, Handling.ROLE));
+        }
+        ROLE_FIELDS = Collections.unmodifiableList(roles);
+        ROLE_SET.addAll(roles);
+
+        for (Property property : PROPERTIES) {
+            BY_URI.put(property.uri, property);
+            BY_FIELD.put(property.field, property);
+        }
+    }
+
+    private RdfSchema() {
+    }
+
+    /**
+     * Get the supported property for a predicate URI, or null if it is not supported
+     */
+    static Property property(final String uri) {
+        return BY_URI.get(uri);
+    }
+
+    /**
+     * Check if <code>field</code> is one of the valid role_XXX fields
+     */
+    static boolean isRoleField(final String field) {
+        return ROLE_SET.contains(field);
+    }
+
+    /**
+     * Get the prefixed RDF term that populates the solr <code>field</code>, ex: dc:title for title
+     */
+    static String termForField(final String field) {
+        Property property = BY_FIELD.get(field);
+        return (property == null ? field : property.term);
+    }
+}
@@ -15,18 +15,31 @@
  **/
 package org.nines;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
+import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.util.PDFTextStripper;
+import org.apache.log4j.Logger;
 import org.openrdf.model.Statement;
 import org.openrdf.rio.ParseErrorListener;
 import org.openrdf.rio.RDFHandler;
@@ -37,39 +50,152 @@ import org.openrdf.rio.rdfxml.RDFXMLParser;
 /**
  * RDF document parser that only handles full text fields. It will
  * spider out to external sites, scrape text and write it to the
- * solr raw text directory
+ * solr raw text directory.
+ * <p>
+ * The text URLs of a file are found by a streaming TextUrlScanner; only
+ * files using RDF/XML that the scanner does not handle get a full RDF
+ * parse. Finding the URLs only queues them; each one is handed to a pool of fetch
+ * workers that share pooled connections. A HostThrottle queues the URLs per
+ * host and only passes one to the pool when its host may take another
+ * request, and a bounded number of URLs wait so the parser cannot run far
+ * ahead of the fetches. Call {@link #finish()} once
+ * all files have been spidered.
+ * <p>
+ * A SpiderCache next to the archive's raw text directory remembers the
+ * validators and content hash of every text fetched, so texts that did not
+ * change since the last run are neither downloaded nor rewritten.
+ * <p>
+ * When the config asks for it, each text is also cleaned as soon as it is
+ * fetched: the spooled body is read once and the bytes go straight through
+ * a RawTextCleaner into the archive's fulltext directory, so no CLEAN_RAW
+ * run has to walk the raw text tree and read every file again. Each fetch
+ * worker has its own cleaner.
  * 
  * @author loufoster
  *
  */
 final class RdfTextSpider implements RDFHandler {
 
+    private static final Logger log = Logger.getLogger(RdfTextSpider.class.getName());
+    private static final int TIMEOUT_MS = 30 * 1000;
+
+    // URLs waiting for a fetch worker, per worker
+    private static final int PENDING_PER_THREAD = 4;
+
     private ErrorReport errorReport;
     private RDFIndexerConfig config;
     private HttpClient httpClient;
+    private final MultiThreadedHttpConnectionManager connectionManager;
+    private final HostThrottle throttle;
+    private final ThreadPoolExecutor fetchPool;
+    private final Semaphore pending;
+    private final SeenUrlSet seen = new SeenUrlSet();
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private String rawRoot;
+    private SpiderCache cache;
+    private final ExtractionPool extraction;
+    private final TextUrlScanner scanner = new TextUrlScanner();
+    private int scannedFiles = 0;
+    private int parsedFiles = 0;
+    private String fullRoot;
+    private final CleanStats cleanStats = new CleanStats();
+    private final ThreadLocal<RawTextCleaner> cleaner = new ThreadLocal<RawTextCleaner>() {
+        protected RawTextCleaner initialValue() {
+            return new RawTextCleaner(config, errorReport, extraction, cleanStats);
+        }
+    };
     
     public RdfTextSpider(RDFIndexerConfig config, ErrorReport errorReport) {
         this.config = config;
         this.errorReport = errorReport;
-        this.httpClient = new HttpClient();
+
+        this.connectionManager = new MultiThreadedHttpConnectionManager();
+        this.connectionManager.getParams().setDefaultMaxConnectionsPerHost(config.spiderPerHost);
+        this.connectionManager.getParams().setMaxTotalConnections(config.spiderThreads);
+        this.connectionManager.getParams().setConnectionTimeout(TIMEOUT_MS);
+        this.connectionManager.getParams().setSoTimeout(TIMEOUT_MS);
+        this.httpClient = new HttpClient(this.connectionManager);
+        // a GET is safe to resend when a pooled connection turns out to be closed
+        this.httpClient.getParams().setParameter(HttpMethodParams.RETRY_HANDLER,
+            new DefaultHttpMethodRetryHandler(1, true));
+
+        this.fetchPool = new ThreadPoolExecutor(config.spiderThreads, config.spiderThreads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>());
+        this.throttle = new HostThrottle(config.spiderPerHost, config.spiderHostDelay, this.fetchPool);
+        this.pending = new Semaphore(config.spiderThreads * PENDING_PER_THREAD);
+        this.extraction = new ExtractionPool(config, errorReport);
+
+        this.rawRoot = findRawTextRoot();
+        if (this.rawRoot == null) {
+            this.errorReport.addError(new IndexerError(config.sourceDir.toString(), "",
+                "Unable to find the raw text directory; the source must be in an rdf directory"));
+            return;
+        }
+        this.fullRoot = this.rawRoot.substring(0, this.rawRoot.length() - "rawtext/".length()) + "fulltext/";
+        File cacheFile = new File(this.rawRoot + RDFIndexerConfig.safeArchive(config.archiveName) + "_spider_cache.txt");
+        try {
+            this.cache = SpiderCache.load(cacheFile);
+        } catch (IOException e) {
+            this.errorReport.addError(new IndexerError(cacheFile.toString(), "", "Unable to read spider cache; "
+                + "all texts will be fetched: " + e.toString()));
+            this.cache = SpiderCache.empty(cacheFile);
+        }
+        log.info("Spider cache " + cacheFile + " holds " + this.cache.size() + " texts");
     }
     
     /**
-     * Parse the RDF file for the text field. Spider the URL specifed and
-     * write text from this site to the raw text files.
+     * Scan the RDF file for the text field. Spider the URL specifed and
+     * write text from this site to the raw text files. The fetches may
+     * still be running when this returns.
      * 
      * @param file
      */
     public void spider( final File file ) {
+        if (this.rawRoot == null) {
+            return;
+        }
+        List<String> texts;
+        try {
+            texts = this.scanner.scan(file);
+        } catch (IOException e) {
+            errorReport.addError(new IndexerError(file.getName(), "", "Unable to read RDF file: " + e.getMessage()));
+            return;
+        }
+        if (texts == null) {
+            log.info("Full parse of " + file + " to find its text URLs");
+            this.parsedFiles++;
+            parse(file);
+            return;
+        }
+        this.scannedFiles++;
+        try {
+            for (String text : texts) {
+                if (isTextUrl(text)) {
+                    queue(text);
+                }
+            }
+        } catch (RDFHandlerException e) {
+            errorReport.addError(new IndexerError(file.getName(), "", "StatementHandler Exception: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Parse the RDF file with the full RDF parser, queuing its text URLs
+     */
+    private void parse( final File file ) {
         RDFXMLParser parser = new RDFXMLParser();
         parser.setRDFHandler( this );
         parser.setParseErrorListener( new ParseListener(file, errorReport));
         parser.setVerifyData(true);
         parser.setStopAtFirstError(false);
 
+        InputStreamReader is = null;
         try {
             
-            InputStreamReader is = new InputStreamReader(new FileInputStream(file) );
+            is = new InputStreamReader(new FileInputStream(file) );
             parser.parse( is, "http://foo/" + file.getName());
 
         } catch (RDFParseException e) {
@@ -80,9 +206,85 @@ final class RdfTextSpider implements RDFHandler {
         } catch (Exception e) {
             errorReport.addError(new IndexerError(file.getName(), "", "RDF Parser Error: " + e.getMessage()));
             e.printStackTrace();
+        } finally {
+            IOUtils.closeQuietly(is);
         }
     }
 
+    /**
+     * Wait for all queued fetches to complete and release the connections
+     */
+    public void finish() {
+        try {
+            while (this.throttle.awaitIdle(1, TimeUnit.MINUTES) == false) {
+                log.info("Spidered " + this.fetched.get() + " texts, " + this.throttle.getOutstandingCount()
+                    + " waiting");
+            }
+            this.fetchPool.shutdown();
+            this.fetchPool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            this.throttle.cancel();
+            this.fetchPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            this.throttle.shutdown();
+            this.fetchPool.shutdown();
+        }
+        this.connectionManager.shutdown();
+        this.extraction.shutdown();
+        this.seen.close();
+        if (this.cache != null) {
+            try {
+                this.cache.save();
+            } catch (IOException e) {
+                this.errorReport.addError(new IndexerError(this.cache.getFile().toString(), "",
+                    "Unable to write spider cache: " + e.toString()));
+            }
+        }
+        log.info("Found text URLs in " + this.scannedFiles + " files by scanning and " + this.parsedFiles
+            + " by full parse");
+        log.info("Spider complete: " + this.fetched.get() + " texts current (" + this.notModified.get()
+            + " not modified, " + this.unchanged.get() + " unchanged), " + this.failed.get() + " failed; "
+            + this.seen.getDuplicateCount() + " duplicate text URLs skipped, "
+            + this.extraction.getQuarantinedCount() + " quarantined");
+        if (this.config.spiderClean) {
+            log.info("Cleaned as spidered (Original Size: " + this.cleanStats.getOriginalLength()
+                + ", Cleaned Size: " + this.cleanStats.getCleanedLength() + ", Total Files Cleaned: "
+                + this.cleanStats.getTotalFilesChanged() + ", Unchanged Files Skipped: "
+                + this.cleanStats.getTotalFilesSkipped() + ")");
+        }
+    }
+
+    /**
+     * Number of files that needed a full RDF parse to find their text URLs
+     */
+    public int getParsedCount() {
+        return this.parsedFiles;
+    }
+
+    public int getFetchedCount() {
+        return this.fetched.get();
+    }
+
+    public int getFailedCount() {
+        return this.failed.get();
+    }
+
+    public int getNotModifiedCount() {
+        return this.notModified.get();
+    }
+
+    public int getUnchangedCount() {
+        return this.unchanged.get();
+    }
+
+    /**
+     * Number of text URLs that were not fetched because they were already seen in this run
+     */
+    public long getDuplicateCount() {
+        return this.seen.getDuplicateCount();
+    }
+
     /**
      * Handle RDF statements. This only cares about TEXT statements and will scrape
      * text from the URL specified.
@@ -102,132 +304,285 @@ final class RdfTextSpider implements RDFHandler {
             return;
         }
         
-        // only care if it looks like a URL and is not a PDF
-        if (object.startsWith("http://") ) {
-            getRawText(object);  
+        // only care if it looks like a URL
+        if (isTextUrl(object)) {
+            queue(object);
+        }
+    }
+
+    private static boolean isTextUrl(final String object) {
+        return object.startsWith("http://");
+    }
+
+    /**
+     * Hand a text URL to the fetch workers, waiting while too many are pending.
+     * Each URL is only fetched once per run, no matter how many objects or files share it.
+     */
+    private void queue(final String urlString) throws RDFHandlerException {
+        try {
+            if (this.seen.add(urlString) == false) {
+                return;
+            }
+        } catch (IOException e) {
+            // the URL may be fetched again; that is only wasteful
+            log.error("Unable to record spidered URL " + urlString + ": " + e.toString());
         }
+        try {
+            this.pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RDFHandlerException("Interrupted while waiting to spider " + urlString);
+        }
+        this.throttle.submit(HostThrottle.hostOf(urlString), new Runnable() {
+            public void run() {
+                try {
+                    if (getRawText(urlString)) {
+                        int cnt = fetched.incrementAndGet();
+                        if (cnt % 1000 == 0) {
+                            log.info("Spidered " + cnt + " texts");
+                        }
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                } finally {
+                    pending.release();
+                }
+            }
+        });
     }
     
     /**
      * Get the full text from an external site an write it untouched to the
      * rawtext area of the solr sources. If any errors occur,leave any
-     * prior versions of the rawtext untouched, log the errors and return
+     * prior versions of the rawtext untouched, log the errors and return.
+     * A text fetched before is only requested if it changed since, and an
+     * unchanged text is not written again. The text is spooled to a temporary
+     * file first. When cleaning as spidered, a new text is read back from
+     * that file once and cleaned from memory; a text that is current but was
+     * never cleaned is cleaned from its raw text file.
      * @param urlString
-     * @return
+     * @return true if the raw text file is up to date
      */
-    private void getRawText(String urlString) {
-
-        String rawFile = urlString.replaceAll("/", "SL");;
-        rawFile = rawFile.replace(":", "CL");
-        rawFile = rawFile.replace("?", "QU");
-        rawFile = rawFile.replace("=", "EQ");
-        rawFile = rawFile.replace("&", "AMP");
-        rawFile = rawFile + ".txt";
-        String rawRoot = findRawTextRoot();
-        rawRoot += RDFIndexerConfig.safeArchive( this.config.archiveName );
-        File urlFile = new File(rawRoot + "/"+ rawFile );
+    private boolean getRawText(String urlString) {
+
+        String rawFile = TextFileNames.encode(urlString) + TextFileNames.EXTENSION;
+        File urlFile = new File(this.rawRoot + RDFIndexerConfig.safeArchive( this.config.archiveName ) + "/"+ rawFile );
+        SpiderCache.Entry prior = (urlFile.exists() ? this.cache.get(urlString) : null);
+
+        // Make sure that the directory structure leadign up 
+        // to the detination file exists
+        if ( urlFile.getParentFile().exists() == false) {
+            if ( urlFile.getParentFile().mkdirs() == false ) {
+                // another worker may have just created it
+                if ( urlFile.getParentFile().isDirectory() == false ) {
+                    this.errorReport.addError(
+                        new IndexerError(urlFile.toString(), urlString, "Unable to create raw text file"));
+                    return false;
+                }
+            }
+        }
         
         // scrape the content from remote host...
-        byte[] bytes = null;
+        GetMethod get = new GetMethod(urlString);
+        if (prior != null) {
+            if (prior.etag != null) {
+                get.setRequestHeader("If-None-Match", prior.etag);
+            }
+            if (prior.lastModified != null) {
+                get.setRequestHeader("If-Modified-Since", prior.lastModified);
+            }
+        }
+        File textFile = null;
         try {
+            textFile = File.createTempFile("spider", ".tmp", new File(this.rawRoot));
+            boolean modified;
             if (urlString.endsWith(".pdf") || urlString.endsWith(".PDF")) {
-                bytes = scrapeExternalPDF(urlString);;
+                modified = scrapeExternalPDF(get, textFile);
             } else {
-                bytes = scrapeExternalText(urlString);
+                modified = scrapeExternalText(get, textFile);
+            }
+            long now = System.currentTimeMillis();
+            String etag = header(get, "ETag");
+            String lastModified = header(get, "Last-Modified");
+
+            // not modified; the raw text on disk is still current. Nothing was
+            // asked for conditionally without one, so the server is confused
+            if (modified == false && prior == null) {
+                throw new IOException("304 code returned for URL with no prior text: " + urlString);
+            }
+            if (modified == false) {
+                this.cache.put(urlString, new SpiderCache.Entry(etag != null ? etag : prior.etag,
+                    lastModified != null ? lastModified : prior.lastModified, prior.hash, now));
+                this.notModified.incrementAndGet();
+                cleanCurrent(urlFile);
+                return true;
+            }
+            byte[] raw = null;
+            String hash;
+            if (this.config.spiderClean) {
+                raw = FileUtils.readFileToByteArray(textFile);
+                hash = SpiderCache.hash(raw);
+            } else {
+                hash = SpiderCache.hash(textFile);
+            }
+            SpiderCache.Entry entry = new SpiderCache.Entry(etag, lastModified, hash, now);
+            if (prior != null && hash.equals(prior.hash)) {
+                this.cache.put(urlString, entry);
+                this.unchanged.incrementAndGet();
+                cleanCurrent(urlFile);
+                return true;
+            }
+
+            // At this point, we have new data. Replace the old - deleting
+            // it does nothing if the file does not yet exist
+            urlFile.delete();
+            if (textFile.renameTo(urlFile) == false) {
+                FileUtils.copyFile(textFile, urlFile);
             }
+            // only remembered once on disk, so a failed write is fetched in full next time
+            this.cache.put(urlString, entry);
+
+            // the clean text is written after the raw text, so it is never older
+            if (raw != null) {
+                this.cleaner.get().clean(urlFile, raw, toFullTextFile(urlFile));
+            }
+            return true;
+        } catch (ExtractionPool.QuarantinedException e) {
+            // already listed in the error report
+            return false;
         } catch (IOException e) {
             this.errorReport.addError(
                 new IndexerError( "", urlString, "Unable to create get external text: "+e.toString()));
-            return;
-        }        
-               
-        // At this point, we have new data. Delete the old - this does
-        // nothing if the file does not yet exist
-        urlFile.delete();
-
-        // Make sure that the directory structure leadign up 
-        // to the detination file exists
-        if ( urlFile.getParentFile().exists() == false) {
-            if ( urlFile.getParentFile().mkdirs() == false ) {
-                this.errorReport.addError(
-                    new IndexerError(urlFile.toString(), urlString, "Unable to create raw text file"));
-                return;
+            return false;
+        } finally {
+            if (textFile != null) {
+                textFile.delete();
             }
         }
-            
-        // dump the content to the file
-        try {
-            IOUtils.write(bytes, new FileOutputStream(urlFile));
-        } catch (IOException e) {
-            this.errorReport.addError(
-                new IndexerError(urlFile.toString(), urlString, "Unable to create get external text: "+e.toString()));
-        }    
     }
     
+    /**
+     * When cleaning as spidered, clean a raw text file that is current but
+     * may not have been cleaned yet, such as one spidered before cleaning as
+     * spidered was turned on. The cleaner skips it if it is already clean.
+     */
+    private void cleanCurrent(final File urlFile) {
+        if (this.config.spiderClean) {
+            this.cleaner.get().clean(urlFile, toFullTextFile(urlFile));
+        }
+    }
+
+    /**
+     * The fulltext file for a raw text file, as CLEAN_RAW would name it
+     */
+    private File toFullTextFile(final File urlFile) {
+        return new File(this.fullRoot + RDFIndexerConfig.safeArchive(this.config.archiveName) + "/" + urlFile.getName());
+    }
+
     /**
      * find the full path to the raw text root baseed on 
      * the full path to the original rdf sources
-     * @return
+     * @return The root, or null if the sources are not in an rdf tree
      */
     private String findRawTextRoot() {
         String path = this.config.sourceDir.toString();
         int pos = path.indexOf("/rdf/");
+        if (pos == -1) {
+            return null;
+        }
         path = path.substring(0, pos) + "/rawtext/";
         return path;
     }
+
+    /**
+     * Execute the request; only a full or a not modified response is accepted
+     */
+    private int execute(final GetMethod get) throws IOException {
+        int result = this.httpClient.executeMethod(get);
+        if (result != HttpStatus.SC_OK && result != HttpStatus.SC_NOT_MODIFIED) {
+            throw new IOException(result + " code returned for URL: " + get.getURI());
+        }
+        return result;
+    }
+
+    private static String header(final GetMethod get, final String name) {
+        Header header = get.getResponseHeader(name);
+        return (header == null ? null : header.getValue());
+    }
+
+    /**
+     * Copy the response body to <code>file</code>, failing once more than <code>maxBytes</code> arrive
+     */
+    private static void spool(final GetMethod get, final File file, final long maxBytes) throws IOException {
+        long length = get.getResponseContentLength();
+        if (maxBytes > 0 && length > maxBytes) {
+            throw new IOException("Content of " + length + " bytes exceeds the limit of " + maxBytes);
+        }
+        InputStream is = get.getResponseBodyAsStream();
+        OutputStream os = new BufferedOutputStream(new FileOutputStream(file), 64 * 1024);
+        try {
+            if (is == null) {
+                return;
+            }
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int cnt;
+            while ((cnt = is.read(buffer)) != -1) {
+                total += cnt;
+                if (maxBytes > 0 && total > maxBytes) {
+                    get.abort();
+                    throw new IOException("Content exceeds the limit of " + maxBytes + " bytes");
+                }
+                os.write(buffer, 0, cnt);
+            }
+        } finally {
+            IOUtils.closeQuietly(is);
+            os.close();
+        }
+    }
     
     /**
-     * Extract the text from the specified URI
-     * @param url
-     * @return
+     * Write the text from the specified URI to <code>textFile</code>
+     * @param get
+     * @return false if it was not modified
      */
-    private byte[] scrapeExternalText(final String url) throws IOException {
-        GetMethod get = new GetMethod(url);
-        int result;
+    private boolean scrapeExternalText(final GetMethod get, final File textFile) throws IOException {
         try {
-            result = this.httpClient.executeMethod(get);
-            if (result != 200) {
-                throw new IOException(result + " code returned for URL: " + url);
+            if (execute(get) == HttpStatus.SC_NOT_MODIFIED) {
+                return false;
             }
-            return IOUtils.toByteArray( get.getResponseBodyAsStream() );
-        } catch (IOException e ) {
-            throw e; // just rethrow it
+            spool(get, textFile, 0);
+            return true;
         } finally {
             get.releaseConnection();
         }
     }
     
     /**
-     * Extract the text from the PDF specified by the URI
-     * @param uri
-     * @return
+     * Write the text of the PDF specified by the URI to <code>textFile</code>
+     * as UTF-8. The PDF is spooled to a temporary file, up to the configured
+     * maximum size, and only the configured maximum pages are extracted.
+     * Extraction runs in the extraction pool, under its time and memory limits.
+     * @param get
+     * @return false if it was not modified
      * @throws IOException 
      */
-    private byte[] scrapeExternalPDF( final String uri ) throws IOException {
-        InputStream is = null;
-        GetMethod get = new GetMethod(uri);;
-        PDDocument pdfDoc  = null;
+    private boolean scrapeExternalPDF( final GetMethod get, final File textFile ) throws IOException {
+        File pdfFile = null;
         try {
-            int result;
-            result = httpClient.executeMethod(get);
-            if (result != 200) {
-                throw new IOException(result + " code returned for URL: " + uri);
+            if (execute(get) == HttpStatus.SC_NOT_MODIFIED) {
+                return false;
             }
-            is = get.getResponseBodyAsStream();
-            pdfDoc = PDDocument.load(is);
-            PDFTextStripper pdfStrip = new PDFTextStripper();
-            return pdfStrip.getText( pdfDoc ).getBytes();
-            
-        } catch (IOException e ) {
-            throw e; // just rethrow it
+            pdfFile = File.createTempFile("spider", ".pdf", textFile.getParentFile());
+            spool(get, pdfFile, this.config.pdfMaxBytes);
+            get.releaseConnection();
+            this.extraction.extractPdf(pdfFile, textFile, get.getURI().toString());
+            return true;
         } finally {
-            try{
-                get.releaseConnection();
-                IOUtils.closeQuietly(is);
-                if ( pdfDoc != null ) {
-                    pdfDoc.close();
-                }
-            } catch (Exception e) {}
+            get.releaseConnection();
+            if (pdfFile != null) {
+                pdfFile.delete();
+            }
         }
     }
 
@@ -263,13 +618,19 @@ final class RdfTextSpider implements RDFHandler {
             this.file = file;
         }
         public void warning(String msg, int lineNo, int colNo) {
-            this.errorReport.addError(new IndexerError(file.getName(), "", 
-                "Parse warning at line "+lineNo+", col "+colNo+" : " + msg));   
+            if (this.errorReport.countIfFull(ErrorReport.PARSE_WARNING, file.getName(), "")) {
+                return;
+            }
+            this.errorReport.report(file.getName(), "",
+                "Parse warning at line "+lineNo+", col "+colNo+" : " + msg, ErrorReport.PARSE_WARNING);
         }
 
         public void error(String msg, int lineNo, int colNo) {
-            this.errorReport.addError(new IndexerError(file.getName(), "", 
-                "Parse error at line "+lineNo+", col "+colNo+" : " + msg)); 
+            if (this.errorReport.countIfFull(ErrorReport.PARSE_ERROR, file.getName(), "")) {
+                return;
+            }
+            this.errorReport.report(file.getName(), "",
+                "Parse error at line "+lineNo+", col "+colNo+" : " + msg, ErrorReport.PARSE_ERROR);
         }
 
         public void fatalError(String msg, int lineNo, int colNo) {
@@ -0,0 +1,345 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Validates solr documents against rules that are compiled once into field
+ * id lookups and hash sets, so each document is checked in a single pass
+ * over its fields. The built in rules mirror the lists in
+ * {@link ValidationUtility}; a rules file can replace or extend them.
+ * Rules are properties whose values are lists separated by <code>;</code>:
+ * <pre>
+ * required=archive;title;...      fields every object must have
+ * required.pages=text;...         fields every page must have
+ * exactly_one=archive             fields that must have exactly one value
+ * max_one=title;url;thumbnail     fields that keep only their first value
+ * values.genre=Poetry;...         approved values of a field
+ * values.genre.add=Zine           approved values added to the built in ones
+ * label.doc_type=type             name of the field used in messages
+ * roles.add=role_XYZ              role fields added to the known relators
+ * </pre>
+ */
+final class SchemaValidator {
+
+    private static final String SEPARATOR = ";";
+    private static final String VALUES = "values.";
+    private static final String LABEL = "label.";
+    private static final String ADD = ".add";
+    private static final String ROLE_PREFIX = "role_";
+
+    private static final SchemaValidator DEFAULT = compile(defaultRules(), false);
+    private static final SchemaValidator DEFAULT_PAGES = compile(defaultRules(), true);
+
+    private final boolean pages;
+
+    // per field id: the bit of a required field, or -1
+    private final int[] requiredBit;
+    private final long requiredMask;
+    private final String[] requiredNames;
+
+    // required fields that have no field id are looked up by name
+    private final String[] otherRequired;
+
+    // per field id: the bit of a field that must have exactly one value, or -1
+    private final int[] exactlyOneBit;
+    private final long exactlyOneMask;
+
+    // per field id: at most one value, a role field, the approved values and their message label
+    private final boolean[] roleField;
+    private final boolean[] maxOne;
+    private final Object[] approved;
+    private final String[] labels;
+
+    private final HashSet<String> roles;
+    private final int uriId = SolrDocument.fieldId("uri");
+    private final int textId = SolrDocument.fieldId("text");
+
+    private SchemaValidator(final Properties rules, final boolean pages) {
+        this.pages = pages;
+        int fieldCount = SolrDocument.fieldCount();
+        this.requiredBit = new int[fieldCount];
+        Arrays.fill(this.requiredBit, -1);
+        this.exactlyOneBit = new int[fieldCount];
+        Arrays.fill(this.exactlyOneBit, -1);
+        this.roleField = new boolean[fieldCount];
+        this.maxOne = new boolean[fieldCount];
+        this.approved = new Object[fieldCount];
+        this.labels = new String[fieldCount];
+
+        List<String> required = list(rules, pages ? "required.pages" : "required");
+        checkSize(required, "required");
+        ArrayList<String> other = new ArrayList<String>();
+        this.requiredNames = new String[required.size()];
+        long mask = 0;
+        for (int i = 0; i < required.size(); i++) {
+            String name = required.get(i);
+            this.requiredNames[i] = name;
+            int id = SolrDocument.fieldId(name);
+            if (id == -1) {
+                other.add(name);
+            } else {
+                this.requiredBit[id] = i;
+                mask |= (1L << i);
+            }
+        }
+        this.requiredMask = mask;
+        this.otherRequired = other.toArray(new String[other.size()]);
+
+        this.roles = new HashSet<String>(RdfSchema.ROLE_FIELDS);
+        this.roles.addAll(list(rules, "roles" + ADD));
+        for (int id = 0; id < fieldCount; id++) {
+            this.roleField[id] = SolrDocument.fieldName(id).startsWith(ROLE_PREFIX);
+        }
+
+        List<String> exactlyOne = (pages ? new ArrayList<String>() : list(rules, "exactly_one"));
+        checkSize(exactlyOne, "exactly_one");
+        mask = 0;
+        for (int i = 0; i < exactlyOne.size(); i++) {
+            this.exactlyOneBit[knownId(exactlyOne.get(i))] = i;
+            mask |= (1L << i);
+        }
+        this.exactlyOneMask = mask;
+        if (pages) {
+            return;
+        }
+        for (String name : list(rules, "max_one")) {
+            this.maxOne[knownId(name)] = true;
+        }
+        for (String key : rules.stringPropertyNames()) {
+            if (key.startsWith(VALUES) && key.endsWith(ADD) == false) {
+                String name = key.substring(VALUES.length());
+                int id = knownId(name);
+                HashSet<String> values = new HashSet<String>(list(rules, key));
+                values.addAll(list(rules, key + ADD));
+                this.approved[id] = values;
+                this.labels[id] = rules.getProperty(LABEL + name, name);
+            }
+        }
+    }
+
+    /**
+     * Compile the validator for objects, or for pages when <code>pagesArchive</code> is set
+     */
+    static SchemaValidator compile(final Properties rules, final boolean pagesArchive) {
+        return new SchemaValidator(rules, pagesArchive);
+    }
+
+    /**
+     * Compile the built in rules overlaid by those in <code>rulesFile</code>
+     */
+    static SchemaValidator load(final File rulesFile, final boolean pagesArchive) throws IOException {
+        Properties rules = defaultRules();
+        Reader reader = new InputStreamReader(new FileInputStream(rulesFile), Charset.forName("UTF-8"));
+        try {
+            rules.load(reader);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+        return compile(rules, pagesArchive);
+    }
+
+    /**
+     * The validator for the built in rules
+     */
+    static SchemaValidator defaultValidator(final boolean pagesArchive) {
+        return (pagesArchive ? DEFAULT_PAGES : DEFAULT);
+    }
+
+    /**
+     * The built in rules, as they would be written in a rules file
+     */
+    static Properties defaultRules() {
+        Properties rules = new Properties();
+        rules.setProperty("required", join(ValidationUtility.REQUIRED_FIELDS));
+        rules.setProperty("required.pages", join(ValidationUtility.REQUIRED_PAGE_FIELDS));
+        rules.setProperty("exactly_one", "archive");
+        rules.setProperty("max_one", join(new String[] { "title", "url", "thumbnail" }));
+        rules.setProperty(VALUES + "genre", join(ValidationUtility.GENRE_LIST));
+        rules.setProperty(VALUES + "discipline", join(ValidationUtility.DISCIPLINE_LIST));
+        rules.setProperty(VALUES + "doc_type", join(ValidationUtility.TYPE_LIST));
+        rules.setProperty(LABEL + "doc_type", "type");
+        return rules;
+    }
+
+    /**
+     * Validate <code>doc</code>, sending each problem found to <code>sink</code>.
+     * Extra values of max_one fields are dropped and a blank page text is removed.
+     */
+    void validate(final SolrDocument doc, final IValidationSink sink) throws IOException {
+        long found = 0;
+        long foundOne = 0;
+        boolean hasRole = false;
+        boolean blankText = false;
+        for (int i = 0; i < doc.size(); i++) {
+            int id = doc.id(i);
+            if (id == -1) {
+                String name = doc.name(i);
+                if (this.pages == false && name.startsWith(ROLE_PREFIX)) {
+                    hasRole = true;
+                    if (this.roles.contains(name) == false) {
+                        sink.message("invalid role: " + name);
+                    }
+                }
+                continue;
+            }
+
+            int bit = this.requiredBit[id];
+            if (bit != -1) {
+                found |= (1L << bit);
+            }
+            if (id == this.uriId) {
+                validateUri(doc, i, sink);
+            }
+            if (this.pages) {
+                if (id == this.textId) {
+                    blankText = doc.isFirstEmpty("text");
+                }
+                continue;
+            }
+
+            int cnt = doc.valueCount(i);
+            bit = this.exactlyOneBit[id];
+            if (bit != -1) {
+                foundOne |= (1L << bit);
+                if (cnt != 1) {
+                    sink.message("must contain exactly one " + SolrDocument.fieldName(id) + " field");
+                }
+            }
+            if (this.approved[id] != null) {
+                @SuppressWarnings("unchecked")
+                HashSet<String> values = (HashSet<String>) this.approved[id];
+                for (int j = 0; j < cnt; j++) {
+                    String value = doc.value(i, j);
+                    if (values.contains(value) == false) {
+                        sink.message(value + " " + this.labels[id] + " not approved by ARC");
+                    }
+                }
+            }
+            if (this.maxOne[id] && cnt > 1) {
+                StringBuilder values = new StringBuilder();
+                for (int j = 0; j < cnt; j++) {
+                    values.append(doc.value(i, j)).append(SEPARATOR);
+                }
+                sink.message("must not contain more than one " + SolrDocument.fieldName(id) + " field:" + values);
+                doc.truncate(SolrDocument.fieldName(id), 1);
+            }
+            if (this.roleField[id]) {
+                hasRole = true;
+                if (this.roles.contains(SolrDocument.fieldName(id)) == false) {
+                    sink.message("invalid role: " + SolrDocument.fieldName(id));
+                }
+            }
+        }
+
+        if ((found & this.requiredMask) != this.requiredMask) {
+            for (int i = 0; i < this.requiredNames.length; i++) {
+                if ((this.requiredMask & (1L << i)) != 0 && (found & (1L << i)) == 0) {
+                    missing(this.requiredNames[i], sink);
+                }
+            }
+        }
+        for (String name : this.otherRequired) {
+            if (doc.has(name) == false) {
+                missing(name, sink);
+            }
+        }
+
+        if (this.pages) {
+            if (blankText) {
+                doc.remove("text");
+                sink.message("Warning - collex:text is blank");
+            }
+            return;
+        }
+        if (foundOne != this.exactlyOneMask) {
+            for (int id = 0; id < this.exactlyOneBit.length; id++) {
+                int bit = this.exactlyOneBit[id];
+                if (bit != -1 && (foundOne & (1L << bit)) == 0) {
+                    sink.message("must contain exactly one " + SolrDocument.fieldName(id) + " field");
+                }
+            }
+        }
+        if (hasRole == false) {
+            sink.message("object must contain at least one role:XXX field");
+        }
+    }
+
+    private static void validateUri(final SolrDocument doc, final int idx, final IValidationSink sink) throws IOException {
+        if (doc.valueCount(idx) > 1) {
+            sink.message("must contain exactly one URI field");
+        }
+        if (doc.value(idx, 0).startsWith("http://foo/")) {
+            sink.message("URI field is not created properly");
+        }
+    }
+
+    private static void missing(final String name, final IValidationSink sink) {
+        sink.message("object must contain the " + RdfSchema.termForField(name) + " field");
+    }
+
+    private static void checkSize(final List<String> fields, final String rule) {
+        if (fields.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " fields can be listed in " + rule);
+        }
+    }
+
+    private static int knownId(final String name) {
+        int id = SolrDocument.fieldId(name);
+        if (id == -1) {
+            throw new IllegalArgumentException("Unknown field in validation rules: " + name);
+        }
+        return id;
+    }
+
+    private static List<String> list(final Properties rules, final String key) {
+        ArrayList<String> values = new ArrayList<String>();
+        String value = rules.getProperty(key);
+        if (value != null) {
+            for (String item : value.split(SEPARATOR)) {
+                item = item.trim();
+                if (item.length() > 0) {
+                    values.add(item);
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String join(final String[] values) {
+        StringBuilder joined = new StringBuilder();
+        for (String value : values) {
+            if (joined.length() > 0) {
+                joined.append(SEPARATOR);
+            }
+            joined.append(value);
+        }
+        return joined.toString();
+    }
+}
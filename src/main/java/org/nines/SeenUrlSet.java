@@ -0,0 +1,306 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Set of the URLs seen during a run, held as 64 bit hashes of the URLs.
+ * Up to <code>maxInMemory</code> hashes are kept in an open addressed table;
+ * beyond that the table is sorted and spilled to a temporary run file that
+ * is memory mapped for lookups, and only a small bloom filter per run stays
+ * on the heap. A new URL is usually rejected by the filters without
+ * touching the runs. Two URLs whose hashes collide are taken to be the same;
+ * at 64 bits that is vanishingly rare.
+ * <p>
+ * If a run cannot be written, the error is thrown once and from then on
+ * the set keeps every hash in memory, growing the table as needed.
+ */
+final class SeenUrlSet {
+
+    private static final int DEFAULT_MAX_IN_MEMORY = 1 << 20;
+
+    // bits of bloom filter per spilled hash, and the number of probes
+    private static final int BLOOM_BITS_PER_HASH = 10;
+    private static final int BLOOM_PROBES = 7;
+
+    private final File tempDir;
+    private final int maxInMemory;
+    private long[] table;
+    private int tableCount = 0;
+    private final List<Run> runs = new ArrayList<Run>();
+    private long size = 0;
+    private long duplicates = 0;
+    private boolean spillFailed = false;
+
+    /**
+     * A sorted, spilled run of hashes and the bloom filter over it
+     */
+    private static final class Run {
+        private final File file;
+        private final LongBuffer hashes;
+        private final long[] bloom;
+
+        Run(File file, LongBuffer hashes, long[] bloom) {
+            this.file = file;
+            this.hashes = hashes;
+            this.bloom = bloom;
+        }
+
+        boolean contains(final long hash) {
+            if (mightContain(this.bloom, hash) == false) {
+                return false;
+            }
+            int lo = 0;
+            int hi = this.hashes.limit() - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                long value = this.hashes.get(mid);
+                if (value < hash) {
+                    lo = mid + 1;
+                } else if (value > hash) {
+                    hi = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public SeenUrlSet() {
+        this(new File(System.getProperty("java.io.tmpdir")), DEFAULT_MAX_IN_MEMORY);
+    }
+
+    /**
+     * Set that spills to <code>tempDir</code> once more than
+     * <code>maxInMemory</code> hashes are held in memory
+     */
+    SeenUrlSet(final File tempDir, final int maxInMemory) {
+        this.tempDir = tempDir;
+        this.maxInMemory = maxInMemory;
+        this.table = new long[tableSize(maxInMemory)];
+    }
+
+    /**
+     * Add <code>url</code> to the set
+     * @return true if it was not seen before
+     */
+    public synchronized boolean add(final String url) throws IOException {
+        long hash = HyperLogLog.hash(url);
+        if (hash == 0) {
+            // zero marks an empty slot of the table
+            hash = 1;
+        }
+        if (tableContains(hash) || runsContain(hash)) {
+            this.duplicates++;
+            return false;
+        }
+        tableAdd(hash);
+        this.size++;
+        if (this.tableCount >= this.maxInMemory && this.spillFailed == false) {
+            try {
+                spill();
+            } catch (IOException e) {
+                this.spillFailed = true;
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of distinct URLs added
+     */
+    public synchronized long size() {
+        return this.size;
+    }
+
+    /**
+     * Number of times a URL was added that was already in the set
+     */
+    public synchronized long getDuplicateCount() {
+        return this.duplicates;
+    }
+
+    /**
+     * Number of runs spilled to disk
+     */
+    public synchronized int getRunCount() {
+        return this.runs.size();
+    }
+
+    /**
+     * Drop the spilled runs
+     */
+    public synchronized void close() {
+        for (Run run : this.runs) {
+            run.file.delete();
+        }
+        this.runs.clear();
+        this.table = new long[0];
+        this.tableCount = 0;
+    }
+
+    private boolean tableContains(final long hash) {
+        int mask = this.table.length - 1;
+        for (int i = slot(hash, mask);; i = (i + 1) & mask) {
+            long value = this.table[i];
+            if (value == 0) {
+                return false;
+            }
+            if (value == hash) {
+                return true;
+            }
+        }
+    }
+
+    private void tableAdd(final long hash) {
+        if ((this.tableCount + 1) * 2 > this.table.length) {
+            grow();
+        }
+        int mask = this.table.length - 1;
+        int i = slot(hash, mask);
+        while (this.table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        this.table[i] = hash;
+        this.tableCount++;
+    }
+
+    /**
+     * Double the table, which only happens once runs can no longer be spilled
+     */
+    private void grow() {
+        long[] old = this.table;
+        this.table = new long[Math.max(16, old.length * 2)];
+        this.tableCount = 0;
+        for (long value : old) {
+            if (value != 0) {
+                tableAdd(value);
+            }
+        }
+    }
+
+    private boolean runsContain(final long hash) {
+        for (Run run : this.runs) {
+            if (run.contains(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write the hashes in the table, sorted, to a new run and empty the table
+     */
+    private void spill() throws IOException {
+        long[] hashes = new long[this.tableCount];
+        int n = 0;
+        for (long value : this.table) {
+            if (value != 0) {
+                hashes[n++] = value;
+            }
+        }
+        Arrays.sort(hashes);
+
+        File file = File.createTempFile("seen", ".run", this.tempDir);
+        file.deleteOnExit();
+        boolean written = false;
+        try {
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+            try {
+                for (long value : hashes) {
+                    out.writeLong(value);
+                }
+            } finally {
+                out.close();
+            }
+            written = true;
+        } finally {
+            if (written == false) {
+                file.delete();
+            }
+        }
+
+        long[] bloom = new long[Math.max(1, (hashes.length * BLOOM_BITS_PER_HASH + 63) / 64)];
+        for (long value : hashes) {
+            addToBloom(bloom, value);
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            LongBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()).asLongBuffer();
+            this.runs.add(new Run(file, mapped, bloom));
+        } finally {
+            IOUtils.closeQuietly(raf);
+        }
+
+        Arrays.fill(this.table, 0);
+        this.tableCount = 0;
+    }
+
+    private static void addToBloom(final long[] bloom, final long hash) {
+        long bits = bloom.length * 64L;
+        long h = hash;
+        for (int i = 0; i < BLOOM_PROBES; i++) {
+            long bit = (h & Long.MAX_VALUE) % bits;
+            bloom[(int) (bit >>> 6)] |= (1L << (bit & 63));
+            h = Long.rotateLeft(h, 9) * 0x9e3779b97f4a7c15L + i;
+        }
+    }
+
+    private static boolean mightContain(final long[] bloom, final long hash) {
+        long bits = bloom.length * 64L;
+        long h = hash;
+        for (int i = 0; i < BLOOM_PROBES; i++) {
+            long bit = (h & Long.MAX_VALUE) % bits;
+            if ((bloom[(int) (bit >>> 6)] & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+            h = Long.rotateLeft(h, 9) * 0x9e3779b97f4a7c15L + i;
+        }
+        return true;
+    }
+
+    private static int slot(final long hash, final int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Power of two table size that keeps the load under one half
+     */
+    private static int tableSize(final int maxInMemory) {
+        int size = 16;
+        while (size < maxInMemory * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+}
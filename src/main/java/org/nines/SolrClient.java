@@ -2,6 +2,7 @@ package org.nines;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -15,6 +16,7 @@ import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.commons.httpclient.params.HttpMethodParams;
 import org.apache.commons.io.IOUtils;
@@ -208,9 +210,42 @@ public final class SolrClient {
      * @throws IOException
      */
     public void postJSON(String json, String archive) throws IOException {
+        post(new StringRequestEntity(json, "application/json", "utf-8"), json, archive);
+    }
+
+    /**
+     * Post a batch of documents to the specified SOLR archive. Text that
+     * the batch holds in files is streamed from them into the request.
+     *
+     * @param payload
+     * @param archive
+     * @throws IOException
+     */
+    public void postJSON(final SolrJsonWriter.Payload payload, String archive) throws IOException {
+        RequestEntity entity = new RequestEntity() {
+            public boolean isRepeatable() {
+                return true;
+            }
+
+            public void writeRequest(OutputStream out) throws IOException {
+                payload.writeTo(out);
+            }
+
+            public long getContentLength() {
+                return -1;
+            }
+
+            public String getContentType() {
+                return "application/json; charset=utf-8";
+            }
+        };
+        post(entity, "batch of " + payload.length() + " characters", archive);
+    }
+
+    private void post(RequestEntity entity, String request, String archive) throws IOException {
 
         PostMethod post = new PostMethod(this.baseUrl + "/" + archive + "/update/json");
-        post.setRequestEntity(new StringRequestEntity(json, "application/json", "utf-8"));
+        post.setRequestEntity(entity);
         post.setRequestHeader("Content-type", "application/json; charset=utf-8");
 
         // Execute request
@@ -228,7 +263,7 @@ public final class SolrClient {
             }
         } catch( IOException ex ) {
             this.log.error( "SOLR request failed: ", ex);
-            this.log.error( "REQUEST: " + json );
+            this.log.error( "REQUEST: " + request );
         } finally {
             // Release current connection to the connection pool once you are done
             post.releaseConnection();
@@ -0,0 +1,423 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compact representation of a single solr document. Fields known to the
+ * indexer are identified by a small integer id; any other field name goes
+ * into a dynamic overflow area. A field with one value holds that String
+ * directly, only fields with several values use an array. Fields are kept
+ * in the order they were first added. A value may also be a {@link FileText},
+ * in which case the text stays in its file until the document is written.
+ */
+public final class SolrDocument {
+
+    // fields that the indexer generates but are not part of the compare field lists
+    private static final String[] DERIVED_FIELDS = new String[] {
+        "role", "doc_type", "discipline", "subject", "provenance", "reviewdate",
+        "has_pages", "year_sort_asc", "year_sort_desc", "username", "year_range", "edition_year_range",
+        "decade", "quarter_century", "half_century", "century",
+        "edition_decade", "edition_quarter_century", "edition_half_century", "edition_century"
+    };
+
+    private static final String[] FIELD_NAMES;
+    private static final HashMap<String, Integer> FIELD_IDS = new HashMap<String, Integer>();
+    static {
+        ArrayList<String> names = new ArrayList<String>();
+        names.addAll(RDFIndexerConfig.ALL_FIELDS);
+        names.addAll(RDFIndexerConfig.ALL_PAGE_FIELDS);
+        names.addAll(Arrays.asList(DERIVED_FIELDS));
+        for (String name : names) {
+            if (FIELD_IDS.containsKey(name) == false) {
+                FIELD_IDS.put(name, FIELD_IDS.size());
+            }
+        }
+        FIELD_NAMES = new String[FIELD_IDS.size()];
+        for (String name : FIELD_IDS.keySet()) {
+            FIELD_NAMES[FIELD_IDS.get(name)] = name;
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // per field: id >= 0 is a known field, id < 0 is index -(id+1) into dynamicNames
+    private short[] ids = new short[INITIAL_CAPACITY];
+
+    // per field: a String or FileText when there is a single value, a Multi holding them when there are more
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private String[] dynamicNames = null;
+    private int dynamicCount = 0;
+
+    /**
+     * Get the id of a known field, or -1 if the field is not known to the indexer
+     */
+    public static int fieldId(final String name) {
+        Integer id = FIELD_IDS.get(name);
+        return (id == null ? -1 : id.intValue());
+    }
+
+    /**
+     * Number of fields known to the indexer; their ids run from 0 to one less than this
+     */
+    public static int fieldCount() {
+        return FIELD_NAMES.length;
+    }
+
+    /**
+     * Get the name of the known field with <code>id</code>
+     */
+    public static String fieldName(final int id) {
+        return FIELD_NAMES[id];
+    }
+
+    /**
+     * Add a value to the named field
+     */
+    public void add(final String name, final String value) {
+        addValue(name, value);
+    }
+
+    /**
+     * Add text that is held in a file to the named field
+     */
+    public void add(final String name, final FileText value) {
+        addValue(name, value);
+    }
+
+    /**
+     * Replace all values of the named field with <code>value</code>
+     */
+    public void set(final String name, final String value) {
+        int idx = indexOf(name);
+        if (idx == -1) {
+            append(name, value);
+        } else {
+            this.values[idx] = value;
+        }
+    }
+
+    /**
+     * Replace all values of the named field with <code>list</code>.
+     * An empty list removes the field.
+     */
+    public void put(final String name, final List<String> list) {
+        if (list.isEmpty()) {
+            remove(name);
+            return;
+        }
+        Object value = (list.size() == 1 ? list.get(0) : new Multi(list.toArray(new Object[list.size()])));
+        int idx = indexOf(name);
+        if (idx == -1) {
+            append(name, null);
+            idx = this.size - 1;
+        }
+        this.values[idx] = value;
+    }
+
+    /**
+     * Remove the named field
+     * @return false if the field was not present
+     */
+    public boolean remove(final String name) {
+        int idx = indexOf(name);
+        if (idx == -1) {
+            return false;
+        }
+        System.arraycopy(this.ids, idx + 1, this.ids, idx, this.size - idx - 1);
+        System.arraycopy(this.values, idx + 1, this.values, idx, this.size - idx - 1);
+        this.size--;
+        this.values[this.size] = null;
+        return true;
+    }
+
+    /**
+     * Drop all but the first <code>max</code> values of the named field
+     */
+    public void truncate(final String name, final int max) {
+        int idx = indexOf(name);
+        if (idx == -1 || valueCount(idx) <= max) {
+            return;
+        }
+        if (max == 0) {
+            remove(name);
+        } else if (max == 1) {
+            this.values[idx] = ((Multi) this.values[idx]).items[0];
+        } else {
+            ((Multi) this.values[idx]).truncate(max);
+        }
+    }
+
+    public boolean has(final String name) {
+        return indexOf(name) != -1;
+    }
+
+    /**
+     * Get all values of the named field, or null if the field is not present.
+     * File backed text is read in full.
+     * @throws IOException if a text file cannot be read
+     */
+    public List<String> get(final String name) throws IOException {
+        int idx = indexOf(name);
+        if (idx == -1) {
+            return null;
+        }
+        return Collections.unmodifiableList(asList(this.values[idx]));
+    }
+
+    /**
+     * Check if the named field is present with an empty first value. File
+     * backed text is judged by its size and is not read.
+     */
+    public boolean isFirstEmpty(final String name) {
+        int idx = indexOf(name);
+        if (idx == -1) {
+            return false;
+        }
+        Object first = rawValue(idx, 0);
+        if (first instanceof FileText) {
+            return ((FileText) first).length() == 0;
+        }
+        return ((String) first).length() == 0;
+    }
+
+    /**
+     * Get the first value of the named field or null if it is not present.
+     * File backed text is read in full.
+     * @throws IOException if the text file cannot be read
+     */
+    public String getFirst(final String name) throws IOException {
+        int idx = indexOf(name);
+        return (idx == -1 ? null : value(idx, 0));
+    }
+
+    /**
+     * Get the last value of the named field or null if it is not present.
+     * File backed text is read in full.
+     * @throws IOException if the text file cannot be read
+     */
+    public String getLast(final String name) throws IOException {
+        int idx = indexOf(name);
+        return (idx == -1 ? null : value(idx, valueCount(idx) - 1));
+    }
+
+    /**
+     * Get the number of values the named field has
+     */
+    public int count(final String name) {
+        int idx = indexOf(name);
+        return (idx == -1 ? 0 : valueCount(idx));
+    }
+
+    /**
+     * Check if the named field contains <code>value</code>. File backed
+     * text is never read for the comparison and never matches.
+     */
+    public boolean contains(final String name, final String value) {
+        int idx = indexOf(name);
+        if (idx == -1) {
+            return false;
+        }
+        int cnt = valueCount(idx);
+        for (int i = 0; i < cnt; i++) {
+            if (rawValue(idx, i).equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of fields in the document
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Name of the field at position <code>idx</code>
+     */
+    public String name(final int idx) {
+        int id = this.ids[idx];
+        if (id >= 0) {
+            return FIELD_NAMES[id];
+        }
+        return this.dynamicNames[-(id + 1)];
+    }
+
+    /**
+     * Id of the field at position <code>idx</code>, or -1 if the field is not known to the indexer
+     */
+    public int id(final int idx) {
+        int id = this.ids[idx];
+        return (id >= 0 ? id : -1);
+    }
+
+    /**
+     * Number of values of the field at position <code>idx</code>
+     */
+    public int valueCount(final int idx) {
+        Object value = this.values[idx];
+        return (value instanceof Multi ? ((Multi) value).size : 1);
+    }
+
+    /**
+     * The <code>n</code>th value of the field at position <code>idx</code>.
+     * File backed text is read in full; use {@link #fileValue(int, int)}
+     * to avoid that.
+     * @throws IOException if the text file cannot be read
+     */
+    public String value(final int idx, final int n) throws IOException {
+        return asString(rawValue(idx, n));
+    }
+
+    /**
+     * The <code>n</code>th value of the field at position <code>idx</code> if
+     * it is held in a file, otherwise null
+     */
+    public FileText fileValue(final int idx, final int n) {
+        Object value = rawValue(idx, n);
+        return (value instanceof FileText ? (FileText) value : null);
+    }
+
+    private Object rawValue(final int idx, final int n) {
+        Object value = this.values[idx];
+        if (value instanceof Multi) {
+            return ((Multi) value).get(n);
+        }
+        if (n != 0) {
+            throw new IndexOutOfBoundsException("Index: " + n + ", Size: 1");
+        }
+        return value;
+    }
+
+    private void addValue(final String name, final Object value) {
+        int idx = indexOf(name);
+        if (idx == -1) {
+            append(name, value);
+            return;
+        }
+        Object current = this.values[idx];
+        if (current instanceof Multi) {
+            ((Multi) current).add(value);
+        } else {
+            this.values[idx] = new Multi(new Object[] { current, value, null, null }, 2);
+        }
+    }
+
+    private int indexOf(final String name) {
+        int id = fieldId(name);
+        if (id >= 0) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.ids[i] == id) {
+                    return i;
+                }
+            }
+        } else {
+            for (int i = 0; i < this.size; i++) {
+                if (this.ids[i] < 0 && this.dynamicNames[-(this.ids[i] + 1)].equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void append(final String name, final Object value) {
+        if (this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            this.values = Arrays.copyOf(this.values, this.size * 2);
+        }
+        int id = fieldId(name);
+        if (id == -1) {
+            if (this.dynamicNames == null) {
+                this.dynamicNames = new String[4];
+            } else if (this.dynamicCount == this.dynamicNames.length) {
+                this.dynamicNames = Arrays.copyOf(this.dynamicNames, this.dynamicCount * 2);
+            }
+            this.dynamicNames[this.dynamicCount++] = name;
+            id = -this.dynamicCount;
+        }
+        this.ids[this.size] = (short) id;
+        this.values[this.size] = value;
+        this.size++;
+    }
+
+    private static List<String> asList(final Object value) throws IOException {
+        if (value instanceof Multi) {
+            Multi list = (Multi) value;
+            ArrayList<String> strings = new ArrayList<String>(list.size);
+            for (int i = 0; i < list.size; i++) {
+                strings.add(asString(list.items[i]));
+            }
+            return strings;
+        }
+        ArrayList<String> single = new ArrayList<String>(1);
+        single.add(asString(value));
+        return single;
+    }
+
+    private static String asString(final Object value) throws IOException {
+        if (value instanceof FileText) {
+            return ((FileText) value).load();
+        }
+        return (String) value;
+    }
+
+    /**
+     * The values of a field with more than one; the array grows by doubling
+     */
+    private static final class Multi {
+        private Object[] items;
+        private int size;
+
+        Multi(final Object[] items) {
+            this(items, items.length);
+        }
+
+        Multi(final Object[] items, final int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        void add(final Object value) {
+            if (this.size == this.items.length) {
+                this.items = Arrays.copyOf(this.items, this.size * 2);
+            }
+            this.items[this.size++] = value;
+        }
+
+        Object get(final int n) {
+            if (n >= this.size) {
+                throw new IndexOutOfBoundsException("Index: " + n + ", Size: " + this.size);
+            }
+            return this.items[n];
+        }
+
+        void truncate(final int max) {
+            Arrays.fill(this.items, max, this.size, null);
+            this.size = max;
+        }
+    }
+}
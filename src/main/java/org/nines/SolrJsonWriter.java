@@ -0,0 +1,332 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Writes solr documents straight into a JSON batch (an array of documents)
+ * that is ready to post to solr. No intermediate JSON tree is built, and the
+ * size of the pending batch is always known without stringifying it. Text
+ * that a document holds as a {@link FileText} is not read into the batch;
+ * the finished {@link Payload} decodes and escapes it straight from the file
+ * into the output stream in small chunks when it is posted.
+ */
+final class SolrJsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int TEXT_CHUNK_SIZE = 64 * 1024;
+
+    private final String timeStamp;
+    private StringBuilder batch;
+    private int docCount = 0;
+
+    // the batch so far: escaped JSON as Strings between the file backed texts
+    private List<Object> parts;
+    private long partsLength;
+
+    /**
+     * Create a writer that stamps each document with <code>timeStamp</code>
+     * as the date_created and date_updated fields.
+     */
+    public SolrJsonWriter(final String timeStamp) {
+        this.timeStamp = timeStamp;
+        reset();
+    }
+
+    /**
+     * Append a document to the batch. Fields that the schema defines as
+     * single valued are written as scalars when they have exactly one value.
+     * A file backed text that cannot be read is written as an empty string;
+     * the document is still completed and the first such failure is thrown
+     * afterwards so that it can be reported. A text that can be read now is
+     * only read again when the payload is posted.
+     */
+    public void write(final SolrDocument doc) throws IOException {
+        IOException textFailure = null;
+        startDocument();
+        for (int i = 0; i < doc.size(); i++) {
+            String name = doc.name(i);
+            int cnt = doc.valueCount(i);
+            if (i > 0) {
+                this.batch.append(',');
+            }
+            writeString(name);
+            this.batch.append(':');
+            boolean scalar = (cnt == 1 && RDFIndexerConfig.SINGLE_VALUED_FIELDS.contains(name));
+            if (scalar == false) {
+                this.batch.append('[');
+            }
+            for (int j = 0; j < cnt; j++) {
+                if (j > 0) {
+                    this.batch.append(',');
+                }
+                FileText text = doc.fileValue(i, j);
+                if (text == null) {
+                    writeString(doc.value(i, j));
+                } else if (text.getFile().canRead()) {
+                    addText(text);
+                } else {
+                    this.batch.append("\"\"");
+                    if (textFailure == null) {
+                        textFailure = new FileNotFoundException("Unable to read text file " + text);
+                    }
+                }
+            }
+            if (scalar == false) {
+                this.batch.append(']');
+            }
+        }
+        if (doc.size() > 0) {
+            this.batch.append(',');
+        }
+        writeString("date_created");
+        this.batch.append(':');
+        writeString(this.timeStamp);
+        this.batch.append(',');
+        writeString("date_updated");
+        this.batch.append(':');
+        writeString(this.timeStamp);
+        this.batch.append('}');
+
+        if (textFailure != null) {
+            throw textFailure;
+        }
+    }
+
+    /**
+     * Append an existing JSON document, as retrieved from solr, to the batch
+     */
+    public void write(final JsonObject json) {
+        startDocument();
+        this.batch.setLength(this.batch.length() - 1);
+        this.batch.append(json.toString());
+    }
+
+    /**
+     * Number of characters in the batch so far. File backed text counts
+     * with its size in bytes.
+     */
+    public long length() {
+        return this.partsLength + this.batch.length() + 1;
+    }
+
+    public boolean isEmpty() {
+        return this.docCount == 0;
+    }
+
+    /**
+     * Get the complete batch as a JSON array and start a new, empty batch
+     */
+    public Payload finish() {
+        this.batch.append(']');
+        this.parts.add(this.batch.toString());
+        Payload payload = new Payload(this.parts, length() - 1);
+        reset();
+        return payload;
+    }
+
+    private void reset() {
+        this.batch = new StringBuilder(4096);
+        this.batch.append('[');
+        this.docCount = 0;
+        this.parts = new ArrayList<Object>();
+        this.partsLength = 0;
+    }
+
+    private void startDocument() {
+        if (this.docCount > 0) {
+            this.batch.append(',');
+        }
+        this.docCount++;
+        this.batch.append('{');
+    }
+
+    /**
+     * Write a quoted, JSON escaped string to the batch
+     */
+    private void writeString(final String value) {
+        this.batch.append('"');
+        appendEscaped(this.batch, value);
+        this.batch.append('"');
+    }
+
+    /**
+     * Close the current run of JSON and add a file backed text after it
+     */
+    private void addText(final FileText text) {
+        this.batch.append('"');
+        this.parts.add(this.batch.toString());
+        this.parts.add(text);
+        this.partsLength += this.batch.length() + text.length();
+        this.batch.setLength(0);
+        this.batch.append('"');
+    }
+
+    /**
+     * Append the JSON escaped form of <code>value</code> (without quotes) to <code>out</code>
+     */
+    static void appendEscaped(final StringBuilder out, final CharSequence value) {
+        int len = value.length();
+        int start = 0;
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            out.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    out.append("\\u").append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF])
+                        .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+                    break;
+            }
+        }
+        out.append(value, start, len);
+    }
+
+    /**
+     * A finished batch. The JSON is written out by {@link #writeTo(OutputStream)},
+     * which may be called from another thread and more than once.
+     */
+    static final class Payload {
+
+        private final List<Object> parts;
+        private final long length;
+
+        private Payload(final List<Object> parts, final long length) {
+            this.parts = parts;
+            this.length = length;
+        }
+
+        /**
+         * Number of characters in the batch, counting file backed text with its size in bytes
+         */
+        public long length() {
+            return this.length;
+        }
+
+        /**
+         * Write the batch as UTF-8 to <code>out</code>
+         */
+        public void writeTo(final OutputStream out) throws IOException {
+            Writer writer = new OutputStreamWriter(out, "UTF-8");
+            TextStreamer streamer = null;
+            for (Object part : this.parts) {
+                if (part instanceof FileText) {
+                    if (streamer == null) {
+                        streamer = new TextStreamer();
+                    }
+                    streamer.write((FileText) part, writer);
+                } else {
+                    writer.write((String) part);
+                }
+            }
+            writer.flush();
+        }
+    }
+
+    /**
+     * Writes the contents of text files, JSON escaped, to a writer. A file is
+     * read through a direct buffer and decoded chunk by chunk, so no copy of
+     * the whole text is ever held.
+     */
+    private static final class TextStreamer {
+
+        private final ByteBuffer textBytes = ByteBuffer.allocateDirect(TEXT_CHUNK_SIZE);
+        private final CharBuffer textChars = CharBuffer.allocate(TEXT_CHUNK_SIZE);
+        private final StringBuilder escaped = new StringBuilder(TEXT_CHUNK_SIZE + TEXT_CHUNK_SIZE / 8);
+        private final CharsetDecoder decoder = Charset.forName("UTF-8").newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        void write(final FileText text, final Writer out) throws IOException {
+            FileInputStream is = null;
+            try {
+                is = new FileInputStream(text.getFile());
+                FileChannel channel = is.getChannel();
+                this.decoder.reset();
+                this.textBytes.clear();
+                boolean eof = false;
+                while (eof == false) {
+                    eof = (channel.read(this.textBytes) == -1);
+                    this.textBytes.flip();
+                    CoderResult result;
+                    do {
+                        this.textChars.clear();
+                        result = this.decoder.decode(this.textBytes, this.textChars, eof);
+                        writeChars(out);
+                    } while (result.isOverflow());
+                    this.textBytes.compact();
+                }
+                CoderResult result;
+                do {
+                    this.textChars.clear();
+                    result = this.decoder.flush(this.textChars);
+                    writeChars(out);
+                } while (result.isOverflow());
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+        }
+
+        private void writeChars(final Writer out) throws IOException {
+            this.textChars.flip();
+            this.escaped.setLength(0);
+            appendEscaped(this.escaped, this.textChars);
+            out.append(this.escaped);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * What the spider knows about each text URL it has fetched: the ETag and
+ * Last-Modified validators the server sent, a hash of the text that was
+ * written and when it was fetched. The spider uses the validators for
+ * conditional requests and the hash to leave unchanged raw text files
+ * untouched. The store is a tab separated file, one URL per line, kept
+ * next to the archive's raw text directory.
+ */
+final class SpiderCache {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    static final class Entry {
+        final String etag;
+        final String lastModified;
+        final String hash;
+        final long fetchedAt;
+
+        Entry(String etag, String lastModified, String hash, long fetchedAt) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private final File file;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private SpiderCache(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * An empty store that will be saved to <code>file</code>
+     */
+    static SpiderCache empty(final File file) {
+        return new SpiderCache(file);
+    }
+
+    /**
+     * Read the store in <code>file</code>; a missing file is an empty store
+     */
+    static SpiderCache load(final File file) throws IOException {
+        SpiderCache cache = empty(file);
+        if (file.exists() == false) {
+            return cache;
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                if (parts.length == 5) {
+                    cache.entries.put(parts[0], new Entry(emptyToNull(parts[1]), emptyToNull(parts[2]), parts[3],
+                        Long.parseLong(parts[4])));
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt spider cache " + file + ": " + e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        return cache;
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public Entry get(final String url) {
+        return this.entries.get(url);
+    }
+
+    public void put(final String url, final Entry entry) {
+        this.entries.put(url, entry);
+    }
+
+    /**
+     * Write the store back, sorted by URL, replacing the file only once it is complete
+     */
+    public void save() throws IOException {
+        TreeMap<String, Entry> sorted = new TreeMap<String, Entry>(this.entries);
+        File tmp = new File(this.file.getPath() + ".tmp");
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), UTF8));
+        try {
+            for (Map.Entry<String, Entry> item : sorted.entrySet()) {
+                Entry e = item.getValue();
+                out.write(item.getKey() + "\t" + nullToEmpty(e.etag) + "\t" + nullToEmpty(e.lastModified) + "\t"
+                    + e.hash + "\t" + e.fetchedAt + "\n");
+            }
+        } finally {
+            out.close();
+        }
+        this.file.delete();
+        if (tmp.renameTo(this.file) == false) {
+            throw new IOException("Unable to replace " + this.file);
+        }
+    }
+
+    /**
+     * Hex SHA-1 hash of the contents of <code>file</code>
+     */
+    static String hash(final File file) throws IOException {
+        MessageDigest digest = newDigest();
+        InputStream is = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int cnt;
+            while ((cnt = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, cnt);
+            }
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Hex SHA-1 hash of <code>content</code>; the same as the hash of a file holding it
+     */
+    static String hash(final byte[] content) {
+        MessageDigest digest = newDigest();
+        digest.update(content);
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static String emptyToNull(final String value) {
+        return (value.length() == 0 ? null : value);
+    }
+
+    private static String nullToEmpty(final String value) {
+        // header values never legitimately hold tabs or line breaks
+        return (value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' '));
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Index of the full text and corrected text files available to an archive.
+ * The text directories are listed once when indexing starts; after that,
+ * finding the file for a document is a binary search over the sorted names
+ * rather than a round of string replacement and an exists() call.
+ */
+final class TextFileIndex {
+
+    private static final String[] NONE = new String[0];
+
+    private final File fullTextDir;
+    private final boolean hasFullTextDir;
+    private final String[] fullTextNames;
+
+    private final File correctedTextDir;
+    private final String[] correctedNames;
+
+    private TextFileIndex(File fullTextDir, File correctedTextDir) {
+        this.fullTextDir = fullTextDir;
+        this.hasFullTextDir = fullTextDir.isDirectory();
+        this.fullTextNames = (this.hasFullTextDir ? listTextFiles(fullTextDir) : NONE);
+        Arrays.sort(this.fullTextNames);
+
+        this.correctedTextDir = correctedTextDir;
+        this.correctedNames = (correctedTextDir.isDirectory() ? listTextFiles(correctedTextDir) : NONE);
+        Arrays.sort(this.correctedNames);
+    }
+
+    /**
+     * Index the text files of the archive whose RDF lives in <code>sourceDir</code>.
+     * The text directories sit alongside the rdf directory of the solr sources;
+     * for sources outside an rdf directory they are looked for inside them.
+     */
+    public static TextFileIndex scan(final File sourceDir, final String archiveName) {
+        String path = sourceDir.toString() + "/";
+        int rdf = path.indexOf("/rdf/");
+        String base = (rdf == -1 ? sourceDir.toString() : path.substring(0, rdf));
+        String archive = RDFIndexerConfig.safeArchive(archiveName);
+        return scan(new File(base + "/fulltext/" + archive), new File(base + "/correctedtext/" + archive));
+    }
+
+    public static TextFileIndex scan(final File fullTextDir, final File correctedTextDir) {
+        return new TextFileIndex(fullTextDir, correctedTextDir);
+    }
+
+    public File getFullTextDir() {
+        return this.fullTextDir;
+    }
+
+    public boolean hasFullTextDir() {
+        return this.hasFullTextDir;
+    }
+
+    /**
+     * The full text file for <code>uri</code>, whether or not it exists
+     */
+    public File fullTextFile(final String uri) {
+        return new File(this.fullTextDir, TextFileNames.encode(uri) + TextFileNames.EXTENSION);
+    }
+
+    public boolean hasFullText(final String uri) {
+        return Arrays.binarySearch(this.fullTextNames, TextFileNames.encode(uri)) >= 0;
+    }
+
+    public int fullTextCount() {
+        return this.fullTextNames.length;
+    }
+
+    public boolean hasCorrectedText(final String uri) {
+        return Arrays.binarySearch(this.correctedNames, TextFileNames.encodeCorrected(uri)) >= 0;
+    }
+
+    /**
+     * The corrected text file for <code>uri</code>, or null if it has none
+     */
+    public File correctedTextFile(final String uri) {
+        String name = TextFileNames.encodeCorrected(uri);
+        if (Arrays.binarySearch(this.correctedNames, name) < 0) {
+            return null;
+        }
+        return new File(this.correctedTextDir, name + TextFileNames.EXTENSION);
+    }
+
+    public int correctedTextCount() {
+        return this.correctedNames.length;
+    }
+
+    /**
+     * Names, without extension, of the text files in <code>dir</code>
+     */
+    private static String[] listTextFiles(final File dir) {
+        String[] entries = dir.list();
+        if (entries == null) {
+            return NONE;
+        }
+        int cnt = 0;
+        for (String entry : entries) {
+            if (entry.endsWith(TextFileNames.EXTENSION)) {
+                entries[cnt++] = entry.substring(0, entry.length() - TextFileNames.EXTENSION.length());
+            }
+        }
+        return Arrays.copyOf(entries, cnt);
+    }
+}
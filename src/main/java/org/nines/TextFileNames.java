@@ -0,0 +1,92 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+/**
+ * Names of the text files that hold the full text of document URIs.
+ * Spidered raw text and cleaned full text use the same names: '/' becomes
+ * SL, ':' CL, '?' QU, '=' EQ and '&amp;' AMP. Corrected text files use _S_
+ * for '/' and _C_ for ':'. Names are built in a single pass. There is no
+ * way back: the markers are not escaped, so a URI that contains one reads
+ * the same as another URI once encoded. Files are always found by
+ * encoding the URI.
+ */
+final class TextFileNames {
+
+    public static final String EXTENSION = ".txt";
+
+    private TextFileNames() {
+    }
+
+    /**
+     * Name of the raw and full text file (without extension) for <code>uri</code>
+     */
+    public static String encode(final String uri) {
+        StringBuilder name = null;
+        int len = uri.length();
+        for (int i = 0; i < len; i++) {
+            String marker = marker(uri.charAt(i));
+            if (marker == null) {
+                if (name != null) {
+                    name.append(uri.charAt(i));
+                }
+                continue;
+            }
+            if (name == null) {
+                name = new StringBuilder(len + 16);
+                name.append(uri, 0, i);
+            }
+            name.append(marker);
+        }
+        return (name == null ? uri : name.toString());
+    }
+
+    /**
+     * Name of the corrected text file (without extension) for <code>uri</code>
+     */
+    public static String encodeCorrected(final String uri) {
+        StringBuilder name = new StringBuilder(uri.length() + 16);
+        int len = uri.length();
+        for (int i = 0; i < len; i++) {
+            char c = uri.charAt(i);
+            if (c == '/') {
+                name.append("_S_");
+            } else if (c == ':') {
+                name.append("_C_");
+            } else {
+                name.append(c);
+            }
+        }
+        return name.toString();
+    }
+
+    private static String marker(final char c) {
+        switch (c) {
+            case '/':
+                return "SL";
+            case ':':
+                return "CL";
+            case '?':
+                return "QU";
+            case '=':
+                return "EQ";
+            case '&':
+                return "AMP";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Single pass text cleaner. Depending on the flags it is created with, it
+ * unescapes XML entities, drops escape sequences that are still present
+ * after unescaping, strips unknown (0xFFFD) characters and normalizes
+ * whitespace. All enabled steps run together in one scan of the text, with
+ * the same results as running them one after the other. Text that needs
+ * none of the steps is returned as-is without any copying.
+ *
+ * Instances reuse their buffers and are not thread safe.
+ */
+final class TextNormalizer {
+
+    /** Unescape XML entities: the named XML entities and numeric references */
+    static final int UNESCAPE = 1;
+    /** Drop &amp;#...; sequences of up to 4 chars that remain after unescaping */
+    static final int STRIP_BAD_ESCAPES = 2;
+    /** Drop unknown (0xFFFD) characters */
+    static final int STRIP_UNKNOWN = 4;
+    /** Collapse runs of spaces/tabs, trim each line and drop empty lines */
+    static final int WHITESPACE = 8;
+
+    static final int ALL = UNESCAPE | STRIP_BAD_ESCAPES | STRIP_UNKNOWN | WHITESPACE;
+
+    // a bad escape is &# plus up to 4 chars and the terminating ;
+    private static final int MAX_BAD_ESCAPE = 7;
+    private static final int SNIPPET_RADIUS = 25;
+
+    private final boolean unescape;
+    private final boolean stripBadEscapes;
+    private final boolean stripUnknown;
+    private final boolean whitespace;
+
+    private final StringBuilder out = new StringBuilder();
+    private ITextErrorListener listener;
+
+    // bad escape state: chars held back while they may be part of a bad sequence
+    private final char[] held = new char[MAX_BAD_ESCAPE];
+    private int heldCount;
+    private HashSet<String> reported;
+
+    // whitespace state
+    private boolean lineHasContent;
+    private boolean anyContent;
+    private boolean lastWasSpace;
+    private int contentEnd;
+
+    // unknown char state
+    private int[] unknownPositions = new int[8];
+    private int unknownCount;
+
+    public TextNormalizer(final int flags) {
+        this.unescape = (flags & UNESCAPE) != 0;
+        this.stripBadEscapes = (flags & STRIP_BAD_ESCAPES) != 0;
+        this.stripUnknown = (flags & STRIP_UNKNOWN) != 0;
+        this.whitespace = (flags & WHITESPACE) != 0;
+    }
+
+    /**
+     * Clean <code>text</code>, passing any problems found to <code>listener</code>
+     */
+    public String normalize(final String text, final ITextErrorListener listener) {
+        if (isClean(text)) {
+            return text;
+        }
+
+        this.listener = listener;
+        this.out.setLength(0);
+        this.heldCount = 0;
+        this.reported = null;
+        this.lineHasContent = false;
+        this.anyContent = false;
+        this.lastWasSpace = false;
+        this.contentEnd = 0;
+        this.unknownCount = 0;
+
+        int len = text.length();
+        int nextSemi = 0;
+        int nextAmp = 0;
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            if (c != '&' || this.unescape == false) {
+                escapeStage(c);
+                continue;
+            }
+
+            // same rules as commons-lang unescapeXml: the entity runs to the next ';'
+            // unless another '&' comes first
+            if (nextSemi != -1 && nextSemi <= i) {
+                nextSemi = text.indexOf(';', i + 1);
+            }
+            if (nextAmp <= i) {
+                nextAmp = text.indexOf('&', i + 1);
+                if (nextAmp == -1) {
+                    nextAmp = len;
+                }
+            }
+            if (nextSemi == -1 || nextAmp < nextSemi) {
+                escapeStage(c);
+                continue;
+            }
+
+            int value = entityValue(text, i + 1, nextSemi);
+            if (value == -1) {
+                for (int j = i; j <= nextSemi; j++) {
+                    escapeStage(text.charAt(j));
+                }
+            } else {
+                escapeStage((char) value);
+            }
+            i = nextSemi;
+        }
+
+        releaseHeld(this.heldCount);
+        endLine();
+        reportUnknown();
+        this.listener = null;
+        return this.out.toString();
+    }
+
+    /**
+     * Quick scan for text that none of the enabled steps would change
+     */
+    private boolean isClean(final String text) {
+        int len = text.length();
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            if (c > ' ' && c < 0x80) {
+                if (c == '&' && (this.unescape || this.stripBadEscapes)) {
+                    return false;
+                }
+                continue;
+            }
+            if (c == '\ufffd' && this.stripUnknown) {
+                return false;
+            }
+            if (this.whitespace && c <= ' ') {
+                if (c != ' ' || i == 0 || i == len - 1 || text.charAt(i - 1) == ' ') {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the entity between <code>start</code> and the ';' at <code>end</code>
+     * @return The char value or -1 if it is not a valid entity
+     */
+    private static int entityValue(final String text, final int start, final int end) {
+        int len = end - start;
+        if (len == 0) {
+            return -1;
+        }
+        if (text.charAt(start) != '#') {
+            if (len == 3 && text.startsWith("amp", start)) {
+                return '&';
+            } else if (len == 2 && text.startsWith("lt", start)) {
+                return '<';
+            } else if (len == 2 && text.startsWith("gt", start)) {
+                return '>';
+            } else if (len == 4 && text.startsWith("quot", start)) {
+                return '"';
+            } else if (len == 4 && text.startsWith("apos", start)) {
+                return '\'';
+            }
+            return -1;
+        }
+        if (len == 1) {
+            return -1;
+        }
+        char x = text.charAt(start + 1);
+        int value;
+        if (x == 'x' || x == 'X') {
+            value = parseInt(text, start + 2, end, 16);
+        } else {
+            value = parseInt(text, start + 1, end, 10);
+        }
+        return (value > 0xFFFF ? -1 : value);
+    }
+
+    /**
+     * Parse a number the way Integer.parseInt would, without the exception
+     * @return The value or -1 if it is not a valid int
+     */
+    private static int parseInt(final String text, final int start, final int end, final int radix) {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+            negative = (text.charAt(pos) == '-');
+            pos++;
+        }
+        if (pos == end) {
+            return -1;
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = Character.digit(text.charAt(pos), radix);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * radix + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                return -1;
+            }
+        }
+        value = (negative ? -value : value);
+        if (value > Integer.MAX_VALUE) {
+            return -1;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Bad escape removal. Chars that may be the start of an &amp;#...; sequence are
+     * held back until the sequence is either complete (and dropped) or ruled out.
+     */
+    private void escapeStage(final char c) {
+        if (this.stripBadEscapes == false) {
+            whitespaceStage(c);
+            return;
+        }
+        if (this.heldCount == 0) {
+            if (c == '&') {
+                this.held[this.heldCount++] = c;
+            } else {
+                whitespaceStage(c);
+            }
+            return;
+        }
+
+        this.held[this.heldCount++] = c;
+        if (this.heldCount == 2) {
+            if (c != '#') {
+                // not a sequence after all
+                releaseHeld(1);
+            }
+        } else if (c == ';') {
+            String bad = new String(this.held, 0, this.heldCount);
+            this.heldCount = 0;
+            if (this.reported == null) {
+                this.reported = new HashSet<String>();
+            }
+            if (this.reported.add(bad) && this.listener != null) {
+                this.listener.badEscape(bad);
+            }
+        } else if (this.heldCount == MAX_BAD_ESCAPE) {
+            // the ; is too far away, skip over the &#
+            releaseHeld(2);
+        }
+    }
+
+    /**
+     * Pass the first <code>count</code> held chars on, and rescan the rest
+     */
+    private void releaseHeld(final int count) {
+        int total = this.heldCount;
+        this.heldCount = 0;
+        for (int i = 0; i < count; i++) {
+            whitespaceStage(this.held[i]);
+        }
+        if (total > count) {
+            char[] rest = Arrays.copyOfRange(this.held, count, total);
+            for (char r : rest) {
+                escapeStage(r);
+            }
+        }
+    }
+
+    /**
+     * Whitespace normalization and unknown char removal; writes the final text
+     */
+    private void whitespaceStage(final char c) {
+        if (c == '\ufffd' && this.stripUnknown) {
+            if (this.unknownCount == this.unknownPositions.length) {
+                this.unknownPositions = Arrays.copyOf(this.unknownPositions, this.unknownCount * 2);
+            }
+            if (this.whitespace) {
+                startContent();
+                this.contentEnd = this.out.length();
+            }
+            this.unknownPositions[this.unknownCount++] = this.out.length();
+            return;
+        }
+        if (this.whitespace == false) {
+            this.out.append(c);
+            return;
+        }
+
+        if (c == '\n') {
+            endLine();
+        } else if (c <= ' ') {
+            // leading whitespace on a line is dropped, trailing is cut at the end of the line
+            if (this.lineHasContent == false) {
+                return;
+            }
+            if (c == ' ' || c == '\t') {
+                if (this.lastWasSpace == false) {
+                    this.out.append(' ');
+                    this.lastWasSpace = true;
+                }
+            } else {
+                this.out.append(c);
+                this.lastWasSpace = false;
+            }
+        } else {
+            startContent();
+            this.out.append(c);
+            this.contentEnd = this.out.length();
+        }
+    }
+
+    private void startContent() {
+        if (this.lineHasContent == false) {
+            if (this.anyContent) {
+                this.out.append('\n');
+            }
+            this.lineHasContent = true;
+            this.anyContent = true;
+        }
+        this.lastWasSpace = false;
+    }
+
+    private void endLine() {
+        if (this.whitespace && this.lineHasContent) {
+            this.out.setLength(this.contentEnd);
+        }
+        this.lineHasContent = false;
+        this.lastWasSpace = false;
+    }
+
+    /**
+     * Report each unknown char that was removed, with the bounds of the
+     * surrounding text; the listener only copies it out if it keeps it
+     */
+    private void reportUnknown() {
+        if (this.listener == null) {
+            return;
+        }
+        for (int i = 0; i < this.unknownCount; i++) {
+            int pos = this.unknownPositions[i];
+            this.listener.unknownCharacter(pos + i, this.out, Math.max(0, pos - SNIPPET_RADIUS),
+                Math.min(this.out.length(), pos + SNIPPET_RADIUS));
+        }
+    }
+}
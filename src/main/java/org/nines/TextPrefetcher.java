@@ -0,0 +1,119 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Small pool of I/O threads that read full text files ahead of the indexer.
+ * The indexer hands over the RDF files that are next in its queue; each is
+ * scanned for the collex:text URLs of its documents and their full text
+ * files are read, so that by the time those documents are posted their text
+ * is in the OS page cache and the post does not stall on the disk. Read
+ * ahead is only a hint: when the pool is busy new requests are dropped, and
+ * scan and read errors are ignored since the indexer reports them.
+ */
+final class TextPrefetcher {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TextFileIndex textFiles;
+    private final ThreadPoolExecutor pool;
+    private final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>() {
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+    private final ThreadLocal<TextUrlScanner> scanners = new ThreadLocal<TextUrlScanner>() {
+        protected TextUrlScanner initialValue() {
+            return new TextUrlScanner();
+        }
+    };
+
+    public TextPrefetcher(final TextFileIndex textFiles, final int threads, final int maxPending) {
+        this.textFiles = textFiles;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(maxPending), new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "text-prefetch");
+                    t.setDaemon(true);
+                    return t;
+                }
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Queue the full texts of the documents in <code>rdfFile</code> to be read ahead
+     */
+    public void prefetch(final File rdfFile) {
+        this.pool.execute(new Runnable() {
+            public void run() {
+                readTexts(rdfFile);
+            }
+        });
+    }
+
+    /**
+     * Stop the threads; pending read ahead is abandoned
+     */
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    private void readTexts(final File rdfFile) {
+        List<String> urls;
+        try {
+            urls = this.scanners.get().scan(rdfFile);
+        } catch (IOException e) {
+            return;
+        }
+        if (urls == null) {
+            return;
+        }
+        for (String url : urls) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            if (this.textFiles.hasFullText(url)) {
+                read(this.textFiles.fullTextFile(url));
+            }
+        }
+    }
+
+    private void read(final File file) {
+        byte[] buf = this.buffers.get();
+        FileInputStream is = null;
+        try {
+            is = new FileInputStream(file);
+            while (is.read(buf) != -1) {
+                // only warming the cache
+            }
+        } catch (IOException e) {
+            // the writer will report it
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Streaming scanner that finds the objects of collex:text statements in an
+ * RDF/XML file without building any statements. It follows the node and
+ * property element stripes of the common RDF/XML forms: text given as an
+ * element, as an rdf:resource, or as a property attribute, and the three
+ * rdf:parseType forms around it.
+ * <p>
+ * Anything it does not fully understand - a DTD or entity, markup or a
+ * parseType inside collex:text, a relative rdf:resource, or XML that is
+ * not well formed - makes {@link #scan(File)} give up and return null so
+ * the caller can fall back to a full RDF parse, which also reports the
+ * errors properly.
+ */
+final class TextUrlScanner {
+
+    static final String RDF_NS = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    static final String COLLEX_NS = "http://www.collex.org/schema#";
+
+    // what an open element is, and so what its children are
+    private static final int ROOT = 0;      // rdf:RDF or a parseType="Collection" property: children are nodes
+    private static final int NODE = 1;      // children are property elements
+    private static final int PROPERTY = 2;  // children are node elements
+    private static final int LITERAL = 3;   // parseType="Literal" markup: no statements inside
+
+    private final XMLInputFactory factory;
+
+    public TextUrlScanner() {
+        this.factory = XMLInputFactory.newInstance();
+        this.factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        this.factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        this.factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        this.factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    /**
+     * Find the collex:text objects in <code>file</code>, trimmed, in document order
+     * @return The objects, or null if the file needs a full RDF parse
+     */
+    public List<String> scan(final File file) throws IOException {
+        InputStream is = new BufferedInputStream(new FileInputStream(file), 64 * 1024);
+        try {
+            return scan(is);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    /**
+     * Find the collex:text objects in the RDF/XML read from <code>is</code>
+     * @return The objects, or null if the document needs a full RDF parse
+     */
+    public List<String> scan(final InputStream is) {
+        List<String> texts = new ArrayList<String>();
+        XMLStreamReader reader = null;
+        try {
+            reader = this.factory.createXMLStreamReader(is);
+            int[] kinds = new int[16];
+            int depth = 0;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        int parent = (depth == 0 ? -1 : kinds[depth - 1]);
+                        int kind;
+                        if (parent == LITERAL) {
+                            kind = LITERAL;
+                        } else if (parent == NODE) {
+                            if (isText(reader.getNamespaceURI(), reader.getLocalName())) {
+                                if (readText(reader, texts) == false) {
+                                    return null;
+                                }
+                                continue;
+                            }
+                            kind = propertyKind(reader);
+                            if (kind == -1) {
+                                return null;
+                            }
+                        } else if (depth == 0 && RDF_NS.equals(reader.getNamespaceURI())
+                            && "RDF".equals(reader.getLocalName())) {
+                            kind = ROOT;
+                        } else {
+                            kind = NODE;
+                        }
+                        if (kind != LITERAL) {
+                            addAttributeTexts(reader, texts);
+                        }
+                        if (depth == kinds.length) {
+                            int[] grown = new int[depth * 2];
+                            System.arraycopy(kinds, 0, grown, 0, depth);
+                            kinds = grown;
+                        }
+                        kinds[depth++] = kind;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        depth--;
+                        break;
+                    case XMLStreamConstants.DTD:
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                        return null;
+                    default:
+                        break;
+                }
+            }
+            return texts;
+        } catch (XMLStreamException e) {
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // nothing more to read
+                }
+            }
+        }
+    }
+
+    private static boolean isText(final String namespace, final String localName) {
+        return COLLEX_NS.equals(namespace) && "text".equals(localName);
+    }
+
+    /**
+     * Kind of a property element other than collex:text, from its parseType
+     * @return The kind, or -1 for a parseType that is not known
+     */
+    private static int propertyKind(final XMLStreamReader reader) {
+        String parseType = reader.getAttributeValue(RDF_NS, "parseType");
+        if (parseType == null) {
+            return PROPERTY;
+        }
+        if (parseType.equals("Literal")) {
+            return LITERAL;
+        }
+        if (parseType.equals("Resource")) {
+            return NODE;
+        }
+        if (parseType.equals("Collection")) {
+            return ROOT;
+        }
+        return -1;
+    }
+
+    /**
+     * Add the value of a collex:text property attribute on the current element
+     */
+    private static void addAttributeTexts(final XMLStreamReader reader, final List<String> texts) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (isText(reader.getAttributeNamespace(i), reader.getAttributeLocalName(i))) {
+                addText(reader.getAttributeValue(i), texts);
+            }
+        }
+    }
+
+    /**
+     * Read a collex:text property element, leaving the reader on its end tag
+     * @return false if it holds anything but plain text or an absolute rdf:resource
+     */
+    private static boolean readText(final XMLStreamReader reader, final List<String> texts)
+        throws XMLStreamException {
+        String resource = null;
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespace = reader.getAttributeNamespace(i);
+            String name = reader.getAttributeLocalName(i);
+            if (RDF_NS.equals(namespace)) {
+                if (name.equals("resource")) {
+                    resource = reader.getAttributeValue(i);
+                } else if (name.equals("datatype") == false && name.equals("ID") == false) {
+                    return false;
+                }
+            } else if ("http://www.w3.org/XML/1998/namespace".equals(namespace) == false) {
+                return false;
+            }
+        }
+        if (resource != null && resource.indexOf(':') == -1) {
+            // relative to the base URI; let the RDF parser resolve it
+            return false;
+        }
+
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getText());
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (resource != null) {
+                        if (text.toString().trim().length() > 0) {
+                            return false;
+                        }
+                        addText(resource, texts);
+                    } else {
+                        addText(text.toString(), texts);
+                    }
+                    return true;
+                case XMLStreamConstants.COMMENT:
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    break;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private static void addText(final String value, final List<String> texts) {
+        String text = value.trim();
+        if (text.length() > 0) {
+            texts.add(text);
+        }
+    }
+}
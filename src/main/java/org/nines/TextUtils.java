@@ -2,28 +2,19 @@ package org.nines;
 
 import java.io.File;
 
-import org.apache.commons.lang.StringEscapeUtils;
-
 public class TextUtils {
 
+    // error report categories
+    static final String BAD_ESCAPE = "Removed potentially invalid escape sequence";
+    static final String UNKNOWN_CHARACTER = "Removed invalid UTF-8 character";
+
     /**
      * Normalize whitespace; collapse into one space/tab and one linefeed
      * @param srcText
      * @return
      */
     public static String normalizeWhitespace(final String srcText) {
-        String[] lines = srcText.replaceAll("\n+", "\n").split("\n");
-        StringBuffer out = new StringBuffer();
-        for ( int i =0; i<lines.length; i++) {
-            String line = lines[i];
-            line = line.replaceAll("\t", " ");
-            line = line.replaceAll(" +", " ");
-            line = line.trim();
-            if ( line.length() > 0) {
-                out.append( line ).append("\n");
-            }
-        }  
-        return out.toString().trim();
+        return new TextNormalizer(TextNormalizer.WHITESPACE).normalize(srcText, null);
     }
     
     /**
@@ -38,29 +29,7 @@ public class TextUtils {
         return stripUnknownUTF8(value, errorReport, null, url);
     }
     public static String stripUnknownUTF8(final String value, ErrorReport errorReport, final File file, final String url) {
-        
-        String fileName = "";
-        if (file != null) {
-            fileName = file.toString();
-        }
-        
-        // Look for unknown character and warn
-        int curPos= 0;
-        while ( true ) {
-            int pos = value.indexOf("\ufffd", curPos);
-            if (pos == -1) {
-                break;
-            }
-            curPos = pos+1;
-            
-            String snip = value.substring(Math.max(0, pos-25), Math.min(value.length(), pos+25));            
-            errorReport.addError(new IndexerError(fileName, url, 
-                    "Removed invalid UTF-8 character at position " + pos
-                    + " of field text"
-                    + "\n  Snippet: ["+snip+"]"));
-                
-        }
-        return value.replaceAll("\ufffd", "");
+        return new TextNormalizer(TextNormalizer.STRIP_UNKNOWN).normalize(value, errorListener(errorReport, file, url));
     }
 
     /**
@@ -75,45 +44,37 @@ public class TextUtils {
         return stripEscapeSequences(srcText, errorReport, file, null);
     }
     public static String stripEscapeSequences(final String srcText, ErrorReport errorReport, final File file, final String uri) {
+        TextNormalizer normalizer = new TextNormalizer(TextNormalizer.UNESCAPE | TextNormalizer.STRIP_BAD_ESCAPES);
+        return normalizer.normalize(srcText, errorListener(errorReport, file, uri));
+    }
 
-        String fileName = "";
-        if (file != null) {
-            fileName = file.toString();
-        }
-        
-        String cleaned = StringEscapeUtils.unescapeXml(srcText);
-        
-        int startPos = 0;
-        while (true) {
-            int pos = cleaned.indexOf("&#", startPos);
-            if (pos == -1) {
-                break;
-            } else {
-                // look for a trainling ; to end the sequence
-                int pos2 = cleaned.indexOf(";", pos);
-                if (pos2 > -1) {
-                    // this is likely an escape sequence
-                    if (pos2 <= pos + 6) {
-
-                        // dump the bad sequence
-                        String bad = cleaned.substring(pos, pos2 + 1);
-                        cleaned = cleaned.replaceAll(bad, "");
-                        errorReport.addError(new IndexerError(fileName, uri,
-                            "Removed potentially invalid escape sequece [" + bad + "]"));
-                        startPos = pos;
-
-                    } else {
-
-                        // no close ; found. Just skip over the &#
-                        startPos = pos + 2;
-                    }
+    /**
+     * Create a listener that adds the problems found by a TextNormalizer to the error report
+     * @param errorReport
+     * @param file File the text came from, may be null
+     * @param uri URI of the document the text belongs to, may be null
+     * @return
+     */
+    public static ITextErrorListener errorListener(final ErrorReport errorReport, final File file, final String uri) {
+        final String fileName = (file == null ? "" : file.toString());
+        return new ITextErrorListener() {
+            public void badEscape(String sequence) {
+                if (errorReport.countIfFull(BAD_ESCAPE, fileName, uri)) {
+                    return;
+                }
+                errorReport.report(fileName, uri,
+                    "Removed potentially invalid escape sequece [" + sequence + "]", BAD_ESCAPE);
+            }
 
-                } else {
-                    // NO ; found - skip over the &#
-                    startPos = pos + 2;
+            public void unknownCharacter(int position, CharSequence text, int start, int end) {
+                if (errorReport.countIfFull(UNKNOWN_CHARACTER, fileName, uri)) {
+                    return;
                 }
+                errorReport.report(fileName, uri,
+                    "Removed invalid UTF-8 character at position " + position
+                    + " of field text"
+                    + "\n  Snippet: ["+text.subSequence(start, end)+"]", UNKNOWN_CHARACTER);
             }
-        }
-        return cleaned;
+        };
     }
 }
@@ -15,11 +15,11 @@
  **/
 package org.nines;
 
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 
 //import org.jdom.Element;
 //import org.jdom.IllegalDataException;
@@ -55,73 +55,34 @@ public class ValidationUtility {
     public static final String[] REQUIRED_FIELDS = new String[] { "archive", "title", "year", "doc_type", "genre",  "discipline",
         "freeculture", "has_full_text", "is_ocr", "federation", "url"  };
 
-    // Parallel to required fields - the actual tag name to be used
-    // Any change above must be reflected here
-    private static final String[] RDF_TERM = new String[] { "collex:archive", "dc:title", "dc:date", "dc:type", "collex:genre", "collex:discipline",
-        "collex:freeculture", "collex:full_text", "collex:is_ocr", "collex:federation", "rdfs:seeAlso"};
-    
     public static final String[] REQUIRED_PAGE_FIELDS = new String[] { "text", "page_of", "page_num" };
-    private static final String[] RDF_PAGE_TERM = new String[] { "collex:text", "collex:pageof", "collex:pagenum"};
-
-    private static final String[] ROLE_FIELDS = new String[] {
-    	"role_ABR", "role_ACP", "role_ACT", "role_ADI", "role_ADP", "role_AFT", "role_ANL", "role_ANM", "role_ANN", "role_ANT",
-    	"role_APE", "role_APL", "role_APP", "role_AQT", "role_ARC", "role_ARD", "role_ARR", "role_ART", "role_ASG", "role_ASN",
-    	"role_ATO", "role_ATT", "role_AUC", "role_AUD", "role_AUI", "role_AUS", "role_AUT", "role_BDD", "role_BJD", "role_BKD",
-    	"role_BKP", "role_BLW", "role_BND", "role_BPD", "role_BRD", "role_BRL", "role_BSL", "role_CAS", "role_CCP", "role_CHR",
-    	"role_CLI", "role_CLL", "role_CLR", "role_CLT", "role_CMM", "role_CMP", "role_CMT", "role_CND", "role_CNG", "role_CNS",
-    	"role_COE", "role_COL", "role_COM", "role_CON", "role_COR", "role_COS", "role_COT", "role_COU", "role_COV", "role_CPC",
-    	"role_CPE", "role_CPH", "role_CPL", "role_CPT", "role_CRE", "role_CRP", "role_CRR", "role_CRT", "role_CSL", "role_CSP",
-    	"role_CST", "role_CTB", "role_CTE", "role_CTG", "role_CTR", "role_CTS", "role_CTT", "role_CUR", "role_CWT", "role_DBP",
-    	"role_DFD", "role_DFE", "role_DFT", "role_DGG", "role_DGS", "role_DIS", "role_DLN", "role_DNC", "role_DNR", "role_DPC",
-    	"role_DPT", "role_DRM", "role_DRT", "role_DSR", "role_DST", "role_DTC", "role_DTE", "role_DTM", "role_DTO", "role_DUB",
-    	"role_EDC", "role_EDM", "role_EDT", "role_EGR", "role_ELG", "role_ELT", "role_ENG", "role_ENJ", "role_ETR", "role_EVP",
-    	"role_EXP", "role_FAC", "role_FDS", "role_FLD", "role_FLM", "role_FMD", "role_FMK", "role_FMO", "role_FMP", "role_FND",
-    	"role_FPY", "role_FRG", "role_GIS", "role_HIS", "role_HNR", "role_HST", "role_ILL", "role_ILU", "role_INS", "role_INV",
-    	"role_ISB", "role_ITR", "role_IVE", "role_IVR", "role_JUD", "role_JUG", "role_LBR", "role_LBT", "role_LDR", "role_LED",
-    	"role_LEE", "role_LEL", "role_LEN", "role_LET", "role_LGD", "role_LIE", "role_LIL", "role_LIT", "role_LSA", "role_LSE",
-    	"role_LSO", "role_LTG", "role_LYR", "role_MCP", "role_MDC", "role_MED", "role_MFP", "role_MFR", "role_MOD", "role_MON",
-    	"role_MRB", "role_MRK", "role_MSD", "role_MTE", "role_MTK", "role_MUS", "role_NRT", "role_OPN", "role_ORG", "role_ORM",
-    	"role_OSP", "role_OTH", "role_OWN", "role_PAN", "role_PAT", "role_PBD", "role_PBL", "role_PDR", "role_PFR", "role_PHT",
-    	"role_PLT", "role_PMA", "role_PMN", "role_POP", "role_PPM", "role_PPT", "role_PRA", "role_PRC", "role_PRD", "role_PRE",
-    	"role_PRF", "role_PRG", "role_PRM", "role_PRN", "role_PRO", "role_PRP", "role_PRS", "role_PRT", "role_PRV", "role_PTA",
-    	"role_PTE", "role_PTF", "role_PTH", "role_PTT", "role_PUP", "role_RBR", "role_RCD", "role_RCE", "role_RCP", "role_RDD",
-    	"role_RED", "role_REN", "role_RES", "role_REV", "role_RPC", "role_RPS", "role_RPT", "role_RPY", "role_RSE", "role_RSG",
-    	"role_RSP", "role_RSR", "role_RST", "role_RTH", "role_RTM", "role_SAD", "role_SCE", "role_SCL", "role_SCR", "role_SDS",
-    	"role_SEC", "role_SGD", "role_SGN", "role_SHT", "role_SLL", "role_SNG", "role_SPK", "role_SPN", "role_SPY", "role_SRV",
-    	"role_STD", "role_STG", "role_STL", "role_STM", "role_STN", "role_STR", "role_TCD", "role_TCH", "role_THS", "role_TLD",
-    	"role_TLP", "role_TRC", "role_TRL", "role_TYD", "role_TYG", "role_UVP", "role_VAC", "role_VDG", "role_WAC", "role_WAL",
-    	"role_WAM", "role_WAT", "role_WDC", "role_WDE", "role_WIN", "role_WIT", "role_WPR", "role_WST"	
-    };
 
-    public static ArrayList<String> validateObject(boolean isPagesArchive, HashMap<String, ArrayList<String>> object) {
-        ArrayList<String> messages = new ArrayList<String>();
-
-        if ( !isPagesArchive ) {
-            messages.addAll(ValidationUtility.validateRequired(object));
-            messages.addAll(ValidationUtility.validateGenre(object));
-            messages.addAll(ValidationUtility.validateDiscipline(object));
-            messages.addAll(ValidationUtility.validateRole(object));
-            messages.addAll(ValidationUtility.validateType(object));
-            messages.addAll(ValidationUtility.validateUri(object));
-        } else {
-            messages.addAll(ValidationUtility.validatePagesRequired(object));
-            messages.addAll(ValidationUtility.validateUri(object));  
-        }
+    private static final HashSet<String> GENRES = new HashSet<String>(Arrays.asList(GENRE_LIST));
+    private static final HashSet<String> DISCIPLINES = new HashSet<String>(Arrays.asList(DISCIPLINE_LIST));
+    private static final HashSet<String> TYPES = new HashSet<String>(Arrays.asList(TYPE_LIST));
 
+    /**
+     * Validate an object against the built in rules in a single pass.
+     * The indexer uses a {@link SchemaValidator} directly.
+     */
+    public static ArrayList<String> validateObject(boolean isPagesArchive, SolrDocument object) throws IOException {
+        final ArrayList<String> messages = new ArrayList<String>();
+        SchemaValidator.defaultValidator(isPagesArchive).validate(object, new IValidationSink() {
+            public void message(String message) {
+                messages.add(message);
+            }
+        });
         return messages;
     }
 
-    public static ArrayList<String> validateRole(HashMap<String, ArrayList<String>> object) {
+    public static ArrayList<String> validateRole(SolrDocument object) {
         ArrayList<String> messages = new ArrayList<String>();
 
-        // look for all role_* keys in object, validate that they are in this list:
-        //    ART, AUT, EDT, PBL, and TRL, also CRE, EGR, ETR
-        ArrayList<String> validRoles = new ArrayList<String>(Arrays.asList(ROLE_FIELDS));
-
-        Set<String> keys = object.keySet();
-        for (String key : keys) {
+        // look for all role_* keys in object, validate that they are known relator codes
+        for (int i = 0; i < object.size(); i++) {
+            String key = object.name(i);
             if (key.startsWith("role_")
-                &&  !validRoles.contains(key) ) {
+                &&  !RdfSchema.isRoleField(key) ) {
                 messages.add("invalid role: " + key);
             }
         }
@@ -129,15 +90,14 @@ public class ValidationUtility {
         return messages;
     }
 
-    public static ArrayList<String> validateUri(HashMap<String, ArrayList<String>> object) {
+    public static ArrayList<String> validateUri(SolrDocument object) throws IOException {
         ArrayList<String> messages = new ArrayList<String>();
 
         // The URI can't contain foo
-        ArrayList<String> fields = object.get("uri");
-        if (fields.size() > 1)
+        if (object.count("uri") > 1)
             messages.add("must contain exactly one URI field");
-        if (!fields.isEmpty()) {
-            String fieldVal = fields.get(0);
+        String fieldVal = object.getFirst("uri");
+        if (fieldVal != null) {
             if (fieldVal.startsWith("http://foo/"))
                 messages.add("URI field is not created properly");
         }
@@ -145,34 +105,32 @@ public class ValidationUtility {
         return messages;
     }
 
-	private static void maxOne(String fieldName, HashMap<String, ArrayList<String>> object, ArrayList<String> messages) {
-        ArrayList<String> fields = object.get(fieldName);
+	private static void maxOne(String fieldName, SolrDocument object, ArrayList<String> messages) throws IOException {
+        List<String> fields = object.get(fieldName);
         if (fields != null && fields.size() > 1) {
             String f = "";
             for (String s : fields) {
                 f += s + ";";
             }
             messages.add("must not contain more than one " + fieldName + " field:" + f);
-            while (fields.size() > 1)
-            	fields.remove(1);
+            object.truncate(fieldName, 1);
         }
 	}
 	
 	/**
      * Confirms that required fields for PAGES archives are present and non-null
      */
-    public static ArrayList<String> validatePagesRequired(HashMap<String, ArrayList<String>> object) {
+    public static ArrayList<String> validatePagesRequired(SolrDocument object) {
         ArrayList<String> messages = new ArrayList<String>();
 
         for (int i = 0; i < REQUIRED_PAGE_FIELDS.length; i++) {
-            if (!object.containsKey(REQUIRED_PAGE_FIELDS[i])) {
-                messages.add("object must contain the " + RDF_PAGE_TERM[i] + " field");
+            if (!object.has(REQUIRED_PAGE_FIELDS[i])) {
+                messages.add("object must contain the " + RdfSchema.termForField(REQUIRED_PAGE_FIELDS[i]) + " field");
             }
         }
         
-        if ( object.containsKey("text") ) {
-            ArrayList<String> txtVal = object.get("text");
-            if ( txtVal.get(0).length() == 0) {
+        if ( object.has("text") ) {
+            if ( object.isFirstEmpty("text") ) {
                 object.remove("text");
                 messages.add("Warning - collex:text is blank");
             }
@@ -183,17 +141,16 @@ public class ValidationUtility {
     /**
      * Confirms that required fields are present and non-null
      */
-    public static ArrayList<String> validateRequired(HashMap<String, ArrayList<String>> object) {
+    public static ArrayList<String> validateRequired(SolrDocument object) throws IOException {
         ArrayList<String> messages = new ArrayList<String>();
 
         for (int i = 0; i < REQUIRED_FIELDS.length; i++) {
-            if (!object.containsKey(REQUIRED_FIELDS[i])) {
-                messages.add("object must contain the " + RDF_TERM[i] + " field");
+            if (!object.has(REQUIRED_FIELDS[i])) {
+                messages.add("object must contain the " + RdfSchema.termForField(REQUIRED_FIELDS[i]) + " field");
             }
         }
 
-        ArrayList<String> fields = object.get("archive");
-        if (fields == null || fields.size() > 1) {
+        if (object.count("archive") != 1) {
             messages.add("must contain exactly one archive field");
         }
 
@@ -201,10 +158,9 @@ public class ValidationUtility {
 		maxOne("url", object, messages);
 		maxOne("thumbnail", object, messages);
 
-        Set<String> keys = object.keySet();
         boolean hasRole = false;
-        for (String key : keys) {
-            if (key.startsWith("role_")) {
+        for (int i = 0; i < object.size(); i++) {
+            if (object.name(i).startsWith("role_")) {
                 hasRole = true;
                 break;
             }
@@ -220,20 +176,15 @@ public class ValidationUtility {
     /**
      * The genre must be in a constrained list.
      */
-    public static ArrayList<String> validateGenre(HashMap<String, ArrayList<String>> object) {
+    public static ArrayList<String> validateGenre(SolrDocument object) throws IOException {
         ArrayList<String> messages = new ArrayList<String>();
 
-        for (Map.Entry<String, ArrayList<String>> entry : object.entrySet()) {
-
-            String key = entry.getKey();
-            ArrayList<String> valueList = entry.getValue();
-
-            if ("genre".equals(key)) {
-                // test 1: each genre is valid
-                for (String genre : valueList) {
-                    if (!validateGenreInList(genre)) {
-                        messages.add(genre + " genre not approved by ARC");
-                    }
+        List<String> valueList = object.get("genre");
+        if (valueList != null) {
+            // test 1: each genre is valid
+            for (String genre : valueList) {
+                if (!validateGenreInList(genre)) {
+                    messages.add(genre + " genre not approved by ARC");
                 }
             }
         }
@@ -242,33 +193,21 @@ public class ValidationUtility {
     }
 
     public static boolean validateGenreInList(String genre) {
-
-        for (String aGenreList : GENRE_LIST) {
-            if (aGenreList.equals(genre)) {
-                return true;
-            }
-        }
-
-        return false;
+        return GENRES.contains(genre);
     }
 
     /**
      * The genre must be in a constrained list.
      */
-    public static ArrayList<String> validateDiscipline(HashMap<String, ArrayList<String>> object) {
+    public static ArrayList<String> validateDiscipline(SolrDocument object) throws IOException {
         ArrayList<String> messages = new ArrayList<String>();
 
-        for (Map.Entry<String, ArrayList<String>> entry : object.entrySet()) {
-
-            String key = entry.getKey();
-            ArrayList<String> valueList = entry.getValue();
-
-            if ("discipline".equals(key)) {
-                // test 1: each discipline is valid
-                for (String discipline : valueList) {
-                    if (!validateDisciplineInList(discipline)) {
-                        messages.add(discipline + " discipline not approved by ARC");
-                    }
+        List<String> valueList = object.get("discipline");
+        if (valueList != null) {
+            // test 1: each discipline is valid
+            for (String discipline : valueList) {
+                if (!validateDisciplineInList(discipline)) {
+                    messages.add(discipline + " discipline not approved by ARC");
                 }
             }
         }
@@ -279,31 +218,20 @@ public class ValidationUtility {
 
 
     public static boolean validateDisciplineInList(String discipline) {
-        for (String aDisciplineList : DISCIPLINE_LIST) {
-            if (aDisciplineList.equals(discipline)) {
-                return true;
-            }
-        }
-
-        return false;
+        return DISCIPLINES.contains(discipline);
     }
 
     /**
      * The genre must be in a constrained list.
      */
-    public static ArrayList<String> validateType(HashMap<String, ArrayList<String>> object) {
+    public static ArrayList<String> validateType(SolrDocument object) throws IOException {
         ArrayList<String> messages = new ArrayList<String>();
-        for (Map.Entry<String, ArrayList<String>> entry : object.entrySet()) {
-
-            String key = entry.getKey();
-            ArrayList<String> valueList = entry.getValue();
-
-            if ("doc_type".equals(key)) {
-                // test 1: each type is valid
-                for (String type : valueList) {
-                    if (!validateTypeInList(type)) {
-                        messages.add(type + " type not approved by ARC");
-                    }
+        List<String> valueList = object.get("doc_type");
+        if (valueList != null) {
+            // test 1: each type is valid
+            for (String type : valueList) {
+                if (!validateTypeInList(type)) {
+                    messages.add(type + " type not approved by ARC");
                 }
             }
         }
@@ -311,20 +239,13 @@ public class ValidationUtility {
     }
 
     public static boolean validateTypeInList(String type) {
-        for (String aTypeList : TYPE_LIST) {
-            if (aTypeList.equals(type)) {
-                return true;
-            }
-        }
-
-        return false;
+        return TYPES.contains(type);
     }
 
-    public static ArrayList<String> validateFreecultureElement(HashMap<String, ArrayList<String>> object) {
+    public static ArrayList<String> validateFreecultureElement(SolrDocument object) throws IOException {
         ArrayList<String> messages = new ArrayList<String>();
 
-        ArrayList<String> fields = object.get("freeculture");
-        String fieldVal = fields.get(0);
+        String fieldVal = object.getFirst("freeculture");
         if (!validateFreeculture(fieldVal)) {
             messages.add(fieldVal + " is not a valid value for collex:freeculture");
         }
@@ -339,5 +260,3 @@ public class ValidationUtility {
             return false;
     }
 }
-
-
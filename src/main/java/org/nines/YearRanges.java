@@ -0,0 +1,254 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.StringTokenizer;
+
+/**
+ * A set of years held as sorted, non-overlapping ranges of integers. Dates
+ * such as "1uuu" or "0001,9999" are a single range here instead of thousands
+ * of year strings. Years are limited to 0 - 9999.
+ */
+final class YearRanges {
+
+    static final int MAX_YEAR = 9999;
+
+    // strings for the years, created on demand and shared by all documents
+    private static final String[] YEAR_STRINGS = new String[MAX_YEAR + 1];
+
+    private int[] starts = new int[4];
+    private int[] ends = new int[4];
+    private int count = 0;
+
+    /**
+     * Get the four digit string for <code>year</code>
+     */
+    static String yearString(final int year) {
+        String str = YEAR_STRINGS[year];
+        if (str == null) {
+            char[] digits = new char[] {
+                (char) ('0' + year / 1000), (char) ('0' + (year / 100) % 10),
+                (char) ('0' + (year / 10) % 10), (char) ('0' + year % 10) };
+            str = new String(digits);
+            YEAR_STRINGS[year] = str;
+        }
+        return str;
+    }
+
+    /**
+     * Parse the value of a date into year ranges. Supported tokens are separated
+     * by whitespace and are years (1850, 1850-05-12), year ranges (1850,1875) or
+     * years with a wildcard (185u, 18uu).
+     *
+     * @return The years, or null if the value is not a valid date
+     */
+    static YearRanges parse(final String date) {
+        YearRanges years = new YearRanges();
+        String value = date.trim();
+        if ("unknown".equalsIgnoreCase(value) || "uncertain".equalsIgnoreCase(value)) {
+            return null;
+        }
+
+        // deal with embedded whitespace in ranges
+        value = value.replace( ", ", "," ).replace( " ,", "," );
+
+        StringTokenizer tokenizer = new StringTokenizer(value);
+        while (tokenizer.hasMoreTokens()) {
+            String token = tokenizer.nextToken();
+            int range = token.indexOf(',');
+            int wild = token.indexOf('u');
+
+            // if we have a leading alpha (e.g "Aug") the date is not valid
+            if (Character.isLetter(token.charAt(0))) {
+                return null;
+            }
+
+            // ranges containing wildcards are forbidden
+            if (range != -1 && wild != -1) {
+                return null;
+            }
+
+            if (range != -1) {
+                String[] tokens = token.split(",");
+                if (tokens.length != 2) {
+                    return null;
+                }
+                int start = leadingYear(tokens[0]);
+                int finish = leadingYear(tokens[1]);
+                if (start == -1 || finish == -1) {
+                    return null;
+                }
+                years.add(start, Math.max(start, finish));
+            } else if (wild != -1) {
+                // expand 184u to 1840-1849; only the first 'u' within the year counts
+                int numLength = Math.min(token.length(), 4);
+                if (wild < numLength) {
+                    int prefix = digits(token, wild);
+                    if (prefix == -1) {
+                        return null;
+                    }
+                    int factor = 1;
+                    for (int i = wild; i < numLength; i++) {
+                        factor *= 10;
+                    }
+                    years.add(prefix * factor, prefix * factor + factor - 1);
+                }
+            } else {
+                int year = leadingYear(token);
+                if (year == -1) {
+                    return null;
+                }
+                years.add(year, year);
+            }
+        }
+        return (years.isEmpty() ? null : years);
+    }
+
+    /**
+     * The year formed by the first four chars of <code>token</code>, or -1 if there is none
+     */
+    private static int leadingYear(final String token) {
+        if (token.length() < 4) {
+            return -1;
+        }
+        return digits(token, 4);
+    }
+
+    /**
+     * The value of the first <code>len</code> chars of <code>token</code>, or -1 if they are not all digits
+     */
+    private static int digits(final String token, final int len) {
+        int value = 0;
+        for (int i = 0; i < len; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Add the years <code>start</code> through <code>end</code>, merging with any
+     * ranges they overlap or adjoin
+     */
+    void add(final int start, final int end) {
+        // find the first range that ends at or after start-1
+        int idx = 0;
+        while (idx < this.count && this.ends[idx] < start - 1) {
+            idx++;
+        }
+        // and absorb every range that begins at or before end+1
+        int last = idx;
+        int newStart = start;
+        int newEnd = end;
+        while (last < this.count && this.starts[last] <= end + 1) {
+            newStart = Math.min(newStart, this.starts[last]);
+            newEnd = Math.max(newEnd, this.ends[last]);
+            last++;
+        }
+        int removed = last - idx;
+        if (removed == 0) {
+            if (this.count == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.count * 2);
+                this.ends = Arrays.copyOf(this.ends, this.count * 2);
+            }
+            System.arraycopy(this.starts, idx, this.starts, idx + 1, this.count - idx);
+            System.arraycopy(this.ends, idx, this.ends, idx + 1, this.count - idx);
+            this.count++;
+        } else if (removed > 1) {
+            System.arraycopy(this.starts, last, this.starts, idx + 1, this.count - last);
+            System.arraycopy(this.ends, last, this.ends, idx + 1, this.count - last);
+            this.count -= removed - 1;
+        }
+        this.starts[idx] = newStart;
+        this.ends[idx] = newEnd;
+    }
+
+    void addAll(final YearRanges other) {
+        for (int i = 0; i < other.count; i++) {
+            add(other.starts[i], other.ends[i]);
+        }
+    }
+
+    boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    /**
+     * Number of distinct ranges
+     */
+    int rangeCount() {
+        return this.count;
+    }
+
+    int start(final int idx) {
+        return this.starts[idx];
+    }
+
+    int end(final int idx) {
+        return this.ends[idx];
+    }
+
+    /**
+     * The earliest year
+     */
+    int first() {
+        return this.starts[0];
+    }
+
+    /**
+     * The latest year
+     */
+    int last() {
+        return this.ends[this.count - 1];
+    }
+
+    /**
+     * Get the first year of every <code>size</code> year period (decade,
+     * century...) that contains at least one of the years, in order
+     */
+    int[] periods(final int size) {
+        int[] periods = new int[MAX_YEAR / size + 1];
+        int cnt = 0;
+        int prior = -1;
+        for (int i = 0; i < this.count; i++) {
+            for (int p = this.starts[i] / size; p <= this.ends[i] / size; p++) {
+                if (p != prior) {
+                    periods[cnt++] = p * size;
+                    prior = p;
+                }
+            }
+        }
+        return Arrays.copyOf(periods, cnt);
+    }
+
+    /**
+     * Get every year as a string, in order
+     */
+    ArrayList<String> toYearList() {
+        ArrayList<String> years = new ArrayList<String>();
+        for (int i = 0; i < this.count; i++) {
+            for (int y = this.starts[i]; y <= this.ends[i]; y++) {
+                years.add(yearString(y));
+            }
+        }
+        return years;
+    }
+}
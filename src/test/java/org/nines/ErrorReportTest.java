@@ -16,6 +16,13 @@
 package org.nines;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
@@ -41,6 +48,163 @@ public class ErrorReportTest extends TestCase {
     assertTrue(summary.getFileCount() == 3);
   }
 
+  public void testExactCounts() throws IOException {
+    File reportFile = File.createTempFile("report", ".log");
+    ErrorReport report = new ErrorReport(reportFile, ErrorReport.Format.TEXT, true, 0);
+    for (int i = 0; i < 1000; i++) {
+      report.addError(new IndexerError("file" + (i % 10) + ".rdf", "abc" + i, "my error message"));
+    }
+    report.close();
+    ErrorSummary summary = report.getSummary();
+    assertEquals(10, summary.getFileCount());
+    assertEquals(1000, summary.getObjectCount());
+    assertEquals(1000, summary.getErrorCount());
+    List<String> lines = FileUtils.readLines(reportFile, "UTF-8");
+    assertEquals(1000, lines.size());
+    assertEquals("file0.rdf\tabc0\tmy error message", lines.get(0));
+    reportFile.delete();
+  }
+
+  public void testEstimatedCounts() throws Exception {
+    File reportFile = File.createTempFile("report", ".log");
+    final ErrorReport report = new ErrorReport(reportFile);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int base = t * 25000;
+      threads[t] = new Thread() {
+        public void run() {
+          for (int i = base; i < base + 25000; i++) {
+            report.addError(new IndexerError("file" + (i / 100) + ".rdf", "abc" + i, "my error message"));
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    ErrorSummary summary = report.getSummary();
+    assertEquals(100000, summary.getErrorCount());
+    assertEquals(1000, summary.getFileCount(), 30);
+    assertEquals(100000, summary.getObjectCount(), 3000);
+    report.close();
+    // far more than the writer can be behind; none may be lost
+    assertEquals(100000, FileUtils.readLines(reportFile, "UTF-8").size());
+    reportFile.delete();
+  }
+
+  public void testFlushAndClose() throws IOException {
+    File reportFile = File.createTempFile("report", ".log");
+    int writers = writerThreads();
+    ErrorReport report = new ErrorReport(reportFile);
+    report.flush();
+    assertEquals(writers, writerThreads());
+    for (int i = 0; i < 10000; i++) {
+      report.addError(new IndexerError("file1.rdf", "abc" + i, "my error message"));
+    }
+    report.flush();
+    assertEquals(10000, FileUtils.readLines(reportFile, "UTF-8").size());
+
+    assertEquals(writers + 1, writerThreads());
+    report.close();
+    assertEquals(writers, writerThreads());
+    report.addError(new IndexerError("file2.rdf", "abc", "after close"));
+    report.close();
+    assertEquals(10001, report.getErrorCount());
+    assertEquals(10000, FileUtils.readLines(reportFile, "UTF-8").size());
+    reportFile.delete();
+  }
+
+  private static int writerThreads() {
+    int cnt = 0;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().equals("error-report") && thread.isAlive()) {
+        cnt++;
+      }
+    }
+    return cnt;
+  }
+
+  public void testJsonFormat() throws IOException {
+    File reportFile = File.createTempFile("report", ".jsonl");
+    ErrorReport report = new ErrorReport(reportFile, ErrorReport.Format.JSON, false, 0);
+    report.addError(new IndexerError("file1.rdf", "abc1", "bad \"quote\"\n  here"));
+    report.addError(new IndexerError("file2.rdf", null, "second"));
+    report.close();
+    List<String> lines = FileUtils.readLines(reportFile, "UTF-8");
+    assertEquals(2, lines.size());
+    JsonObject json = new JsonParser().parse(lines.get(0)).getAsJsonObject();
+    assertEquals("file1.rdf", json.get("file").getAsString());
+    assertEquals("abc1", json.get("uri").getAsString());
+    assertEquals("bad \"quote\"\n  here", json.get("message").getAsString());
+    reportFile.delete();
+  }
+
+  public void testCategoryLimit() throws IOException {
+    File reportFile = File.createTempFile("report", ".log");
+    ErrorReport report = new ErrorReport(reportFile, ErrorReport.Format.TEXT, true, 5);
+    for (int i = 0; i < 20; i++) {
+      report.addError(new IndexerError("file1.rdf", "abc" + i, "Parse warning at line " + i + ", col 3 : bad"));
+      report.report("file2.rdf", "abc" + i, "Removed it", TextUtils.UNKNOWN_CHARACTER);
+    }
+    report.addError(new IndexerError("file3.rdf", "abc", "Missing full text file /data/fulltext/x.txt"));
+    for (int i = 0; i < 6; i++) {
+      report.addError(new IndexerError("file4.rdf", "abc" + i, "object must contain the dc:title field"));
+      report.addError(new IndexerError("file4.rdf", "abc" + i, "object must contain the dc:date field"));
+    }
+    report.close();
+
+    ErrorSummary summary = report.getSummary();
+    assertEquals(53, summary.getErrorCount());
+    assertEquals(4, summary.getFileCount());
+    assertEquals(Integer.valueOf(20), summary.getCategoryCounts().get("Parse warning at line #, col #"));
+    assertEquals(Integer.valueOf(20), summary.getCategoryCounts().get(TextUtils.UNKNOWN_CHARACTER));
+    assertEquals(Integer.valueOf(1), summary.getCategoryCounts().get("Missing full text file"));
+    assertEquals(Integer.valueOf(6), summary.getCategoryCounts().get("object must contain the dc:title field"));
+    assertEquals(Integer.valueOf(6), summary.getCategoryCounts().get("object must contain the dc:date field"));
+
+    List<String> lines = FileUtils.readLines(reportFile, "UTF-8");
+    // 5 + 5 + 1 + 5 + 5 errors, a heading and one line per category
+    assertEquals(27, lines.size());
+    assertTrue(lines.get(21).startsWith("--- 53 errors"));
+    reportFile.delete();
+  }
+
+  public void testFullCategoryBuildsNoSnippet() throws IOException {
+    File reportFile = File.createTempFile("report", ".log");
+    ErrorReport report = new ErrorReport(reportFile, ErrorReport.Format.TEXT, true, 1);
+    ITextErrorListener listener = TextUtils.errorListener(report, new File("file1.txt"), "abc");
+    listener.unknownCharacter(3, "some text", 0, 4);
+    CharSequence untouchable = new CharSequence() {
+      public int length() {
+        throw new AssertionError("snippet built for a full category");
+      }
+      public char charAt(int index) {
+        throw new AssertionError("snippet built for a full category");
+      }
+      public CharSequence subSequence(int start, int end) {
+        throw new AssertionError("snippet built for a full category");
+      }
+    };
+    for (int i = 0; i < 10; i++) {
+      listener.unknownCharacter(i, untouchable, 0, 4);
+    }
+    report.close();
+    assertEquals(11, report.getSummary().getErrorCount());
+    assertEquals(Integer.valueOf(11), report.getSummary().getCategoryCounts().get(TextUtils.UNKNOWN_CHARACTER));
+    reportFile.delete();
+  }
+
+  public void testCategoryOf() {
+    assertEquals("Invalid date format in date of edition", IndexerError.categoryOf("Invalid date format in date of edition: 18xx"));
+    assertEquals("Removed potentially invalid escape sequece", IndexerError.categoryOf("Removed potentially invalid escape sequece [&#1x;]"));
+    assertEquals("Duplicate URI", IndexerError.categoryOf("Duplicate URI"));
+    assertEquals("Missing full text source directory", IndexerError.categoryOf("Missing full text source directory /a/b"));
+    assertEquals("Parse warning at line #, col #", IndexerError.categoryOf("Parse warning at line 3, col 4 : bad"));
+    assertEquals("object must contain the dc:title field", IndexerError.categoryOf("object must contain the dc:title field"));
+    assertEquals("object must contain the dc:date field", IndexerError.categoryOf("object must contain the dc:date field"));
+  }
+
   public static void main(String[] args) {
     junit.textui.TestRunner.run(new TestSuite(ErrorReportTest.class));
   }
@@ -0,0 +1,185 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.TestCase;
+
+public class ExtractionPoolTest extends TestCase {
+
+    private File reportFile;
+    private ErrorReport errorReport;
+    private RDFIndexerConfig config;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.reportFile = File.createTempFile("extract", ".log");
+        this.errorReport = new ErrorReport(this.reportFile);
+        this.config = new RDFIndexerConfig();
+        this.config.extractTimeout = 1;
+    }
+
+    protected void tearDown() throws Exception {
+        this.errorReport.close();
+        this.reportFile.delete();
+        super.tearDown();
+    }
+
+    public void testCleanText() throws IOException {
+        ExtractionPool pool = new ExtractionPool(this.config, this.errorReport);
+        try {
+            String raw = "<head>x</head><p>some text</p>";
+            assertEquals(RawTextCleaner.cleanText(raw), pool.cleanText(raw, "a.txt"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testTimeoutIsQuarantined() throws IOException {
+        ExtractionPool pool = new ExtractionPool(this.config, this.errorReport);
+        try {
+            pool.run(new Callable<String>() {
+                public String call() throws Exception {
+                    Thread.sleep(60000);
+                    return "";
+                }
+            }, 0, "slow.txt", "");
+            fail("timed out extraction was not quarantined");
+        } catch (ExtractionPool.QuarantinedException e) {
+            assertTrue(e.getMessage().contains("1 seconds"));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(1, pool.getQuarantinedCount());
+        assertEquals(1, this.errorReport.getErrorCount());
+    }
+
+    public void testTimedOutThreadKeepsSlot() throws Exception {
+        final ExtractionPool pool = new ExtractionPool(this.config, this.errorReport, 1);
+        final AtomicBoolean stop = new AtomicBoolean();
+        try {
+            pool.run(new Callable<String>() {
+                public String call() {
+                    // like PDFBox, ignore the interrupt
+                    while (stop.get() == false) {
+                        Thread.interrupted();
+                    }
+                    return "";
+                }
+            }, 0, "stuck.txt", "");
+            fail("timed out extraction was not quarantined");
+        } catch (ExtractionPool.QuarantinedException e) {
+            assertEquals(1, pool.getStuckCount());
+        }
+
+        final AtomicBoolean ran = new AtomicBoolean();
+        Thread next = new Thread() {
+            public void run() {
+                try {
+                    ran.set("done".equals(pool.run(new Callable<String>() {
+                        public String call() {
+                            return "done";
+                        }
+                    }, 0, "next.txt", "")));
+                } catch (IOException e) {
+                    // left unset
+                }
+            }
+        };
+        next.start();
+        next.join(300);
+        assertTrue(next.isAlive());
+
+        stop.set(true);
+        next.join(5000);
+        assertTrue(ran.get());
+        assertEquals(0, pool.getStuckCount());
+        pool.shutdown();
+    }
+
+    public void testMemoryGuard() throws Exception {
+        final ExtractionPool pool = new ExtractionPool(this.config, this.errorReport);
+        Thread other = new Thread() {
+            public void run() {
+                try {
+                    pool.run(new Callable<String>() {
+                        public String call() throws Exception {
+                            Thread.sleep(500);
+                            return "";
+                        }
+                    }, 0, "other.txt", "");
+                } catch (IOException e) {
+                    // not under test
+                }
+            }
+        };
+        other.start();
+        Thread.sleep(100);
+        long start = System.currentTimeMillis();
+        try {
+            pool.run(new Callable<String>() {
+                public String call() {
+                    return "";
+                }
+            }, Long.MAX_VALUE, "huge.txt", "");
+            fail("extraction too large for the heap was run");
+        } catch (ExtractionPool.HeapShortException e) {
+            // only given up on once the other extraction stopped
+            assertTrue(e.getMessage().contains("heap"));
+            assertTrue(System.currentTimeMillis() - start >= 300);
+        } finally {
+            other.join();
+            pool.shutdown();
+        }
+        assertEquals(0, pool.getQuarantinedCount());
+        assertEquals(0, this.errorReport.getErrorCount());
+    }
+
+    public void testExtractionErrorIsNotQuarantined() {
+        ExtractionPool pool = new ExtractionPool(this.config, this.errorReport);
+        try {
+            pool.run(new Callable<String>() {
+                public String call() throws IOException {
+                    throw new IOException("corrupt");
+                }
+            }, 0, "bad.txt", "");
+            fail("extraction error was swallowed");
+        } catch (ExtractionPool.QuarantinedException e) {
+            fail("extraction error was quarantined");
+        } catch (IOException e) {
+            assertEquals("corrupt", e.getMessage());
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(0, pool.getQuarantinedCount());
+    }
+
+    public void testChildJvm() throws IOException {
+        this.config.extractChildJvm = true;
+        this.config.extractTimeout = 60;
+        ExtractionPool pool = new ExtractionPool(this.config, this.errorReport);
+        try {
+            String raw = "<script>x</script><p>some text</p>";
+            assertEquals(RawTextCleaner.cleanText(raw), pool.cleanText(raw, "a.txt"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class HtmlStripperTest extends TestCase {
+
+    /**
+     * The string based stripping that HtmlStripper replaced
+     */
+    private static String legacyStrip(String fullText) {
+        fullText = legacyRemove(fullText, "<head", "</head>");
+        fullText = legacyRemove(fullText, "<script", "</script>");
+        fullText = legacyRemove(fullText, "<", ">");
+        fullText = fullText.replaceAll("\r", "");
+        fullText = fullText.replaceAll("&nbsp;", " ");
+        fullText = fullText.replaceAll("&#160;", " ");
+        fullText = fullText.replaceAll(" \n", "\n");
+        fullText = fullText.replaceAll("\n ", "\n");
+        return fullText;
+    }
+
+    private static String legacyRemove(String fullText, String left, String right) {
+        int start = fullText.indexOf(left);
+        while (start != -1) {
+            int end = fullText.indexOf(right, start);
+            if (end == -1) {
+                start = -1;
+            } else {
+                String tag = fullText.substring(start + 1, end);
+                String insertion = "\n";
+                if (tag.equals("i") || tag.equals("/i") || tag.equals("b") || tag.equals("/b")
+                    || tag.equals("em") || tag.equals("/em")) {
+                    insertion = "";
+                }
+                fullText = fullText.substring(0, start) + insertion + fullText.substring(end + right.length());
+                start = fullText.indexOf(left);
+            }
+        }
+        return fullText;
+    }
+
+    public void testStrip() {
+        assertEquals("\n\n\n\nTitle\n\n\n\nSome bold and italic text\n\n\n",
+            HtmlStripper.strip("<html><head><title>x</title></head><body><h1>Title</h1>\r\n"
+                + "<script type=\"text/javascript\">var a = 1 < 2;</script>"
+                + "<p>Some <b>bold</b> and <i>italic</i>&nbsp;text</p></body></html>"));
+        assertEquals("a b", HtmlStripper.strip("a&#160;b"));
+        assertEquals("a\nb", HtmlStripper.strip("a \r\n b"));
+        assertEquals("a <b unclosed", HtmlStripper.strip("a <b unclosed"));
+        assertEquals("x\nnever closed", HtmlStripper.strip("x<head>never closed"));
+        assertEquals("&amp; &nbsp &#16", HtmlStripper.strip("&amp; &nbsp &#16"));
+    }
+
+    public void testSameAsLegacy() {
+        String[] pieces = new String[] { "<", ">", "<head>", "</head>", "<script>", "</script>", "<b>", "</b>",
+            "<em>", "</i>", "<p>", "<he", "</scr", "&", "&nbsp;", "&#160;", "&nb", "&#1", " ", "  ", "\n", "\r",
+            "\r\n", "text", "x" };
+        Random random = new Random(42);
+        for (int n = 0; n < 20000; n++) {
+            StringBuilder text = new StringBuilder();
+            int len = random.nextInt(20);
+            for (int i = 0; i < len; i++) {
+                text.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertEquals(text.toString(), legacyStrip(text.toString()), HtmlStripper.strip(text.toString()));
+        }
+    }
+
+    public void testStreaming() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            text.append("<td class=\"cell\">cell ").append(i).append("</td>&nbsp;\r\n");
+        }
+        StringWriter out = new StringWriter();
+        HtmlStripper.strip(new StringReader(text.toString()), out);
+        assertTrue(out.toString().startsWith("\ncell 0\n\n\ncell 1\n\n\ncell 2\n"));
+        assertEquals(out.toString(), HtmlStripper.strip(text.toString()));
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import org.openrdf.model.Literal;
+
+import junit.framework.TestCase;
+
+public class InterningValueFactoryTest extends TestCase {
+
+    public void testVocabularyIsShared() {
+        InterningValueFactory factory = InterningValueFactory.getShared();
+        assertSame(factory.createLiteral("Poetry"), factory.createLiteral("Poetry"));
+        assertSame(factory.createLiteral("true"), factory.createLiteral("true"));
+    }
+
+    public void testRepeatedLiteralsAreSharedOnlyOnceAdmitted() {
+        InterningValueFactory factory = InterningValueFactory.getShared();
+        String label = "archive " + System.nanoTime();
+        Literal first = factory.createLiteral(label);
+        assertNotSame(first, factory.createLiteral(label));
+        factory.createLiteral(label);
+        Literal admitted = factory.createLiteral(label);
+        assertSame(admitted, factory.createLiteral(label));
+        assertEquals(label, admitted.stringValue());
+
+        // a one-off value is never held
+        String unique = "title " + System.nanoTime();
+        assertNotSame(factory.createLiteral(unique), factory.createLiteral(unique));
+    }
+}
@@ -0,0 +1,218 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+public class LinkCheckerTest extends TestCase {
+
+    private HttpServer server;
+    private String base;
+    private final AtomicInteger requests = new AtomicInteger();
+    private File dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                String path = exchange.getRequestURI().getPath();
+                boolean head = "HEAD".equals(exchange.getRequestMethod());
+                int status = 200;
+                if (path.startsWith("/slow")) {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (path.startsWith("/missing")) {
+                    status = 404;
+                } else if (path.startsWith("/nohead") && head) {
+                    status = 405;
+                }
+                byte[] body = "some page".getBytes("UTF-8");
+                exchange.sendResponseHeaders(status, head ? -1 : body.length);
+                if (head == false) {
+                    exchange.getResponseBody().write(body);
+                }
+                exchange.close();
+            }
+        });
+        this.server.start();
+        this.base = "http://127.0.0.1:" + this.server.getAddress().getPort();
+        this.dir = new File(FileUtils.getTempDirectory(), "linkcheck" + System.nanoTime());
+        this.dir.mkdirs();
+    }
+
+    protected void tearDown() throws Exception {
+        this.server.stop(0);
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    public void testCheckLinks() throws IOException {
+        File linkData = new File(this.dir, "archive_link_data.txt");
+        FileUtils.writeStringToFile(linkData,
+            "http://doc/1\ta.rdf\t" + base + "/missing/1\n"
+            + "http://doc/1\ta.rdf\t" + base + "/ok/1\n"
+            + "http://doc/2\tb.rdf\t" + base + "/missing/1\n"
+            + "http://doc/2\tb.rdf\t" + base + "/nohead/1\n"
+            + "http://doc/3\tc.rdf\thttp://127.0.0.1:1/refused\n", "UTF-8");
+        File cache = new File(this.dir, "archive_link_cache.txt");
+        File report = new File(this.dir, "archive_broken_links.txt");
+
+        RDFIndexerConfig config = new RDFIndexerConfig();
+        config.linkCheckHostDelay = 0;
+        ErrorReport errorReport = new ErrorReport(new File(this.dir, "errors.log"));
+        LinkChecker checker = new LinkChecker(config, errorReport);
+        checker.check(linkData, cache, report);
+
+        assertEquals(4, checker.getCheckedCount());
+        assertEquals(3, checker.getBrokenCount());
+        List<String> lines = FileUtils.readLines(report, "UTF-8");
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("http://doc/1\ta.rdf\t" + base + "/missing/1\t404\t"));
+        assertTrue(lines.get(1).startsWith("http://doc/2\tb.rdf\t" + base + "/missing/1\t404\t"));
+        assertTrue(lines.get(2).startsWith("http://doc/3\tc.rdf\thttp://127.0.0.1:1/refused\t-1\t"));
+        assertEquals(4, FileUtils.readLines(cache, "UTF-8").size());
+
+        // a second run reuses the cached results
+        int before = this.requests.get();
+        checker = new LinkChecker(config, errorReport);
+        checker.check(linkData, cache, report);
+        assertEquals(0, checker.getCheckedCount());
+        assertEquals(3, checker.getBrokenCount());
+        assertEquals(before, this.requests.get());
+
+        // and rechecks everything once they expire
+        config.linkCheckTtlDays = 0;
+        checker = new LinkChecker(config, errorReport);
+        checker.check(linkData, cache, report);
+        assertEquals(4, checker.getCheckedCount());
+        errorReport.close();
+    }
+
+    public void testInterruptedCheck() throws IOException {
+        File linkData = new File(this.dir, "archive_link_data.txt");
+        StringBuilder links = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            links.append("http://doc/1\ta.rdf\t" + base + "/slow/" + i + "\n");
+        }
+        FileUtils.writeStringToFile(linkData, links.toString(), "UTF-8");
+        File cache = new File(this.dir, "archive_link_cache.txt");
+        File report = new File(this.dir, "archive_broken_links.txt");
+
+        RDFIndexerConfig config = new RDFIndexerConfig();
+        config.linkCheckThreads = 1;
+        config.linkCheckHostDelay = 0;
+        ErrorReport errorReport = new ErrorReport(new File(this.dir, "errors.log"));
+        LinkChecker checker = new LinkChecker(config, errorReport);
+        Thread.currentThread().interrupt();
+        try {
+            checker.check(linkData, cache, report);
+        } finally {
+            Thread.interrupted();
+        }
+
+        // links the check never got to are not broken
+        assertTrue(checker.getNotCheckedCount() >= 4);
+        assertEquals(0, checker.getBrokenCount());
+        assertEquals(0, FileUtils.readLines(report, "UTF-8").size());
+        errorReport.close();
+    }
+
+    public void testHostThrottle() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        HostThrottle throttle = new HostThrottle(2, 0, pool);
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger most = new AtomicInteger();
+        final AtomicInteger ran = new AtomicInteger();
+        for (int i = 0; i < 30; i++) {
+            throttle.submit("host", new Runnable() {
+                public void run() {
+                    int now = active.incrementAndGet();
+                    synchronized (most) {
+                        most.set(Math.max(most.get(), now));
+                    }
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    active.decrementAndGet();
+                    ran.incrementAndGet();
+                }
+            });
+        }
+        assertTrue(throttle.awaitIdle(10, TimeUnit.SECONDS));
+        throttle.shutdown();
+        pool.shutdown();
+        assertEquals(30, ran.get());
+        assertTrue(most.get() <= 2);
+        assertEquals("example.org", HostThrottle.hostOf("http://Example.ORG/a/b"));
+    }
+
+    public void testHostDelayLeavesWorkerFree() throws Exception {
+        // one worker: requests waiting out a host's delay must not hold it
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        HostThrottle throttle = new HostThrottle(1, 500, pool);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        final long start = System.currentTimeMillis();
+        final AtomicLong otherStart = new AtomicLong();
+        for (int i = 0; i < 3; i++) {
+            final String name = "slow" + i;
+            throttle.submit("slow.example.org", new Runnable() {
+                public void run() {
+                    order.add(name);
+                }
+            });
+        }
+        throttle.submit("other.example.org", new Runnable() {
+            public void run() {
+                otherStart.set(System.currentTimeMillis() - start);
+                order.add("other");
+            }
+        });
+        assertTrue(throttle.awaitIdle(10, TimeUnit.SECONDS));
+        long elapsed = System.currentTimeMillis() - start;
+        throttle.shutdown();
+        pool.shutdown();
+        assertEquals(Arrays.asList("slow0", "other", "slow1", "slow2"), order);
+        assertTrue(otherStart.get() < 400);
+        assertTrue(elapsed >= 1000);
+    }
+}
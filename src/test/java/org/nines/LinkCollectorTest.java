@@ -0,0 +1,81 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+public class LinkCollectorTest extends TestCase {
+
+    public void testSortedUnique() throws IOException {
+        File output = File.createTempFile("links", "_link_data.txt");
+        FileUtils.writeStringToFile(output, "stale\tlink\tfrom an earlier run\n");
+        LinkCollector collector = new LinkCollector(output, 1024 * 1024);
+        collector.addLink("http://b", "b.rdf", "http://link/2");
+        collector.addLink("http://a", "a.rdf", "http://link/1");
+        collector.addLink("http://b", "b.rdf", "http://link/2");
+        // the old data stays until the new data is complete
+        assertEquals("stale\tlink\tfrom an earlier run\n", FileUtils.readFileToString(output));
+        collector.close();
+
+        List<String> lines = FileUtils.readLines(output, "UTF-8");
+        assertEquals(2, lines.size());
+        assertEquals("http://a\ta.rdf\thttp://link/1", lines.get(0));
+        assertEquals("http://b\tb.rdf\thttp://link/2", lines.get(1));
+        output.delete();
+    }
+
+    public void testMergeSpilledRuns() throws Exception {
+        File dir = new File(FileUtils.getTempDirectory(), "links" + System.nanoTime());
+        dir.mkdirs();
+        File output = new File(dir, "archive_link_data.txt");
+        try {
+            // tiny runs, so there are more of them than can be merged in one pass
+            final LinkCollector collector = new LinkCollector(output, 200);
+            final TreeSet<String> expected = new TreeSet<String>();
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread() {
+                    public void run() {
+                        for (int i = 0; i < 5000; i++) {
+                            collector.addLink("http://doc/" + (i % 700), "file.rdf", "http://link/" + (i % 900));
+                        }
+                    }
+                };
+                threads[t].start();
+            }
+            for (int i = 0; i < 5000; i++) {
+                expected.add("http://doc/" + (i % 700) + "\tfile.rdf\thttp://link/" + (i % 900));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            collector.close();
+
+            assertEquals(new ArrayList<String>(expected), FileUtils.readLines(output, "UTF-8"));
+            assertEquals(1, dir.list().length);
+        } finally {
+            FileUtils.deleteQuietly(dir);
+        }
+    }
+}
@@ -17,8 +17,9 @@ package org.nines;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -54,16 +55,16 @@ public class NinesStatementHandlerTest extends TestCase {
         }
     }
 
-    public void testAddField() {
-        HashMap<String, ArrayList<String>> map = new HashMap<String, ArrayList<String>>();
+    public void testAddField() throws IOException {
+        SolrDocument map = new SolrDocument();
 
         sh.addField(map, "Genre", "Poetry");
-        assertTrue(map.containsKey("Genre"));
-        ArrayList<String> values = map.get("Genre");
+        assertTrue(map.has("Genre"));
+        List<String> values = map.get("Genre");
         assertTrue(values.size() == 1);
 
         sh.addField(map, "Genre", "Primary");
-        assertTrue(map.containsKey("Genre"));
+        assertTrue(map.has("Genre"));
         values = map.get("Genre");
         assertTrue(values.size() == 2);
     }
@@ -0,0 +1,87 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+public class PdfTextExtractorTest extends TestCase {
+
+    private File dir;
+    private File pdf;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.dir = new File(FileUtils.getTempDirectory(), "pdf" + System.nanoTime());
+        this.dir.mkdirs();
+        this.pdf = new File(this.dir, "sample.pdf");
+        FileUtils.copyFile(new File("test_data/sample.pdf"), this.pdf);
+    }
+
+    protected void tearDown() throws Exception {
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    private String extract(PdfTextExtractor extractor, File out) throws IOException {
+        extractor.extract(this.pdf, out);
+        return FileUtils.readFileToString(out, "UTF-8");
+    }
+
+    public void testRangesMatchWholeDocument() throws IOException {
+        String whole = extract(new PdfTextExtractor(0, 1000), new File(this.dir, "whole.txt"));
+        assertTrue(whole.trim().length() > 0);
+        assertEquals(whole, extract(new PdfTextExtractor(0, 1), new File(this.dir, "ranges.txt")));
+
+        // only the text files are left behind
+        assertEquals(3, this.dir.list().length);
+    }
+
+    public void testDocumentsInParallel() throws Exception {
+        final PdfTextExtractor extractor = new PdfTextExtractor(0, 1);
+        String whole = extract(extractor, new File(this.dir, "whole.txt"));
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        List<Future<String>> texts = new ArrayList<Future<String>>();
+        for (int i = 0; i < 3; i++) {
+            final File out = new File(this.dir, "parallel" + i + ".txt");
+            texts.add(pool.submit(new Callable<String>() {
+                public String call() throws IOException {
+                    return extract(extractor, out);
+                }
+            }));
+        }
+        for (Future<String> text : texts) {
+            assertEquals(whole, text.get());
+        }
+        pool.shutdown();
+    }
+
+    public void testMaxPages() throws IOException {
+        PdfTextExtractor extractor = new PdfTextExtractor(1, 50);
+        File out = new File(this.dir, "first.txt");
+        assertEquals(1, extractor.extract(this.pdf, out));
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+public class RDFIndexerLintTest extends TestCase {
+
+    private static final String RDF =
+        "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+        + "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n"
+        + "         xmlns:role=\"http://www.loc.gov/loc.terms/relators/\"\n"
+        + "         xmlns:test=\"http://www.patacriticism.org/test/schema#\"\n"
+        + "         xmlns:collex=\"http://www.collex.org/schema#\"\n"
+        + "         xmlns:rdfs=\"http://www.w3.org/2000/01/rdf-schema#\"\n"
+        + "         xmlns:dc=\"http://purl.org/dc/elements/1.1/\">\n"
+        + "  <test:works rdf:about=\"http://www.patacriticism.org/test/lint\">\n"
+        + "    <dc:title>Lint</dc:title>\n"
+        + "    <role:AUT>Doe, John</role:AUT>\n"
+        + "    <dc:date>1869</dc:date>\n"
+        + "    <collex:archive>other</collex:archive>\n"
+        + "    <collex:genre>Not A Genre</collex:genre>\n"
+        + "    <collex:discipline>Literature</collex:discipline>\n"
+        + "    <collex:federation>NINES</collex:federation>\n"
+        + "    <dc:type>Codex</dc:type>\n"
+        + "    <rdfs:seeAlso rdf:resource=\"http://www.patacriticism.org/test/lint.html\"/>\n"
+        + "  </test:works>\n"
+        + "</rdf:RDF>\n";
+
+    private File dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.dir = File.createTempFile("lint", "");
+        this.dir.delete();
+        this.dir.mkdirs();
+    }
+
+    protected void tearDown() throws Exception {
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    public void testLintReportsErrorsWithoutSolr() throws Exception {
+        File rdfDir = new File(this.dir, "rdf");
+        FileUtils.writeStringToFile(new File(rdfDir, "lint.rdf"), RDF, "UTF-8");
+        FileUtils.writeStringToFile(new File(rdfDir, "broken.rdf"), RDF.substring(0, RDF.length() / 2), "UTF-8");
+
+        RDFIndexerConfig config = new RDFIndexerConfig();
+        config.mode = RDFIndexerConfig.Mode.LINT;
+        config.sourceDir = rdfDir;
+        config.archiveName = "lint_test";
+        config.logRoot = this.dir.toString();
+        config.lintThreads = 1;
+        // nothing listens here, so any solr request is reported as an error
+        config.solrBaseURL = "http://127.0.0.1:1/solr";
+        new RDFIndexer(config).execute();
+
+        String report = FileUtils.readFileToString(new File(this.dir, "lint_test_lint_error.log"), "UTF-8");
+        assertTrue(report, report.contains("The wrong archive was found. other should be lint_test"));
+        assertTrue(report, report.contains("Not A Genre genre not approved by ARC"));
+        assertTrue(report, report.contains("broken.rdf\t\tFATAL PARSE ERROR"));
+        assertTrue(report, report.contains("broken.rdf\t\tNo objects in this file."));
+        assertFalse(report, report.toLowerCase().contains("solr"));
+        assertEquals(report, 5, report.trim().split("\n").length);
+    }
+}
@@ -0,0 +1,116 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+public class RawTextCleanerTest extends TestCase {
+
+    private File dir;
+    private RDFIndexerConfig config;
+    private ErrorReport errorReport;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.dir = new File(FileUtils.getTempDirectory(), "clean" + System.nanoTime());
+        new File(this.dir, "rawtext/test").mkdirs();
+        this.config = new RDFIndexerConfig();
+        this.config.archiveName = "test";
+        this.config.sourceDir = new File(this.dir, "rawtext");
+        this.errorReport = new ErrorReport(new File(this.dir, "errors.txt"));
+    }
+
+    protected void tearDown() throws Exception {
+        this.errorReport.close();
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    private File fullFile(File rawFile) {
+        return new File(this.dir, "fulltext/test/" + rawFile.getName());
+    }
+
+    public void testCleanEncodings() throws Exception {
+        File utf8 = new File(this.dir, "rawtext/test/utf8.txt");
+        FileUtils.writeStringToFile(utf8, "<html><body><p>café crème brûlée</p></body></html>", "UTF-8");
+        File latin1 = new File(this.dir, "rawtext/test/latin1.txt");
+        FileUtils.writeStringToFile(latin1, "<p>Les élèves français étaient très "
+            + "contents de la réponse à la question posée dès le début.</p>", "ISO-8859-1");
+
+        RawTextCleaner cleaner = new RawTextCleaner(this.config, this.errorReport);
+        cleaner.clean(utf8);
+        cleaner.clean(latin1);
+        cleaner.finish();
+
+        assertEquals("café crème brûlée", FileUtils.readFileToString(fullFile(utf8), "UTF-8").trim());
+        assertTrue(FileUtils.readFileToString(fullFile(latin1), "UTF-8").startsWith("Les élèves français"));
+        assertEquals(2, cleaner.getTotalFilesChanged());
+    }
+
+    public void testParallelCleanersShareStats() throws Exception {
+        final List<File> rawFiles = new ArrayList<File>();
+        for (int i = 0; i < 40; i++) {
+            File rawFile = new File(this.dir, "rawtext/test/text" + i + ".txt");
+            FileUtils.writeStringToFile(rawFile, "<b>text " + i + "</b>", "UTF-8");
+            rawFiles.add(rawFile);
+        }
+        File cleaned = rawFiles.get(0);
+        FileUtils.writeStringToFile(fullFile(cleaned), "text 0", "UTF-8");
+        assertTrue(cleaned.setLastModified(fullFile(cleaned).lastModified() - 10000));
+
+        final CleanStats stats = new CleanStats();
+        final ExtractionPool extraction = new ExtractionPool(this.config, this.errorReport, 4);
+        final ThreadLocal<RawTextCleaner> cleaner = new ThreadLocal<RawTextCleaner>() {
+            protected RawTextCleaner initialValue() {
+                return new RawTextCleaner(config, errorReport, extraction, stats);
+            }
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (final File rawFile : rawFiles) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    cleaner.get().clean(rawFile);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        extraction.shutdown();
+
+        assertEquals(1, stats.getTotalFilesSkipped());
+        assertEquals(39, stats.getTotalFilesChanged());
+        long origChars = 0;
+        long cleanedChars = 0;
+        for (File rawFile : rawFiles.subList(1, rawFiles.size())) {
+            origChars += FileUtils.readFileToString(rawFile, "UTF-8").length();
+            cleanedChars += FileUtils.readFileToString(fullFile(rawFile), "UTF-8").length();
+            assertEquals(rawFile.getName().replace("text", "text ").replace(".txt", ""),
+                FileUtils.readFileToString(fullFile(rawFile), "UTF-8").trim());
+        }
+        assertEquals(origChars, stats.getOriginalLength());
+        assertEquals(cleanedChars, stats.getCleanedLength());
+        assertEquals(0, this.errorReport.getErrorCount());
+    }
+}
@@ -17,7 +17,7 @@ package org.nines;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.StringReader;
 import java.util.HashMap;
 
 import junit.framework.TestCase;
@@ -53,8 +53,27 @@ public class RdfDocumentParserTest extends TestCase {
         assertEquals(7, errorReport.getErrorCount());
     }
 
-    private HashMap<String, HashMap<String, ArrayList<String>>> parse(String filename) throws IOException {
+    public void testEscapeSequenceCheck() throws IOException {
+        String content = "<a>valid &#123; &amp;amp; &#x41; &#x1F600; &#128512;</a>"
+            + "<b>bad &amp;#12; &#zz; &#38;#1; &#x110000;</b>";
+        EscapeCheckingReader reader = new EscapeCheckingReader(new StringReader(content), "test.rdf", errorReport);
+        char[] buf = new char[7];
+        StringBuilder out = new StringBuilder();
+        int cnt;
+        while ((cnt = reader.read(buf, 0, buf.length)) != -1) {
+            out.append(buf, 0, cnt);
+        }
+        reader.close();
+
+        // content passes through untouched; four sequences are flagged
+        assertEquals(content, out.toString());
+        assertEquals(4, errorReport.getErrorCount());
+    }
+
+    private HashMap<String, SolrDocument> parse(String filename) throws IOException {
+        RDFIndexerConfig config = new RDFIndexerConfig();
+        config.archiveName = "test";
         return RdfDocumentParser.parse(new File(System.getProperty("test.data.dir"), filename), errorReport,
-            new LinkCollector(), new RDFIndexerConfig());
+            new LinkCollector(), config);
     }
 }
@@ -0,0 +1,120 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrdf.model.Statement;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.openrdf.rio.rdfxml.RDFXMLParser;
+
+/**
+ * Compares parsing RDF with a new parser and default values per file (the
+ * old path) against a reused parser with the interning value factory. Run
+ * the main method from the test classpath; it attaches the gc profiler so
+ * gc.alloc.rate.norm reports the bytes allocated per parse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RdfParserBenchmark {
+
+    private static final int DOCUMENTS = 200;
+
+    private String rdf;
+    private RDFXMLParser reused;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        sb.append("<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"");
+        sb.append(" xmlns:role=\"http://www.loc.gov/loc.terms/relators/\"");
+        sb.append(" xmlns:rdfs=\"http://www.w3.org/2000/01/rdf-schema#\"");
+        sb.append(" xmlns:collex=\"http://www.collex.org/schema#\"");
+        sb.append(" xmlns:dc=\"http://purl.org/dc/elements/1.1/\"");
+        sb.append(" xmlns:ra=\"http://www.rossettiarchive.org/schema#\">\n");
+        for (int i = 0; i < DOCUMENTS; i++) {
+            sb.append("<ra:TextDescription rdf:about=\"http://www.rossettiarchive.org/docs/").append(i).append("\">\n");
+            sb.append("  <collex:archive>rossetti</collex:archive>\n");
+            sb.append("  <collex:federation>NINES</collex:federation>\n");
+            sb.append("  <collex:freeculture>true</collex:freeculture>\n");
+            sb.append("  <collex:genre>Poetry</collex:genre>\n");
+            sb.append("  <collex:genre>Criticism</collex:genre>\n");
+            sb.append("  <collex:discipline>Literature</collex:discipline>\n");
+            sb.append("  <dc:type>Manuscript</dc:type>\n");
+            sb.append("  <dc:title>The Blessed Damozel, version ").append(i).append("</dc:title>\n");
+            sb.append("  <role:AUT>Rossetti, Dante Gabriel</role:AUT>\n");
+            sb.append("  <dc:date>1850</dc:date>\n");
+            sb.append("  <rdfs:seeAlso rdf:resource=\"http://www.rossettiarchive.org/docs/").append(i).append(".html\"/>\n");
+            sb.append("</ra:TextDescription>\n");
+        }
+        sb.append("</rdf:RDF>\n");
+        this.rdf = sb.toString();
+
+        this.reused = new RDFXMLParser();
+        this.reused.setValueFactory(InterningValueFactory.getShared());
+        this.reused.setVerifyData(true);
+        this.reused.setStopAtFirstError(false);
+    }
+
+    @Benchmark
+    public void defaultValues(Blackhole bh) throws Exception {
+        RDFXMLParser parser = new RDFXMLParser();
+        parser.setVerifyData(true);
+        parser.setStopAtFirstError(false);
+        parse(parser, bh);
+    }
+
+    @Benchmark
+    public void internedValues(Blackhole bh) throws Exception {
+        parse(this.reused, bh);
+    }
+
+    private void parse(RDFXMLParser parser, final Blackhole bh) throws Exception {
+        parser.setRDFHandler(new RDFHandlerBase() {
+            public void handleStatement(Statement st) {
+                bh.consume(st.getSubject().stringValue());
+                bh.consume(RdfSchema.property(st.getPredicate().stringValue()));
+                bh.consume(st.getObject().stringValue());
+            }
+        });
+        parser.parse(new StringReader(this.rdf), "http://foo/bench.rdf");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RdfParserBenchmark.class.getSimpleName())
+            .addProfiler("gc").build()).run();
+    }
+}
@@ -0,0 +1,202 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+public class RdfTextSpiderTest extends TestCase {
+
+    private HttpServer server;
+    private String base;
+    private final AtomicInteger requests = new AtomicInteger();
+    private File dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                String path = exchange.getRequestURI().getPath();
+                int status = (path.startsWith("/missing") ? 404 : 200);
+                if (path.equals("/text/1")) {
+                    exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                    if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        exchange.sendResponseHeaders(304, -1);
+                        exchange.close();
+                        return;
+                    }
+                }
+                if (path.startsWith("/stale")) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                String text = "text of " + path;
+                if (path.startsWith("/html")) {
+                    text = "<html><head><title>t</title></head><body><p>" + text + "</p></body></html>";
+                }
+                byte[] body = text.getBytes("UTF-8");
+                exchange.sendResponseHeaders(status, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+        this.server.start();
+        this.base = "http://127.0.0.1:" + this.server.getAddress().getPort();
+        this.dir = new File(FileUtils.getTempDirectory(), "spider" + System.nanoTime());
+        new File(this.dir, "rdf/test").mkdirs();
+    }
+
+    protected void tearDown() throws Exception {
+        this.server.stop(0);
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    private String object(String uri, String text) {
+        return "<nines:Object rdf:about=\"" + uri + "\"><collex:text>" + text + "</collex:text></nines:Object>\n";
+    }
+
+    private File writeRdf() throws IOException {
+        return writeRdf(object("http://doc/1", base + "/text/1")
+            + object("http://doc/2", base + "/text/2")
+            + object("http://doc/3", base + "/text/1")
+            + object("http://doc/4", base + "/missing/1")
+            + object("http://doc/5", base + "/html/1"));
+    }
+
+    private File writeRdf(String objects) throws IOException {
+        File rdf = new File(this.dir, "rdf/test/texts.rdf");
+        FileUtils.writeStringToFile(rdf, "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+            + "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n"
+            + " xmlns:collex=\"http://www.collex.org/schema#\" xmlns:nines=\"http://www.nines.org/schema#\">\n"
+            + objects
+            + "</rdf:RDF>\n", "UTF-8");
+        return rdf;
+    }
+
+    private RdfTextSpider spider(File rdf, ErrorReport errorReport) {
+        return spider(rdf, errorReport, false);
+    }
+
+    private RdfTextSpider spider(File rdf, ErrorReport errorReport, boolean clean) {
+        RDFIndexerConfig config = new RDFIndexerConfig();
+        config.archiveName = "test";
+        config.sourceDir = new File(this.dir, "rdf/test");
+        config.spiderThreads = 4;
+        config.spiderHostDelay = 0;
+        config.spiderClean = clean;
+        RdfTextSpider spider = new RdfTextSpider(config, errorReport);
+        spider.spider(rdf);
+        spider.finish();
+        return spider;
+    }
+
+    private File rawFile(String path) {
+        return new File(this.dir, "rawtext/test/" + TextFileNames.encode(base + path) + TextFileNames.EXTENSION);
+    }
+
+    private File fullFile(String path) {
+        return new File(this.dir, "fulltext/test/" + TextFileNames.encode(base + path) + TextFileNames.EXTENSION);
+    }
+
+    public void testSpider() throws IOException {
+        ErrorReport errorReport = new ErrorReport(new File(this.dir, "errors.txt"));
+        RdfTextSpider spider = spider(writeRdf(), errorReport);
+        errorReport.close();
+
+        assertEquals(3, spider.getFetchedCount());
+        assertEquals(1, spider.getFailedCount());
+        assertEquals(4, this.requests.get());
+        assertEquals(1, spider.getDuplicateCount());
+        assertEquals(0, spider.getParsedCount());
+        assertEquals("text of /text/2", FileUtils.readFileToString(rawFile("/text/2"), "UTF-8"));
+        assertEquals(1, errorReport.getErrorCount());
+        assertTrue(new File(this.dir, "rawtext/test_spider_cache.txt").exists());
+        assertFalse(new File(this.dir, "fulltext").exists());
+    }
+
+    public void testUnchangedTexts() throws IOException {
+        File rdf = writeRdf();
+        ErrorReport errorReport = new ErrorReport(new File(this.dir, "errors.txt"));
+        spider(rdf, errorReport);
+        File text = rawFile("/text/2");
+        assertTrue(text.setLastModified(1000000000L));
+
+        RdfTextSpider spider = spider(rdf, errorReport);
+        errorReport.close();
+        assertEquals(3, spider.getFetchedCount());
+        assertEquals(1, spider.getNotModifiedCount());
+        assertEquals(2, spider.getUnchangedCount());
+        assertEquals(1000000000L, text.lastModified());
+        assertEquals("text of /text/1", FileUtils.readFileToString(rawFile("/text/1"), "UTF-8"));
+    }
+
+    public void testNotModifiedWithoutPrior() throws IOException {
+        ErrorReport errorReport = new ErrorReport(new File(this.dir, "errors.txt"));
+        RdfTextSpider spider = spider(writeRdf(object("http://doc/1", base + "/stale/1")), errorReport);
+        errorReport.close();
+
+        assertEquals(0, spider.getFetchedCount());
+        assertEquals(1, spider.getFailedCount());
+        assertEquals(0, spider.getNotModifiedCount());
+        assertEquals(1, errorReport.getErrorCount());
+        assertFalse(rawFile("/stale/1").exists());
+    }
+
+    public void testCleanAsSpidered() throws IOException {
+        ErrorReport errorReport = new ErrorReport(new File(this.dir, "errors.txt"));
+        RdfTextSpider spider = spider(writeRdf(), errorReport, true);
+        errorReport.close();
+
+        assertEquals(3, spider.getFetchedCount());
+        assertEquals(1, errorReport.getErrorCount());
+        String raw = FileUtils.readFileToString(rawFile("/html/1"), "UTF-8");
+        assertTrue(raw.startsWith("<html>"));
+        String full = FileUtils.readFileToString(fullFile("/html/1"), "UTF-8");
+        assertEquals("text of /html/1", full.trim());
+        assertEquals("text of /text/2", FileUtils.readFileToString(fullFile("/text/2"), "UTF-8").trim());
+        assertTrue(fullFile("/text/1").lastModified() >= rawFile("/text/1").lastModified());
+        assertFalse(fullFile("/missing/1").exists());
+    }
+
+    public void testCleanCurrentTexts() throws IOException {
+        File rdf = writeRdf();
+        ErrorReport errorReport = new ErrorReport(new File(this.dir, "errors.txt"));
+        spider(rdf, errorReport, false);
+        assertFalse(fullFile("/text/1").exists());
+
+        // nothing changed remotely, but the texts were never cleaned
+        RdfTextSpider spider = spider(rdf, errorReport, true);
+        errorReport.close();
+        assertEquals(1, spider.getNotModifiedCount());
+        assertEquals(2, spider.getUnchangedCount());
+        assertEquals("text of /text/1", FileUtils.readFileToString(fullFile("/text/1"), "UTF-8").trim());
+        assertEquals("text of /html/1", FileUtils.readFileToString(fullFile("/html/1"), "UTF-8").trim());
+    }
+}
@@ -0,0 +1,135 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+public class SchemaValidatorTest extends TestCase {
+
+  private ArrayList<String> validate(SchemaValidator validator, SolrDocument object) throws IOException {
+    final ArrayList<String> messages = new ArrayList<String>();
+    validator.validate(object, new IValidationSink() {
+      public void message(String message) {
+        messages.add(message);
+      }
+    });
+    return messages;
+  }
+
+  private SolrDocument validObject() {
+    SolrDocument object = new SolrDocument();
+    object.add("uri", "http://example.org/doc/1");
+    for (String field : ValidationUtility.REQUIRED_FIELDS) {
+      object.add(field, "x");
+    }
+    object.set("genre", "Poetry");
+    object.set("discipline", "Literature");
+    object.set("doc_type", "Codex");
+    object.add("role_AUT", "Someone");
+    return object;
+  }
+
+  public void testValidObject() throws IOException {
+    assertEquals(0, validate(SchemaValidator.defaultValidator(false), validObject()).size());
+  }
+
+  public void testSinglePassMessages() throws IOException {
+    SolrDocument object = validObject();
+    object.remove("title");
+    object.add("archive", "other");
+    object.add("genre", "Zine");
+    object.set("doc_type", "Scroll");
+    object.add("url", "http://example.org/2");
+    object.add("role_XXX", "Someone");
+
+    ArrayList<String> messages = validate(SchemaValidator.defaultValidator(false), object);
+    assertTrue(messages.contains("object must contain the dc:title field"));
+    assertTrue(messages.contains("must contain exactly one archive field"));
+    assertTrue(messages.contains("Zine genre not approved by ARC"));
+    assertTrue(messages.contains("Scroll type not approved by ARC"));
+    assertTrue(messages.contains("must not contain more than one url field:x;http://example.org/2;"));
+    assertTrue(messages.contains("invalid role: role_XXX"));
+    assertEquals(6, messages.size());
+    assertEquals(1, object.count("url"));
+  }
+
+  public void testMissingRoleAndUri() throws IOException {
+    SolrDocument object = validObject();
+    object.remove("role_AUT");
+    object.remove("archive");
+    object.set("uri", "http://foo/1");
+
+    ArrayList<String> messages = validate(SchemaValidator.defaultValidator(false), object);
+    assertTrue(messages.contains("object must contain at least one role:XXX field"));
+    assertTrue(messages.contains("must contain exactly one archive field"));
+    assertTrue(messages.contains("URI field is not created properly"));
+  }
+
+  public void testPages() throws IOException {
+    SolrDocument page = new SolrDocument();
+    page.add("uri", "http://example.org/doc/1/page/1");
+    page.add("page_of", "http://example.org/doc/1");
+    page.add("text", "");
+
+    ArrayList<String> messages = validate(SchemaValidator.defaultValidator(true), page);
+    assertTrue(messages.contains("object must contain the collex:pagenum field"));
+    assertTrue(messages.contains("Warning - collex:text is blank"));
+    assertEquals(2, messages.size());
+    assertFalse(page.has("text"));
+  }
+
+  public void testRulesFile() throws Exception {
+    File rulesFile = File.createTempFile("rules", ".properties");
+    try {
+      Writer out = new OutputStreamWriter(new FileOutputStream(rulesFile), "UTF-8");
+      out.write("values.genre.add=Zine\n");
+      out.write("roles.add=role_XXX\n");
+      out.write("required=archive;title\n");
+      out.close();
+
+      SolrDocument object = validObject();
+      object.set("genre", "Zine");
+      object.add("role_XXX", "Someone");
+      object.remove("federation");
+      SchemaValidator validator = SchemaValidator.load(rulesFile, false);
+      assertEquals(0, validate(validator, object).size());
+
+      object.remove("title");
+      assertEquals(1, validate(validator, object).size());
+    } finally {
+      rulesFile.delete();
+    }
+  }
+
+  public void testUnknownRuleField() {
+    Properties rules = SchemaValidator.defaultRules();
+    rules.setProperty("values.no_such_field", "a;b");
+    try {
+      SchemaValidator.compile(rules, false);
+      fail("unknown field accepted");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("no_such_field"));
+    }
+  }
+}
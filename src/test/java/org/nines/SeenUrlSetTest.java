@@ -0,0 +1,87 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+public class SeenUrlSetTest extends TestCase {
+
+    private File dir;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.dir = new File(FileUtils.getTempDirectory(), "seen" + System.nanoTime());
+        this.dir.mkdirs();
+    }
+
+    protected void tearDown() throws Exception {
+        FileUtils.deleteQuietly(this.dir);
+        super.tearDown();
+    }
+
+    public void testInMemory() throws IOException {
+        SeenUrlSet seen = new SeenUrlSet(this.dir, 100);
+        assertTrue(seen.add("http://a/1"));
+        assertTrue(seen.add("http://a/2"));
+        assertFalse(seen.add("http://a/1"));
+        assertEquals(2, seen.size());
+        assertEquals(1, seen.getDuplicateCount());
+        assertEquals(0, seen.getRunCount());
+        seen.close();
+    }
+
+    public void testSpilledRuns() throws IOException {
+        SeenUrlSet seen = new SeenUrlSet(this.dir, 100);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(seen.add("http://host/" + i));
+        }
+        assertEquals(10, seen.getRunCount());
+        assertEquals(10, this.dir.list().length);
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(seen.add("http://host/" + i));
+        }
+        assertTrue(seen.add("http://host/1000"));
+        assertEquals(1001, seen.size());
+        assertEquals(1000, seen.getDuplicateCount());
+        seen.close();
+        assertEquals(0, this.dir.list().length);
+    }
+
+    public void testSpillFailure() throws IOException {
+        // runs cannot be written here, so every hash stays in memory
+        SeenUrlSet seen = new SeenUrlSet(new File(this.dir, "missing"), 100);
+        int failures = 0;
+        for (int i = 0; i < 1000; i++) {
+            try {
+                assertTrue(seen.add("http://host/" + i));
+            } catch (IOException e) {
+                failures++;
+            }
+        }
+        assertEquals(1, failures);
+        assertEquals(0, seen.getRunCount());
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(seen.add("http://host/" + i));
+        }
+        assertEquals(1000, seen.size());
+        seen.close();
+    }
+}
@@ -0,0 +1,83 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class SolrDocumentTest extends TestCase {
+
+    public void testKnownAndDynamicFields() throws IOException {
+        assertTrue(SolrDocument.fieldId("title") >= 0);
+        assertEquals(-1, SolrDocument.fieldId("rossetti_tag"));
+
+        SolrDocument doc = new SolrDocument();
+        doc.add("uri", "http://some/uri");
+        doc.add("genre", "Poetry");
+        doc.add("genre", "Fiction");
+        doc.add("genre", "Drama");
+        doc.add("rossetti_tag", "sketch");
+
+        assertEquals(3, doc.size());
+        assertEquals("uri", doc.name(0));
+        assertEquals("rossetti_tag", doc.name(2));
+        assertEquals(3, doc.count("genre"));
+        assertEquals("Poetry", doc.getFirst("genre"));
+        assertEquals("Drama", doc.getLast("genre"));
+        assertTrue(doc.contains("genre", "Fiction"));
+        assertFalse(doc.contains("genre", "Essay"));
+        assertEquals("sketch", doc.getFirst("rossetti_tag"));
+        assertNull(doc.get("title"));
+    }
+
+    public void testReplaceAndRemove() throws IOException {
+        SolrDocument doc = new SolrDocument();
+        doc.add("title", "one");
+        doc.add("title", "two");
+        doc.set("freeculture", "F");
+        doc.set("freeculture", "T");
+
+        doc.truncate("title", 1);
+        assertEquals(Arrays.asList("one"), doc.get("title"));
+        assertEquals(Arrays.asList("T"), doc.get("freeculture"));
+
+        assertTrue(doc.remove("title"));
+        assertFalse(doc.remove("title"));
+        assertFalse(doc.has("title"));
+        assertEquals(1, doc.size());
+        assertEquals("freeculture", doc.name(0));
+
+        doc.put("discipline", Arrays.asList("History", "Literature"));
+        assertEquals(2, doc.count("discipline"));
+    }
+
+    public void testManyValues() throws IOException {
+        SolrDocument doc = new SolrDocument();
+        for (int i = 0; i < 10000; i++) {
+            doc.add("role_AUT", "author " + i);
+        }
+        assertEquals(10000, doc.count("role_AUT"));
+        assertEquals("author 0", doc.getFirst("role_AUT"));
+        assertEquals("author 9999", doc.getLast("role_AUT"));
+        assertEquals("author 5000", doc.get("role_AUT").get(5000));
+
+        doc.truncate("role_AUT", 3);
+        doc.add("role_AUT", "added");
+        assertEquals(Arrays.asList("author 0", "author 1", "author 2", "added"), doc.get("role_AUT"));
+    }
+}
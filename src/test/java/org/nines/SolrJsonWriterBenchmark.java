@@ -0,0 +1,120 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Compares building a batch of documents through a Gson tree (the old
+ * path, including the size check on every document) with writing them
+ * directly through SolrJsonWriter. Not run as part of the unit tests;
+ * run the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SolrJsonWriterBenchmark {
+
+    @Param({ "100", "1000" })
+    public int batchSize;
+
+    private ArrayList<HashMap<String, ArrayList<String>>> maps;
+    private ArrayList<SolrDocument> docs;
+
+    @Setup
+    public void setup() throws IOException {
+        this.maps = new ArrayList<HashMap<String, ArrayList<String>>>();
+        this.docs = new ArrayList<SolrDocument>();
+        for (int i = 0; i < this.batchSize; i++) {
+            SolrDocument doc = new SolrDocument();
+            doc.add("uri", "http://www.rossettiarchive.org/docs/" + i);
+            doc.add("archive", "rossetti");
+            doc.add("title", "The Blessed Damozel, \"version\" " + i);
+            doc.add("genre", "Poetry");
+            doc.add("genre", "Criticism");
+            doc.add("role_AUT", "Rossetti, Dante Gabriel");
+            doc.add("year", "1850");
+            doc.add("year_sort", "1850");
+            doc.add("freeculture", "T");
+            doc.add("text", "The blessed damozel leaned out\nFrom the gold bar of Heaven;\n");
+            this.docs.add(doc);
+
+            HashMap<String, ArrayList<String>> map = new HashMap<String, ArrayList<String>>();
+            for (int f = 0; f < doc.size(); f++) {
+                map.put(doc.name(f), new ArrayList<String>(doc.get(doc.name(f))));
+            }
+            this.maps.add(map);
+        }
+    }
+
+    @Benchmark
+    public String gsonTree() {
+        JsonArray payload = new JsonArray();
+        int length = 0;
+        for (HashMap<String, ArrayList<String>> fields : this.maps) {
+            Gson gson = new Gson();
+            JsonObject obj = gson.toJsonTree(fields).getAsJsonObject();
+            obj.addProperty("date_created", "2013-01-01");
+            obj.addProperty("date_updated", "2013-01-01");
+            payload.add(obj);
+            length = payload.toString().length();
+        }
+        return payload.toString() + length;
+    }
+
+    @Benchmark
+    public String streamingWriter() throws IOException {
+        SolrJsonWriter writer = new SolrJsonWriter("2013-01-01");
+        long length = 0;
+        for (SolrDocument doc : this.docs) {
+            writer.write(doc);
+            length = writer.length();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.finish().writeTo(out);
+        return out.toString("UTF-8") + length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SolrJsonWriterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,133 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import junit.framework.TestCase;
+
+public class SolrJsonWriterTest extends TestCase {
+
+    public void testWriteDocuments() throws IOException {
+        SolrJsonWriter writer = new SolrJsonWriter("2013-01-01");
+        assertTrue(writer.isEmpty());
+
+        SolrDocument doc = new SolrDocument();
+        doc.add("uri", "http://some/uri");
+        doc.add("title", "A \"quoted\" title\\with\ttabs\nand lines \u2028");
+        doc.add("genre", "Poetry");
+        doc.add("genre", "Fiction");
+        doc.add("rossetti_tag", "sketch");
+        writer.write(doc);
+
+        JsonObject ref = new JsonObject();
+        ref.addProperty("uri", "http://other/uri");
+        writer.write(ref);
+
+        assertFalse(writer.isEmpty());
+        long len = writer.length();
+        SolrJsonWriter.Payload batch = writer.finish();
+        String payload = json(batch);
+        assertEquals(payload.length(), len);
+        assertEquals(len, batch.length());
+        assertTrue(writer.isEmpty());
+        assertEquals("[]", json(writer.finish()));
+
+        JsonArray docs = new JsonParser().parse(payload).getAsJsonArray();
+        assertEquals(2, docs.size());
+        JsonObject json = docs.get(0).getAsJsonObject();
+        assertEquals("http://some/uri", json.get("uri").getAsString());
+        assertTrue(json.get("title").isJsonArray());
+        assertEquals(doc.getFirst("title"), json.getAsJsonArray("title").get(0).getAsString());
+        assertEquals(2, json.getAsJsonArray("genre").size());
+        assertEquals("sketch", json.getAsJsonArray("rossetti_tag").get(0).getAsString());
+        assertEquals("2013-01-01", json.get("date_created").getAsString());
+        assertEquals("2013-01-01", json.get("date_updated").getAsString());
+        assertEquals("http://other/uri", docs.get(1).getAsJsonObject().get("uri").getAsString());
+    }
+
+    public void testWriteFileText() throws IOException {
+        // long enough to span several read chunks, with multi-byte chars straddling the chunk ends
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 200000) {
+            text.append("Line \"").append(text.length()).append("\" caf\u00e9 \u2014 \ud834\udd1e\\\t\n");
+        }
+        File file = File.createTempFile("fulltext", ".txt");
+        try {
+            FileUtils.writeStringToFile(file, text.toString(), "UTF-8");
+            SolrDocument doc = new SolrDocument();
+            doc.add("uri", "http://some/uri");
+            doc.add("text", new FileText(file));
+            assertEquals(file.length(), doc.fileValue(1, 0).length());
+            assertFalse(doc.isFirstEmpty("text"));
+
+            SolrJsonWriter writer = new SolrJsonWriter("2013-01-01");
+            writer.write(doc);
+            assertTrue(writer.length() > file.length());
+            SolrJsonWriter.Payload payload = writer.finish();
+
+            // the text is read from its file each time the batch is written out
+            String json = json(payload);
+            JsonObject obj = new JsonParser().parse(json).getAsJsonArray().get(0).getAsJsonObject();
+            assertEquals(text.toString(), obj.getAsJsonArray("text").get(0).getAsString());
+            assertEquals(json, json(payload));
+            assertEquals(text.toString(), doc.getFirst("text"));
+
+            file.delete();
+            try {
+                doc.getFirst("text");
+                fail("Missing text file was not reported");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testMissingFileText() throws IOException {
+        File file = File.createTempFile("fulltext", ".txt");
+        SolrDocument doc = new SolrDocument();
+        doc.add("uri", "http://some/uri");
+        doc.add("text", new FileText(file));
+        file.delete();
+
+        SolrJsonWriter writer = new SolrJsonWriter("2013-01-01");
+        try {
+            writer.write(doc);
+            fail("Missing text file was not reported");
+        } catch (IOException e) {
+            // expected; the document is still written
+        }
+        JsonObject json = new JsonParser().parse(json(writer.finish())).getAsJsonArray().get(0).getAsJsonObject();
+        assertEquals("http://some/uri", json.get("uri").getAsString());
+        assertEquals("", json.getAsJsonArray("text").get(0).getAsString());
+    }
+
+    private static String json(SolrJsonWriter.Payload payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        payload.writeTo(out);
+        return out.toString("UTF-8");
+    }
+}
@@ -0,0 +1,72 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.TestCase;
+
+public class TextFileIndexTest extends TestCase {
+
+    public void testFileNames() {
+        String uri = "http://some.site/text?doc=1&part=2";
+        String name = TextFileNames.encode(uri);
+        assertEquals("httpCLSLSLsome.siteSLtextQUdocEQ1AMPpartEQ2", name);
+        assertSame("plain", TextFileNames.encode("plain"));
+
+        String corrected = TextFileNames.encodeCorrected("http://some.site/text");
+        assertEquals("http_C__S__S_some.site_S_text", corrected);
+    }
+
+    public void testIndex() throws IOException {
+        File base = new File(FileUtils.getTempDirectory(), "textindex" + System.nanoTime());
+        File fullText = new File(base, "fulltext");
+        File correctedText = new File(base, "correctedtext");
+        try {
+            FileUtils.writeStringToFile(new File(fullText, TextFileNames.encode("http://a/1") + ".txt"), "one");
+            FileUtils.writeStringToFile(new File(fullText, TextFileNames.encode("http://a/2?x=y") + ".txt"), "two");
+            FileUtils.writeStringToFile(new File(fullText, "notes.xml"), "skipped");
+            FileUtils.writeStringToFile(new File(correctedText, TextFileNames.encodeCorrected("http://a/2") + ".txt"), "fix");
+            FileUtils.writeStringToFile(new File(correctedText, TextFileNames.encodeCorrected("http://a/_S_3") + ".txt"), "odd");
+
+            TextFileIndex index = TextFileIndex.scan(fullText, correctedText);
+            assertTrue(index.hasFullTextDir());
+            assertEquals(2, index.fullTextCount());
+            assertTrue(index.hasFullText("http://a/1"));
+            assertTrue(index.hasFullText("http://a/2?x=y"));
+            assertFalse(index.hasFullText("http://a/3"));
+            assertTrue(index.fullTextFile("http://a/1").exists());
+
+            assertEquals(2, index.correctedTextCount());
+            assertTrue(index.hasCorrectedText("http://a/2"));
+            assertTrue(index.hasCorrectedText("http://a/_S_3"));
+            assertEquals("odd", FileUtils.readFileToString(index.correctedTextFile("http://a/_S_3")));
+            assertFalse(index.hasCorrectedText("http://a/1"));
+            assertNull(index.correctedTextFile("http://a/1"));
+            assertEquals("fix", FileUtils.readFileToString(index.correctedTextFile("http://a/2")));
+
+            index = TextFileIndex.scan(new File(base, "missing"), new File(base, "missing"));
+            assertFalse(index.hasFullTextDir());
+            assertFalse(index.hasFullText("http://a/1"));
+            assertFalse(index.hasCorrectedText("http://a/2"));
+        } finally {
+            FileUtils.deleteQuietly(base);
+        }
+    }
+}
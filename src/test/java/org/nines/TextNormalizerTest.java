@@ -0,0 +1,66 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+public class TextNormalizerTest extends TestCase {
+
+    private final ArrayList<String> errors = new ArrayList<String>();
+    private final ITextErrorListener listener = new ITextErrorListener() {
+        public void badEscape(String sequence) {
+            errors.add("escape " + sequence);
+        }
+        public void unknownCharacter(int position, CharSequence text, int start, int end) {
+            errors.add("unknown " + position);
+        }
+    };
+
+    public void testCleanTextIsNotCopied() {
+        TextNormalizer normalizer = new TextNormalizer(TextNormalizer.ALL);
+        String clean = "The Blessed Damozel";
+        assertSame(clean, normalizer.normalize(clean, listener));
+        assertEquals("", normalizer.normalize("", listener));
+        assertTrue(errors.isEmpty());
+    }
+
+    public void testWhitespace() {
+        TextNormalizer normalizer = new TextNormalizer(TextNormalizer.WHITESPACE);
+        assertEquals("a b\nc d", normalizer.normalize("  a \t  b \r\n\n\n\t c   d\n ", null));
+        assertEquals(TextUtils.normalizeWhitespace("x\n\n y"), "x\ny");
+    }
+
+    public void testEscapes() {
+        TextNormalizer normalizer = new TextNormalizer(TextNormalizer.UNESCAPE | TextNormalizer.STRIP_BAD_ESCAPES);
+        assertEquals("AT&T <b> A", normalizer.normalize("AT&amp;T &lt;b&gt; &#65;", listener));
+        assertEquals("x  y", normalizer.normalize("x &amp;#12; y", listener));
+        assertEquals("&#123456; a & b; (c)", normalizer.normalize("&#123456; a & b; (c)&#(;", listener));
+        assertEquals(2, errors.size());
+        assertEquals("escape &#12;", errors.get(0));
+        assertEquals("escape &#(;", errors.get(1));
+    }
+
+    public void testAllSteps() {
+        TextNormalizer normalizer = new TextNormalizer(TextNormalizer.ALL);
+        assertEquals("a b\nc", normalizer.normalize(" a\ufffd  &amp;#9; b\n\n c\ufffd", listener));
+        assertEquals(3, errors.size());
+        assertEquals("escape &#9;", errors.get(0));
+        assertEquals("unknown 1", errors.get(1));
+        assertEquals("unknown 6", errors.get(2));
+    }
+}
@@ -0,0 +1,120 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openrdf.model.Statement;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.openrdf.rio.rdfxml.RDFXMLParser;
+
+import junit.framework.TestCase;
+
+public class TextUrlScannerTest extends TestCase {
+
+    private static final String HEAD = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+        + "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n"
+        + " xmlns:collex=\"http://www.collex.org/schema#\" xmlns:nines=\"http://www.nines.org/schema#\"\n"
+        + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\">\n";
+    private static final String TAIL = "</rdf:RDF>\n";
+
+    private List<String> scan(String body) throws Exception {
+        return new TextUrlScanner().scan(new ByteArrayInputStream((HEAD + body + TAIL).getBytes("UTF-8")));
+    }
+
+    /**
+     * The collex:text objects the full RDF parser finds
+     */
+    private List<String> parse(String body) throws Exception {
+        final List<String> texts = new ArrayList<String>();
+        RDFXMLParser parser = new RDFXMLParser();
+        parser.setRDFHandler(new RDFHandlerBase() {
+            public void handleStatement(Statement statement) throws RDFHandlerException {
+                if ("http://www.collex.org/schema#text".equals(statement.getPredicate().stringValue())) {
+                    String text = statement.getObject().stringValue().trim();
+                    if (text.length() > 0) {
+                        texts.add(text);
+                    }
+                }
+            }
+        });
+        parser.parse(new StringReader(HEAD + body + TAIL), "http://foo/test.rdf");
+        return texts;
+    }
+
+    private void assertSameAsParser(String body) throws Exception {
+        List<String> scanned = scan(body);
+        assertNotNull(scanned);
+        assertEquals(parse(body), scanned);
+    }
+
+    public void testElementText() throws Exception {
+        assertSameAsParser("<nines:Object rdf:about=\"http://doc/1\">\n"
+            + "  <dc:title>A <![CDATA[title]]></dc:title>\n"
+            + "  <collex:text>\n    http://host/text/1\n  </collex:text>\n"
+            + "</nines:Object>\n"
+            + "<nines:Object rdf:about=\"http://doc/2\"><collex:text>plain text, not a URL</collex:text></nines:Object>\n"
+            + "<rdf:Description rdf:about=\"http://doc/3\"><collex:text><![CDATA[http://host/text/3]]></collex:text>"
+            + "</rdf:Description>\n");
+        assertEquals("http://host/text/1", scan("<nines:Object rdf:about=\"http://doc/1\">"
+            + "<collex:text>http://host/text/1</collex:text></nines:Object>").get(0));
+    }
+
+    public void testResourceAndAttributeText() throws Exception {
+        assertSameAsParser("<nines:Object rdf:about=\"http://doc/1\" collex:text=\"http://host/text/1\"/>\n"
+            + "<nines:Object rdf:about=\"http://doc/2\"><collex:text rdf:resource=\"http://host/text/2\"/></nines:Object>\n"
+            + "<nines:Object rdf:about=\"http://doc/3\">"
+            + "<collex:text xml:lang=\"en\" rdf:datatype=\"http://www.w3.org/2001/XMLSchema#string\">http://host/text/3"
+            + "</collex:text></nines:Object>\n");
+    }
+
+    public void testStripes() throws Exception {
+        // collex:text as a typed node, inside nested nodes and inside parseType forms
+        assertSameAsParser("<nines:Object rdf:about=\"http://doc/1\">\n"
+            + "  <dc:relation><nines:Object rdf:about=\"http://doc/2\"><collex:text>http://host/text/2</collex:text>"
+            + "</nines:Object></dc:relation>\n"
+            + "  <dc:description rdf:parseType=\"Literal\"><collex:text>http://host/not/a/statement</collex:text>"
+            + "</dc:description>\n"
+            + "  <dc:source rdf:parseType=\"Resource\"><collex:text>http://host/text/3</collex:text></dc:source>\n"
+            + "  <dc:subject rdf:parseType=\"Collection\"><rdf:Description rdf:about=\"http://doc/4\">"
+            + "<collex:text>http://host/text/4</collex:text></rdf:Description></dc:subject>\n"
+            + "</nines:Object>\n"
+            + "<collex:text rdf:about=\"http://doc/5\"><dc:title>typed node</dc:title></collex:text>\n");
+        assertEquals(3, scan("<nines:Object rdf:about=\"http://doc/1\"><dc:relation><nines:Object rdf:about=\"http://doc/2\">"
+            + "<collex:text>a</collex:text></nines:Object></dc:relation>"
+            + "<dc:source rdf:parseType=\"Resource\"><collex:text>b</collex:text></dc:source>"
+            + "<dc:description rdf:parseType=\"Literal\"><collex:text>c</collex:text></dc:description>"
+            + "<collex:text>d</collex:text></nines:Object>").size());
+    }
+
+    public void testUnusualRdfNeedsFullParse() throws Exception {
+        assertNull(scan("<nines:Object rdf:about=\"http://doc/1\"><collex:text>http://host/<b>1</b></collex:text>"
+            + "</nines:Object>"));
+        assertNull(scan("<nines:Object rdf:about=\"http://doc/1\"><collex:text rdf:parseType=\"Literal\">x</collex:text>"
+            + "</nines:Object>"));
+        assertNull(scan("<nines:Object rdf:about=\"http://doc/1\"><collex:text rdf:resource=\"text/1\"/></nines:Object>"));
+        assertNull(scan("<nines:Object rdf:about=\"http://doc/1\"><dc:title rdf:parseType=\"Other\"/></nines:Object>"));
+        assertNull(scan("<nines:Object rdf:about=\"http://doc/1\"><collex:text>http://host/1</nines:Object>"));
+        assertNull(new TextUrlScanner().scan(new ByteArrayInputStream(("<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE rdf:RDF [<!ENTITY host \"http://host/\">]>\n" + HEAD.substring(HEAD.indexOf('\n') + 1)
+            + "<nines:Object rdf:about=\"http://doc/1\"><collex:text>&host;1</collex:text></nines:Object>" + TAIL)
+            .getBytes("UTF-8"))));
+    }
+}
@@ -17,8 +17,8 @@ package org.nines;
 
 import junit.framework.TestCase;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 
 public class ValidationUtilityTest extends TestCase {
  
@@ -34,26 +34,26 @@ public class ValidationUtilityTest extends TestCase {
     assertFalse(ValidationUtility.validateGenreInList("asdf"));
   }
 
-  public void testValidateRequired() {
+  public void testValidateRequired() throws IOException {
     // "archive","title","agent","genre","date_label"
-    HashMap<String, ArrayList<String>> testMap = new HashMap<String, ArrayList<String>>();
+    SolrDocument testMap = new SolrDocument();
 
-    ArrayList<String> genreVals = new ArrayList<String>();
-    testMap.put("genre", genreVals);
-    testMap.put("archive", genreVals);
-    testMap.put("year", genreVals);
+    String genreVals = "Poetry";
+    testMap.add("genre", genreVals);
+    testMap.add("archive", genreVals);
+    testMap.add("year", genreVals);
 
     ArrayList<String> messages = ValidationUtility.validateRequired(testMap);
 
     assertEquals(7, messages.size());
 
-    testMap.put("title", genreVals);
-    testMap.put("role_AUT", genreVals);
-    testMap.put("freeculture", genreVals);
-    testMap.put("has_full_text", genreVals);
-    testMap.put("is_ocr", genreVals);
-    testMap.put("federation", genreVals);
-    testMap.put("url", genreVals);
+    testMap.add("title", genreVals);
+    testMap.add("role_AUT", genreVals);
+    testMap.add("freeculture", genreVals);
+    testMap.add("has_full_text", genreVals);
+    testMap.add("is_ocr", genreVals);
+    testMap.add("federation", genreVals);
+    testMap.add("url", genreVals);
 
     messages = ValidationUtility.validateRequired(testMap);
 
@@ -68,19 +68,33 @@ public class ValidationUtilityTest extends TestCase {
   }
 
   public void testValidateRole() {
-    HashMap<String, ArrayList<String>> object = new HashMap<String, ArrayList<String>>();
+    SolrDocument object = new SolrDocument();
     // ART, AUT, EDT, PBL, and TRL are all we currently support
-    object.put("role_ART", null);
-    object.put("role_AUT", null);
-    object.put("role_EDT", null);
-    object.put("role_PBL", null);
-    object.put("role_TRL", null);
-    object.put("something_else", null);
+    object.add("role_ART", "Someone");
+    object.add("role_AUT", "Someone");
+    object.add("role_EDT", "Someone");
+    object.add("role_PBL", "Someone");
+    object.add("role_TRL", "Someone");
+    object.add("something_else", "Someone");
 
     assertEquals(0, ValidationUtility.validateRole(object).size());
 
-    object.put("role_XXX", null);
+    object.add("role_XXX", "Someone");
     assertEquals(1, ValidationUtility.validateRole(object).size());
 
   }
+
+  public void testRequiredTermsFromSchema() throws IOException {
+    SolrDocument object = new SolrDocument();
+    object.add("archive", "test");
+    object.add("role_AUT", "Someone");
+
+    ArrayList<String> messages = ValidationUtility.validateRequired(object);
+    assertTrue(messages.contains("object must contain the dc:title field"));
+    assertTrue(messages.contains("object must contain the dc:date field"));
+    assertTrue(messages.contains("object must contain the collex:fulltext field"));
+    assertTrue(messages.contains("object must contain the rdfs:seeAlso field"));
+    assertTrue(RDFIndexerConfig.ALL_FIELDS.containsAll(RdfSchema.ROLE_FIELDS));
+    assertEquals("text", RDFIndexerConfig.ALL_FIELDS.get(RDFIndexerConfig.ALL_FIELDS.size() - 1));
+  }
 }
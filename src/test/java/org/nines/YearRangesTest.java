@@ -0,0 +1,64 @@
+/** 
+ *  Copyright 2026 Applied Research in Patacriticism and the University of Virginia
+ * 
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ **/
+package org.nines;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class YearRangesTest extends TestCase {
+
+    public void testParse() {
+        YearRanges years = YearRanges.parse("1862-12-25,1864-01-01 1875 1954-10 1863");
+        assertEquals(3, years.rangeCount());
+        assertEquals(1862, years.first());
+        assertEquals(1954, years.last());
+        assertEquals(1864, years.end(0));
+
+        years = YearRanges.parse("1uuu");
+        assertEquals(1, years.rangeCount());
+        assertEquals(1000, years.start(0));
+        assertEquals(1999, years.end(0));
+
+        years = YearRanges.parse("0001,9999 184u");
+        assertEquals(1, years.rangeCount());
+        assertEquals("0001", YearRanges.yearString(years.first()));
+
+        assertNull(YearRanges.parse("Aug 1850"));
+        assertNull(YearRanges.parse("184u,1850"));
+        assertNull(YearRanges.parse("185"));
+        assertNull(YearRanges.parse("[1850]"));
+        assertNull(YearRanges.parse(" unknown "));
+    }
+
+    public void testMergeAndPeriods() {
+        YearRanges years = new YearRanges();
+        years.add(1880, 1890);
+        years.add(1850, 1850);
+        years.add(1891, 1899);
+        years.add(1700, 1710);
+        years.add(1705, 1851);
+        assertEquals(2, years.rangeCount());
+        assertEquals(1700, years.start(0));
+        assertEquals(1851, years.end(0));
+        assertEquals(1880, years.start(1));
+        assertEquals(1899, years.end(1));
+
+        assertTrue(Arrays.equals(new int[] { 1700, 1800 }, years.periods(100)));
+        assertTrue(Arrays.equals(new int[] { 1700, 1750, 1800, 1850 }, years.periods(50)));
+        assertEquals(152 + 20, years.toYearList().size());
+    }
+}